@@ -0,0 +1,120 @@
+package com.assignment2;
+
+import javafx.concurrent.Task;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Runs filter, group-by and statistics jobs on a pool of daemon worker threads,
+ * so the JavaFX Application Thread keeps repainting and handling input while an
+ * analysis runs. Every job is returned as a Task: its progress, result and
+ * failure are published on the Application Thread, and cancelling the Task
+ * stops the job at its next progress report.
+ */
+public class AnalysisExecutor {
+    private static final Logger logger = Logger.getLogger(AnalysisExecutor.class.getName());
+    private static AnalysisExecutor defaultExecutor;
+
+    private final ExecutorService workers;
+
+    /**
+     * A unit of work run by the executor.
+     *
+     * @param <T> The type of the result.
+     */
+    public interface Job<T> {
+        /**
+         * Computes the result.
+         *
+         * @param monitor Receives progress and signals cancellation.
+         * @return The result.
+         * @throws Exception If the job fails.
+         */
+        T run(ProgressMonitor monitor) throws Exception;
+    }
+
+    /**
+     * Creates an executor with its own worker threads.
+     *
+     * @param threads The number of worker threads.
+     */
+    public AnalysisExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "analysis-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Retrieves the executor shared by the application's dialogs.
+     *
+     * @return The shared executor.
+     */
+    public static synchronized AnalysisExecutor getDefault() {
+        if (defaultExecutor == null) {
+            defaultExecutor = new AnalysisExecutor(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Submits a job. Register the Task's handlers right away on the Application
+     * Thread; they are never called before the thread's current event finishes.
+     *
+     * @param title     A description of the job, used as the Task title.
+     * @param totalRows The number of rows the job will report, or a negative
+     *                  value if unknown.
+     * @param job       The job.
+     * @param <T>       The type of the result.
+     * @return The running Task.
+     */
+    public <T> Task<T> submit(String title, long totalRows, Job<T> job) {
+        JobTask<T> task = new JobTask<>(title, totalRows, job);
+        workers.execute(task);
+        logger.info("Submitted analysis job: " + title);
+        return task;
+    }
+
+    /**
+     * Task running a job and acting as its ProgressMonitor.
+     */
+    private static class JobTask<T> extends Task<T> implements ProgressMonitor {
+        private final String title;
+        private final long totalRows;
+        private final Job<T> job;
+        private final AtomicLong rowsDone = new AtomicLong();
+
+        JobTask(String title, long totalRows, Job<T> job) {
+            this.title = title;
+            this.totalRows = totalRows;
+            this.job = job;
+            updateTitle(title);
+        }
+
+        @Override
+        protected T call() throws Exception {
+            if (totalRows < 0) {
+                updateProgress(-1, -1);
+            }
+            return job.run(this);
+        }
+
+        @Override
+        public void worked(long rows) {
+            if (isCancelled()) {
+                throw new CancellationException(title + " cancelled.");
+            }
+            long done = rowsDone.addAndGet(rows);
+            if (totalRows > 0) {
+                updateProgress(Math.min(done, totalRows), totalRows);
+            }
+        }
+    }
+}
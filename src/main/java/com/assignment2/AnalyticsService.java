@@ -1,9 +1,18 @@
 package com.assignment2;
 
 import com.assignment2.analytics.Analytics;
+import com.assignment2.analytics.LazyAnalytics;
 import com.assignment2.model.DataRow;
+import com.assignment2.model.Column;
+import com.assignment2.model.DataTable;
+import com.assignment2.model.GroupKeyIndex;
+import com.assignment2.model.Schema;
+import com.assignment2.model.TypeInference;
+import com.assignment2.model.ZoneMap;
 import com.assignment2.AggregationFunction;
 import com.assignment2.util.DataUtil;
+import com.assignment2.util.SummaryStatistics;
+import com.assignment2.util.TDigest;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -11,6 +20,7 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 import java.util.function.ToDoubleFunction;
 import java.util.logging.Level;
@@ -22,6 +32,8 @@ import java.util.stream.Collectors;
  */
 public class AnalyticsService {
     private static final Logger logger = Logger.getLogger(AnalyticsService.class.getName());
+    private static final List<String> SUMMARY_STATISTICS = Arrays.asList("sum", "average", "max", "min", "count",
+            "variance", "std dev");
 
     /**
      * Filters the analytics data based on the provided predicate.
@@ -31,17 +43,77 @@ public class AnalyticsService {
      * @return A new Analytics instance containing the filtered data.
      */
     public static Analytics<DataRow> filter(Analytics<DataRow> analytics, Predicate<DataRow> predicate) {
-        List<DataRow> filteredData = new ArrayList<>();
-        for (DataRow row : analytics.getData()) {
-            if (predicate.test(row)) {
-                filteredData.add(row);
+        return filter(analytics, predicate, ProgressMonitor.NONE);
+    }
+
+    /**
+     * Filters the analytics data, reporting the rows tested to a monitor.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @param predicate The predicate to apply for filtering.
+     * @param monitor   Receives progress and can cancel the filter.
+     * @return A new Analytics instance containing the filtered data.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    public static Analytics<DataRow> filter(Analytics<DataRow> analytics, Predicate<DataRow> predicate,
+            ProgressMonitor monitor) {
+        return filter(analytics, Collections.singletonList(predicate), monitor);
+    }
+
+    /**
+     * Keeps the rows matching every predicate, reporting the rows tested to a
+     * monitor. The predicates are the filter steps of one lazy plan, so they
+     * run fused in a single pass over the rows, and a row is not tested any
+     * further once a predicate rejects it; see {@link LazyAnalytics}.
+     *
+     * @param analytics  The Analytics instance containing data.
+     * @param predicates The predicates, cheapest or most selective first.
+     * @param monitor    Receives progress and can cancel the filter.
+     * @return A new Analytics view of the matching rows, in order.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    public static Analytics<DataRow> filter(Analytics<DataRow> analytics, List<Predicate<DataRow>> predicates,
+            ProgressMonitor monitor) {
+        // The first step sees every row, so it counts them for the monitor
+        int[] pending = new int[1];
+        LazyAnalytics<DataRow> plan = analytics.lazy().filter(row -> {
+            if (++pending[0] == ProgressMonitor.REPORT_ROWS) {
+                monitor.worked(pending[0]);
+                pending[0] = 0;
             }
+            return true;
+        });
+        for (Predicate<DataRow> predicate : predicates) {
+            plan = plan.filter(predicate);
         }
-        return new Analytics<>(filteredData);
+        Analytics<DataRow> result = plan.toAnalytics();
+        monitor.worked(pending[0]);
+        return result;
+    }
+
+    /**
+     * Retrieves the first k rows of the order by a column without sorting the
+     * rest, by keeping the best rows so far in a bounded heap; see
+     * {@link Analytics#topK(int, long[])} and {@link RowSorter}. Missing values
+     * sort first, or last when descending, and rows with equal values keep
+     * their order.
+     *
+     * @param analytics  The Analytics instance containing data.
+     * @param column     The column to sort by.
+     * @param k          The number of rows to keep, at least 0.
+     * @param descending Whether to sort in descending order (e.g., the 100
+     *                   largest values).
+     * @return A new Analytics view of at most k rows in sorted order.
+     * @throws IllegalArgumentException If k is negative.
+     */
+    public static Analytics<DataRow> topByColumn(Analytics<DataRow> analytics, String column, int k,
+            boolean descending) {
+        return RowSorter.top(analytics, column, descending, k);
     }
 
     /**
-     * Performs group by with multiple aggregations.
+     * Performs group by with multiple aggregations in a single pass over the
+     * data; see {@link GroupByEngine}.
      *
      * @param analytics     The Analytics instance containing data.
      * @param groupByColumn The column to group by.
@@ -50,84 +122,84 @@ public class AnalyticsService {
      */
     public static Map<Object, Map<String, Object>> performGroupByMultipleAggregations(
             Analytics<DataRow> analytics, String groupByColumn, List<AggregationFunction> aggregations) {
+        return performGroupByMultipleAggregations(analytics, groupByColumn, aggregations, false);
+    }
 
-        // Group the data by the specified column
-        Map<Object, List<DataRow>> groupedData = analytics.groupBy(
-                row -> row.getField(groupByColumn),
-                Collectors.toList());
-
-        // Prepare the result map
-        Map<Object, Map<String, Object>> resultMap = new HashMap<>();
-
-        for (Map.Entry<Object, List<DataRow>> entry : groupedData.entrySet()) {
-            Object groupKey = entry.getKey();
-            List<DataRow> groupRows = entry.getValue();
-
-            Map<String, Object> aggResults = new HashMap<>();
-
-            for (AggregationFunction aggFunc : aggregations) {
-                String function = aggFunc.getFunction();
-                String column = aggFunc.getColumn();
-                String aggName = function + "(" + DataUtil.toTitleCase(column) + ")";
-
-                switch (function.toLowerCase()) {
-                    case "count":
-                        aggResults.put(aggName, (long) groupRows.size());
-                        break;
-                    case "sum":
-                        double sum = groupRows.stream()
-                                .mapToDouble(row -> DataUtil.parseSafeDouble(row.getField(column)))
-                                .sum();
-                        aggResults.put(aggName, sum);
-                        break;
-                    case "average":
-                        double average = groupRows.stream()
-                                .mapToDouble(row -> DataUtil.parseSafeDouble(row.getField(column)))
-                                .average()
-                                .orElse(0.0);
-                        aggResults.put(aggName, average);
-                        break;
-                    case "max":
-                        double max = groupRows.stream()
-                                .mapToDouble(row -> DataUtil.parseSafeDouble(row.getField(column)))
-                                .max()
-                                .orElse(0.0);
-                        aggResults.put(aggName, max);
-                        break;
-                    case "min":
-                        double min = groupRows.stream()
-                                .mapToDouble(row -> DataUtil.parseSafeDouble(row.getField(column)))
-                                .min()
-                                .orElse(0.0);
-                        aggResults.put(aggName, min);
-                        break;
-                    case "list":
-                        // Assuming "list" is a valid aggregation function for collecting unique values
-                        List<String> list = groupRows.stream()
-                                .map(row -> row.getField(column).toString())
-                                .distinct()
-                                .collect(Collectors.toList());
-                        aggResults.put(aggName, String.join(", ", list));
-                        break;
-                    default:
-                        logger.warning("Unsupported aggregation function: " + function);
-                        aggResults.put(aggName, null);
-                        break;
-                }
-            }
-
-            resultMap.put(groupKey, aggResults);
+    /**
+     * Performs group by with multiple aggregations, optionally in parallel. In
+     * parallel mode ForkJoin workers aggregate slices of the rows into
+     * thread-local partial results that are merged at the end; the result is the
+     * same as in sequential mode.
+     *
+     * @param analytics     The Analytics instance containing data.
+     * @param groupByColumn The column to group by.
+     * @param aggregations  The list of aggregation functions.
+     * @param parallel      True to aggregate on the common ForkJoin pool.
+     * @return A map of group by values to their aggregation results.
+     */
+    public static Map<Object, Map<String, Object>> performGroupByMultipleAggregations(
+            Analytics<DataRow> analytics, String groupByColumn, List<AggregationFunction> aggregations,
+            boolean parallel) {
+        Map<List<Object>, Map<String, Object>> grouped = performGroupByMultipleAggregations(analytics,
+                Collections.singletonList(groupByColumn), aggregations, parallel);
+        Map<Object, Map<String, Object>> resultMap = new LinkedHashMap<>();
+        for (Map.Entry<List<Object>, Map<String, Object>> entry : grouped.entrySet()) {
+            resultMap.put(entry.getKey().get(0), entry.getValue());
         }
-
         return resultMap;
     }
 
+    /**
+     * Performs group by on several columns with multiple aggregations. Each
+     * distinct combination of values forms a group; for table-backed rows the
+     * combination is resolved by a CompositeKeyIndex, so grouping by several
+     * columns costs about the same as grouping by one.
+     *
+     * @param analytics      The Analytics instance containing data.
+     * @param groupByColumns The columns to group by.
+     * @param aggregations   The list of aggregation functions.
+     * @param parallel       True to aggregate on the common ForkJoin pool.
+     * @return A map of group keys, holding one value per group-by column, to
+     *         their aggregation results.
+     */
+    public static Map<List<Object>, Map<String, Object>> performGroupByMultipleAggregations(
+            Analytics<DataRow> analytics, List<String> groupByColumns, List<AggregationFunction> aggregations,
+            boolean parallel) {
+        return performGroupByMultipleAggregations(analytics, groupByColumns, aggregations, parallel,
+                ProgressMonitor.NONE);
+    }
+
+    /**
+     * Performs group by on several columns with multiple aggregations, reporting
+     * the rows aggregated to a monitor.
+     *
+     * @param analytics      The Analytics instance containing data.
+     * @param groupByColumns The columns to group by.
+     * @param aggregations   The list of aggregation functions.
+     * @param parallel       True to aggregate on the common ForkJoin pool.
+     * @param monitor        Receives progress and can cancel the group by.
+     * @return A map of group keys, holding one value per group-by column, to
+     *         their aggregation results.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    public static Map<List<Object>, Map<String, Object>> performGroupByMultipleAggregations(
+            Analytics<DataRow> analytics, List<String> groupByColumns, List<AggregationFunction> aggregations,
+            boolean parallel, ProgressMonitor monitor) {
+        GroupByEngine engine = new GroupByEngine(groupByColumns, aggregations);
+        engine.setMonitor(monitor);
+        if (parallel) {
+            return engine.aggregateParallel(analytics, ForkJoinPool.commonPool());
+        }
+        return engine.aggregate(analytics);
+    }
+
     /**
      * Performs statistical operations on the analytics data.
      *
      * @param analytics The Analytics instance containing data.
      * @param operation The statistical operation to perform ("Sum", "Average",
-     *                  "Max", "Min").
+     *                  "Max", "Min", "Count", "Variance", "Std Dev", or an
+     *                  estimated quantile such as "Median" or "P95").
      * @param mapper    The function to extract the numeric value from each record.
      * @return The result of the statistical operation.
      * @throws IllegalArgumentException if the operation is unsupported or mapper is
@@ -135,9 +207,43 @@ public class AnalyticsService {
      */
     public static double performStatistic(Analytics<DataRow> analytics, String operation,
             ToDoubleFunction<DataRow> mapper) {
+        return performStatistic(analytics, operation, mapper, ProgressMonitor.NONE);
+    }
+
+    /**
+     * Performs a statistical operation, reporting the rows read to a monitor.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @param operation The statistical operation to perform ("Sum", "Average",
+     *                  "Max", "Min", "Count", "Variance", "Std Dev", or an
+     *                  estimated quantile such as "Median" or "P95").
+     * @param mapper    The function to extract the numeric value from each record.
+     * @param monitor   Receives progress and can cancel the operation.
+     * @return The result of the statistical operation.
+     * @throws IllegalArgumentException if the operation is unsupported or mapper is
+     *                                  null.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    public static double performStatistic(Analytics<DataRow> analytics, String operation,
+            ToDoubleFunction<DataRow> mapper, ProgressMonitor monitor) {
         if (operation == null || mapper == null) {
             throw new IllegalArgumentException("Operation and mapper cannot be null.");
         }
+        if (monitor != ProgressMonitor.NONE) {
+            // The Analytics streams are sequential, so a plain counter is enough
+            ToDoubleFunction<DataRow> values = mapper;
+            int[] pending = new int[1];
+            mapper = row -> {
+                if (++pending[0] == ProgressMonitor.REPORT_ROWS) {
+                    monitor.worked(pending[0]);
+                    pending[0] = 0;
+                }
+                return values.applyAsDouble(row);
+            };
+            double result = performStatistic(analytics, operation, mapper);
+            monitor.worked(pending[0]);
+            return result;
+        }
         try {
             switch (operation.toLowerCase()) {
                 case "sum":
@@ -148,8 +254,20 @@ public class AnalyticsService {
                     return analytics.max(mapper).orElse(Double.NaN);
                 case "min":
                     return analytics.min(mapper).orElse(Double.NaN);
+                case "count":
+                case "variance":
+                case "std dev":
+                    return statisticOf(analytics.summarize(mapper), operation);
                 default:
-                    throw new IllegalArgumentException("Unsupported statistical operation: " + operation);
+                    double quantile = GroupByEngine.quantileOf(operation);
+                    if (Double.isNaN(quantile)) {
+                        throw new IllegalArgumentException("Unsupported statistical operation: " + operation);
+                    }
+                    TDigest digest = new TDigest();
+                    for (DataRow row : analytics.getData()) {
+                        digest.add(mapper.applyAsDouble(row));
+                    }
+                    return digest.quantile(quantile);
             }
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Error performing statistic:", e);
@@ -158,7 +276,137 @@ public class AnalyticsService {
     }
 
     /**
-     * Aggregates data for the Pie Chart.
+     * Performs a statistical operation on one column, with values read as in
+     * {@link DataUtil#parseSafeDouble(Object)}. When the data is a whole
+     * DataTable, MAX and MIN of a numeric column are answered from its ZoneMap
+     * without reading the rows. Other statistics are taken from the
+     * {@link #summarizeColumn(Analytics, String, ProgressMonitor) summary} of the
+     * column, and quantiles are estimated from its
+     * {@link #computeDigest(Analytics, String, ProgressMonitor) digest}.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @param operation The statistical operation to perform ("Sum", "Average",
+     *                  "Max", "Min", "Count", "Variance", "Std Dev", or an
+     *                  estimated quantile such as "Median" or "P95").
+     * @param column    The column to compute the statistic of.
+     * @param monitor   Receives progress and can cancel the operation.
+     * @return The result of the statistical operation.
+     * @throws IllegalArgumentException if the operation is unsupported.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    public static double performColumnStatistic(Analytics<DataRow> analytics, String operation, String column,
+            ProgressMonitor monitor) {
+        List<DataRow> data = analytics.getData();
+        DataTable table = data.isEmpty() ? null : data.get(0).getTable();
+        boolean extreme = "max".equalsIgnoreCase(operation) || "min".equalsIgnoreCase(operation);
+        if (extreme && table != null && table.getColumn(column) != null) {
+            ZoneMap zones = table.getColumn(column).getZoneMap();
+            if (zones != null && analytics.covers(table.rows())) {
+                monitor.worked(data.size());
+                return "max".equalsIgnoreCase(operation) ? zones.max() : zones.min();
+            }
+        }
+        double quantile = GroupByEngine.quantileOf(operation);
+        if (!Double.isNaN(quantile)) {
+            return computeDigest(analytics, column, monitor).quantile(quantile);
+        }
+        if (!SUMMARY_STATISTICS.contains(operation.toLowerCase())) {
+            throw new IllegalArgumentException("Unsupported statistical operation: " + operation);
+        }
+        return statisticOf(summarizeColumn(analytics, column, monitor), operation);
+    }
+
+    /**
+     * Collects the count, sum, average, extremes and variance of one column in a
+     * single pass, with values read as for
+     * {@link #performColumnStatistic(Analytics, String, String, ProgressMonitor)}.
+     * ForkJoin workers summarize slices of the rows and their statistics are
+     * combined, so the sum may differ from a sequential sum in the last bits.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @param column    The column to summarize.
+     * @param monitor   Receives progress and can cancel the operation.
+     * @return The statistics of the column.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    public static SummaryStatistics summarizeColumn(Analytics<DataRow> analytics, String column,
+            ProgressMonitor monitor) {
+        Object summary = aggregateColumn(analytics, "Summary", column, monitor);
+        return summary != null ? (SummaryStatistics) summary : new SummaryStatistics();
+    }
+
+    /**
+     * Reads a statistic from summary statistics.
+     *
+     * @param statistics The statistics.
+     * @param operation  The statistic ("Sum", "Average", "Max", "Min", "Count",
+     *                   "Variance" or "Std Dev").
+     * @return The statistic; Max, Min and the variance of too few values are
+     *         NaN.
+     * @throws IllegalArgumentException if the operation is unsupported.
+     */
+    public static double statisticOf(SummaryStatistics statistics, String operation) {
+        switch (operation.toLowerCase()) {
+            case "sum":
+                return statistics.getSum();
+            case "average":
+                return statistics.getAverage();
+            case "max":
+                return statistics.getCount() > 0 ? statistics.getMax() : Double.NaN;
+            case "min":
+                return statistics.getCount() > 0 ? statistics.getMin() : Double.NaN;
+            case "count":
+                return statistics.getCount();
+            case "variance":
+                return statistics.getVariance();
+            case "std dev":
+                return statistics.getStandardDeviation();
+            default:
+                throw new IllegalArgumentException("Unsupported statistical operation: " + operation);
+        }
+    }
+
+    /**
+     * Summarizes the values of one column in a t-digest, from which any
+     * quantile can be estimated. The values are read in one pass as for
+     * {@link #performColumnStatistic(Analytics, String, String, ProgressMonitor)},
+     * by ForkJoin workers whose partial digests are merged, so the column is
+     * neither copied nor sorted.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @param column    The column to summarize.
+     * @param monitor   Receives progress and can cancel the operation.
+     * @return The digest of the column.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    public static TDigest computeDigest(Analytics<DataRow> analytics, String column, ProgressMonitor monitor) {
+        Object digest = aggregateColumn(analytics, "Digest", column, monitor);
+        return digest != null ? (TDigest) digest : new TDigest();
+    }
+
+    /**
+     * Aggregates one column over all rows in parallel, as a group-by on no
+     * columns, which puts every row into a single group.
+     *
+     * @return The result of the aggregation, or null if there are no rows.
+     */
+    private static Object aggregateColumn(Analytics<DataRow> analytics, String function, String column,
+            ProgressMonitor monitor) {
+        GroupByEngine engine = new GroupByEngine(Collections.emptyList(),
+                Collections.singletonList(new AggregationFunction(function, column)));
+        engine.setMonitor(monitor);
+        Map<List<Object>, Map<String, Object>> groups = engine.aggregateParallel(analytics,
+                ForkJoinPool.commonPool());
+        if (groups.isEmpty()) {
+            return null;
+        }
+        return groups.values().iterator().next().values().iterator().next();
+    }
+
+    /**
+     * Aggregates data for the Pie Chart. For rows backed by a DataTable the
+     * categories are resolved by a GroupKeyIndex and the sums are kept in
+     * primitive arrays, so nothing is allocated per row.
      *
      * @param analytics      The Analytics instance containing data.
      * @param categoryColumn The column to group by (e.g., "Category").
@@ -167,17 +415,97 @@ public class AnalyticsService {
      */
     public static Map<String, Double> aggregateForPieChart(Analytics<DataRow> analytics, String categoryColumn,
             String valueColumn) {
-        return analytics.getData().stream()
-                .filter(row -> row.hasField(categoryColumn) && row.hasField(valueColumn))
-                .collect(Collectors.groupingBy(
-                        row -> row.getField(categoryColumn).toString(),
-                        Collectors.summingDouble(row -> {
-                            Object val = row.getField(valueColumn);
-                            if (val instanceof Number) {
-                                return ((Number) val).doubleValue();
-                            }
-                            return 0.0;
-                        })));
+        DataTable table = tableOf(analytics);
+        Column categories = table != null ? table.getColumn(categoryColumn) : null;
+        Column values = table != null ? table.getColumn(valueColumn) : null;
+        if (categories == null || values == null) {
+            // One fused pass filters and groups the rows
+            return analytics.lazy()
+                    .filter(row -> row.hasField(categoryColumn) && row.hasField(valueColumn))
+                    .groupBy(row -> row.getField(categoryColumn).toString(),
+                            Collectors.summingDouble(row -> {
+                                Object val = row.getField(valueColumn);
+                                if (val instanceof Number) {
+                                    return ((Number) val).doubleValue();
+                                }
+                                return 0.0;
+                            }));
+        }
+
+        // Only numeric values count; strings and booleans add 0.0 as above
+        boolean numeric = TypeInference.isNumeric(values.getType());
+        GroupKeyIndex keys = new GroupKeyIndex(categories);
+        double[] sums = new double[16];
+        double[] compensations = new double[16];
+        for (int index : analytics.positionsIn(table.rows())) {
+            int id = keys.idOf(index);
+            if (id == sums.length) {
+                sums = Arrays.copyOf(sums, id * 2);
+                compensations = Arrays.copyOf(compensations, id * 2);
+            }
+            if (numeric && !values.isNull(index)) {
+                double corrected = values.getDouble(index) - compensations[id];
+                double sum = sums[id] + corrected;
+                compensations[id] = (sum - sums[id]) - corrected;
+                sums[id] = sum;
+            }
+        }
+        Map<String, Double> categoryData = new LinkedHashMap<>();
+        for (int id = 0; id < keys.size(); id++) {
+            // Rows without a category have no slice
+            if (keys.keyOf(id) != null) {
+                categoryData.merge(keys.keyOf(id).toString(), sums[id], Double::sum);
+            }
+        }
+        return categoryData;
+    }
+
+    /**
+     * Determines one data type per column. For rows backed by a DataTable this is
+     * the table's schema; otherwise the types of all non-null values of a column
+     * are widened into one type (INTEGER to DOUBLE to STRING), instead of trusting
+     * the first row.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @return A map of column names, in column order, to their DataType.
+     */
+    public static Map<String, DataRow.DataType> getColumnTypes(Analytics<DataRow> analytics) {
+        Map<String, DataRow.DataType> columnTypes = new LinkedHashMap<>();
+        List<DataRow> rows = analytics.getData();
+        if (rows.isEmpty()) {
+            return columnTypes;
+        }
+        DataTable table = tableOf(analytics);
+        if (table != null) {
+            Schema schema = table.getSchema();
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                columnTypes.put(schema.getColumnName(i), schema.getType(i));
+            }
+            return columnTypes;
+        }
+        for (DataRow row : rows) {
+            for (Map.Entry<String, Object> field : row.getFields().entrySet()) {
+                DataRow.DataType type = field.getValue() != null ? row.getFieldType(field.getKey()) : null;
+                columnTypes.put(field.getKey(), TypeInference.widen(columnTypes.get(field.getKey()), type));
+            }
+        }
+        // Columns without any value are treated as strings
+        columnTypes.replaceAll((column, type) -> type != null ? type : DataRow.DataType.STRING);
+        return columnTypes;
+    }
+
+    /**
+     * Retrieves the table whose rows an instance holds: the instance wraps the
+     * table's row list or is a view of it. Takes constant time, so no row is
+     * visited and no row view is created to find out.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @return The table, or null if the rows are not all rows of one table.
+     */
+    static DataTable tableOf(Analytics<DataRow> analytics) {
+        List<DataRow> rows = analytics.getData();
+        DataTable table = rows.isEmpty() ? null : rows.get(0).getTable();
+        return table != null && analytics.isBackedBy(table.rows()) ? table : null;
     }
 
     /**
@@ -188,13 +516,9 @@ public class AnalyticsService {
      */
     public static List<String> getAvailableNumericColumns(Analytics<DataRow> analytics) {
         List<String> numericColumns = new ArrayList<>();
-        if (!analytics.getData().isEmpty()) {
-            DataRow firstRow = analytics.getData().get(0);
-            for (String key : firstRow.getFields().keySet()) {
-                Object value = firstRow.getField(key);
-                if (value instanceof Number) {
-                    numericColumns.add(key);
-                }
+        for (Map.Entry<String, DataRow.DataType> entry : getColumnTypes(analytics).entrySet()) {
+            if (TypeInference.isNumeric(entry.getValue())) {
+                numericColumns.add(entry.getKey());
             }
         }
         return numericColumns;
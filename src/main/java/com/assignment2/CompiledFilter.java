@@ -0,0 +1,781 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.BitmapIndex;
+import com.assignment2.model.BooleanColumn;
+import com.assignment2.model.Column;
+import com.assignment2.model.CompareOp;
+import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+import com.assignment2.model.DoubleColumn;
+import com.assignment2.model.IntColumn;
+import com.assignment2.model.SortedIndex;
+import com.assignment2.model.StringColumn;
+import com.assignment2.model.ZoneMap;
+import com.assignment2.util.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Filter compiled from the conditions of the filter dialog. Every condition is
+ * parsed once: numeric and boolean constants are converted to primitives and
+ * string constants are lower-cased up front.
+ *
+ * Rows backed by a DataTable are filtered column at a time. The row indexes of
+ * a block of rows form a selection vector, and each condition runs a
+ * type-specialized kernel of its column over the primitive array, compacting
+ * the vector to the rows that still match; string conditions are evaluated once
+ * per dictionary entry and matched by code. Other rows are tested with a
+ * predicate per condition, as before.
+ *
+ * Conditions on a column with a BitmapIndex are not scanned at all: they
+ * resolve to a bitmap of matching rows, and AND-ed conditions to the
+ * intersection of their bitmaps. When the data is the whole table, only the
+ * rows of that bitmap are visited by the remaining kernels; otherwise the
+ * bitmap acts as one more kernel, and only indexes that earlier filters of the
+ * whole table have built are used.
+ *
+ * Range conditions on numeric columns can be answered by the column's
+ * SortedIndex as a slice of row ids. A simple cost model decides per
+ * condition: sorting the k rows of a slice costs about k log2 k, against one
+ * kernel step per candidate row for a scan, so only selective ranges are
+ * turned into bitmaps, most selective first. The candidates are the rows the
+ * filter runs over, and a filter of a view smaller than the table only uses
+ * sorted indexes that already exist rather than sorting the whole column.
+ *
+ * When the whole table is scanned, it is visited in ZoneMap blocks. Numeric
+ * conditions first consult the block's min/max metadata: a block that cannot
+ * match is skipped without reading its values, and a condition that holds for
+ * every row of a block is not evaluated there.
+ *
+ * Filters applied from the dialog are refined incrementally: their selections
+ * are cached per dataset, and a new filter starts from the smallest selection
+ * whose conditions it includes; see {@link #refine}.
+ */
+class CompiledFilter {
+    private static final String OPERATION_PREFIX = "filter:";
+
+    private final List<Condition> conditions;
+
+    private CompiledFilter(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Compiles filter conditions combined with logical AND.
+     *
+     * @param conditions  Condition strings (e.g., "Category||Starts With||E").
+     * @param columnTypes The type of every column.
+     * @return The compiled filter.
+     * @throws IllegalArgumentException If a condition is malformed or its
+     *                                  operator does not fit the column type.
+     */
+    static CompiledFilter compile(List<String> conditions, Map<String, DataRow.DataType> columnTypes) {
+        List<Condition> compiled = new ArrayList<>();
+        for (String condition : conditions) {
+            compiled.add(parseCondition(condition, columnTypes));
+        }
+        return new CompiledFilter(compiled);
+    }
+
+    /**
+     * Describes the filter independently of how its conditions were written:
+     * constants are shown as parsed, and since the conditions are combined with
+     * AND, their order and repetitions do not matter. Filters with the same
+     * canonical form select the same rows.
+     *
+     * @return The canonical form, usable as a cache key.
+     */
+    String canonicalForm() {
+        return OPERATION_PREFIX + String.join("&&", keys());
+    }
+
+    /**
+     * Wraps rows already known to be the result of this filter on some data, so
+     * that they can be refined further.
+     *
+     * @param rows The rows this filter selected.
+     * @return The selection.
+     */
+    Selection selectionOf(Analytics<DataRow> rows) {
+        return new Selection(keys(), rows);
+    }
+
+    /**
+     * Filters the data incrementally. Any known selection of the same data made
+     * by a subset of this filter's conditions already contains every matching
+     * row, so the smallest one is refined by evaluating only the conditions it
+     * lacks. Adding a condition thus scans the previous result, and removing or
+     * relaxing one falls back to the largest cached selection it leaves intact.
+     * The result is added to the cache for later refinements.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @param previous  A selection of the same data, or null.
+     * @param cache     Holds earlier selections of the data.
+     * @param monitor   Receives progress and can cancel the filter.
+     * @return The selection of the matching rows, in order.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    Selection refine(Analytics<DataRow> analytics, Selection previous, QueryCache cache, ProgressMonitor monitor) {
+        Set<String> keys = keys();
+        Selection base = null;
+        for (Selection candidate : cache.<Selection>findAll(analytics, OPERATION_PREFIX)) {
+            base = smaller(base, candidate, keys);
+        }
+        base = smaller(base, previous, keys);
+
+        Analytics<DataRow> result;
+        if (base == null) {
+            result = apply(analytics, monitor);
+        } else {
+            List<Condition> remaining = new ArrayList<>();
+            for (Condition condition : conditions) {
+                if (!base.keys.contains(condition.key())) {
+                    remaining.add(condition);
+                }
+            }
+            result = remaining.isEmpty() ? base.rows : new CompiledFilter(remaining).apply(base.rows, monitor);
+        }
+        Selection selection = new Selection(keys, result);
+        cache.put(analytics, canonicalForm(), selection, QueryCache.estimateBytes(result));
+        return selection;
+    }
+
+    /**
+     * Picks the smaller of two selections, ignoring one that is not made of a
+     * subset of the given conditions.
+     */
+    private static Selection smaller(Selection best, Selection candidate, Set<String> keys) {
+        if (candidate == null || !keys.containsAll(candidate.keys)) {
+            return best;
+        }
+        return best == null || candidate.rows.getData().size() < best.rows.getData().size() ? candidate : best;
+    }
+
+    private TreeSet<String> keys() {
+        TreeSet<String> keys = new TreeSet<>();
+        for (Condition condition : conditions) {
+            keys.add(condition.key());
+        }
+        return keys;
+    }
+
+    /**
+     * Filters the data.
+     *
+     * @param analytics The Analytics instance containing data.
+     * @param monitor   Receives progress and can cancel the filter.
+     * @return A new Analytics instance containing the matching rows, in order.
+     * @throws java.util.concurrent.CancellationException If the monitor cancels.
+     */
+    Analytics<DataRow> apply(Analytics<DataRow> analytics, ProgressMonitor monitor) {
+        List<DataRow> data = analytics.getData();
+        DataTable table = data.isEmpty() ? null : data.get(0).getTable();
+        boolean whole = table != null && analytics.covers(table.rows());
+        Plan plan = table != null ? plan(table, data.size(), whole) : null;
+        if (plan == null) {
+            return AnalyticsService.filter(analytics, predicates(), monitor);
+        }
+        // Results are views holding the positions of the matching rows
+        int[] positions = new int[data.size()];
+        if (whole) {
+            // Positions are row indexes here
+            return analytics.select(positions, plan.indexed != null
+                    ? selectIndexed(plan, positions, monitor) : scanBlocks(table, plan, positions, monitor));
+        }
+        Kernel[] kernels = plan.kernels;
+        if (plan.indexed != null) {
+            RoaringBitmap indexed = plan.indexed;
+            kernels = new Kernel[plan.kernels.length + 1];
+            kernels[0] = (rows, count) -> {
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += indexed.contains(row) ? 1 : 0;
+                }
+                return kept;
+            };
+            System.arraycopy(plan.kernels, 0, kernels, 1, plan.kernels.length);
+        }
+
+        Predicate<DataRow> predicate = null;
+        int found = 0;
+        int[] selection = new int[ProgressMonitor.REPORT_ROWS];
+        int[] blockRows = new int[selection.length];
+        for (int start = 0; start < data.size(); start += selection.length) {
+            int end = Math.min(start + selection.length, data.size());
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                DataRow row = data.get(i);
+                if (row.getTable() != table) {
+                    break;
+                }
+                selection[count++] = row.getRowIndex();
+            }
+            if (count == end - start) {
+                System.arraycopy(selection, 0, blockRows, 0, count);
+                for (int k = 0; k < kernels.length && count > 0; k++) {
+                    count = kernels[k].select(selection, count);
+                }
+                // Kernels keep rows in order, so a merge finds the positions of the kept rows
+                for (int i = 0, kept = 0; kept < count; i++) {
+                    if (blockRows[i] == selection[kept]) {
+                        positions[found++] = start + i;
+                        kept++;
+                    }
+                }
+            } else {
+                // A block mixing rows of other tables is tested row by row
+                if (predicate == null) {
+                    predicate = toPredicate();
+                }
+                for (int i = start; i < end; i++) {
+                    if (predicate.test(data.get(i))) {
+                        positions[found++] = i;
+                    }
+                }
+            }
+            monitor.worked(end - start);
+        }
+        return analytics.select(positions, found);
+    }
+
+    /**
+     * Visits only the rows of the index bitmap, in row order, and runs the
+     * remaining kernels on them.
+     *
+     * @return The number of matching rows written to matches.
+     */
+    private static int selectIndexed(Plan plan, int[] matches, ProgressMonitor monitor) {
+        int[] selection = new int[ProgressMonitor.REPORT_ROWS];
+        int[] count = new int[2]; // Rows in selection, rows in matches
+        Runnable flush = () -> {
+            int kept = count[0];
+            for (int k = 0; k < plan.kernels.length && kept > 0; k++) {
+                kept = plan.kernels[k].select(selection, kept);
+            }
+            System.arraycopy(selection, 0, matches, count[1], kept);
+            count[1] += kept;
+            count[0] = 0;
+            monitor.worked(0);
+        };
+        plan.indexed.forEach(row -> {
+            selection[count[0]++] = row;
+            if (count[0] == selection.length) {
+                flush.run();
+            }
+        });
+        flush.run();
+        monitor.worked(matches.length);
+        return count[1];
+    }
+
+    /**
+     * Scans all rows of the table block by block, skipping blocks that the zone
+     * maps rule out.
+     *
+     * @return The number of matching rows written to matches.
+     */
+    private static int scanBlocks(DataTable table, Plan plan, int[] matches, ProgressMonitor monitor) {
+        int found = 0;
+        int[] selection = new int[ZoneMap.BLOCK_ROWS];
+        Kernel[] active = new Kernel[plan.kernels.length];
+        int rowCount = table.getRowCount();
+        int reported = 0;
+        for (int block = 0, start = 0; start < rowCount; block++, start += ZoneMap.BLOCK_ROWS) {
+            int end = Math.min(rowCount, start + ZoneMap.BLOCK_ROWS);
+            int activeCount = 0;
+            boolean skip = false;
+            for (int k = 0; k < plan.kernels.length && !skip; k++) {
+                int match = plan.zones[k] != null ? plan.zones[k].match(block) : ZoneMap.SOME;
+                skip = match == ZoneMap.NONE;
+                if (match == ZoneMap.SOME) {
+                    active[activeCount++] = plan.kernels[k];
+                }
+            }
+            if (!skip) {
+                int count = end - start;
+                for (int i = 0; i < count; i++) {
+                    selection[i] = start + i;
+                }
+                for (int k = 0; k < activeCount && count > 0; k++) {
+                    count = active[k].select(selection, count);
+                }
+                System.arraycopy(selection, 0, matches, found, count);
+                found += count;
+            }
+            if (end - reported >= ProgressMonitor.REPORT_ROWS || end == rowCount) {
+                monitor.worked(end - reported);
+                reported = end;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Resolves indexed conditions to one bitmap and binds the others to their
+     * columns. Indexes are built only for a filter of the whole table, whose
+     * scan is about as costly and which later filters of the table reuse the
+     * index for; a filter of a smaller view uses the indexes that already exist
+     * and otherwise scans its rows, as building one would cost more than the
+     * whole filter.
+     *
+     * @param size  The number of rows the filter runs over.
+     * @param whole Whether those rows are the whole table.
+     * @return The plan, or null if a condition does not fit its column.
+     */
+    private Plan plan(DataTable table, int size, boolean whole) {
+        RoaringBitmap indexed = null;
+        List<Kernel> kernels = new ArrayList<>();
+        List<ZoneCheck> zones = new ArrayList<>();
+        List<IndexRange> ranges = new ArrayList<>();
+        for (Condition condition : conditions) {
+            Column column = table.getColumn(condition.column);
+            if (column == null) {
+                return null;
+            }
+            RoaringBitmap rows = condition.index(column, whole);
+            if (rows != null) {
+                indexed = indexed == null ? rows : indexed.and(rows);
+                continue;
+            }
+            Kernel kernel = condition.bind(column);
+            if (kernel == null) {
+                return null;
+            }
+            ZoneCheck zone = condition.zones(column);
+            IndexRange range = condition.range(column, whole);
+            if (range != null) {
+                range.kernel = kernel;
+                range.zone = zone;
+                ranges.add(range);
+            } else {
+                kernels.add(kernel);
+                zones.add(zone);
+            }
+        }
+
+        // Answer a range from its index only while that beats scanning the candidates
+        ranges.sort(Comparator.comparingInt(IndexRange::length));
+        long candidates = indexed == null || !whole ? size : indexed.getCardinality();
+        for (IndexRange range : ranges) {
+            int length = range.length();
+            double indexCost = length * (1 + Math.log(Math.max(length, 1)) / Math.log(2));
+            if (indexCost < candidates) {
+                RoaringBitmap rows = range.index.rowsBetween(range.from, range.to);
+                indexed = indexed == null ? rows : indexed.and(rows);
+                candidates = Math.min(candidates, length);
+            } else {
+                kernels.add(range.kernel);
+                zones.add(range.zone);
+            }
+        }
+        return new Plan(indexed, kernels.toArray(new Kernel[0]), zones.toArray(new ZoneCheck[0]));
+    }
+
+    private static IndexRange rangeOf(Column column, CompareOp op, double value, boolean build) {
+        if (op == CompareOp.NE || (!build && !column.hasSortedIndex())) {
+            return null;
+        }
+        SortedIndex index = column.getSortedIndex();
+        return index != null ? new IndexRange(index, index.range(op, value)) : null;
+    }
+
+    private static ZoneCheck zonesOf(Column column, CompareOp op, double value) {
+        ZoneMap zones = column.getZoneMap();
+        return zones != null ? block -> zones.match(block, op, value) : null;
+    }
+
+    private List<Predicate<DataRow>> predicates() {
+        List<Predicate<DataRow>> predicates = new ArrayList<>();
+        for (Condition condition : conditions) {
+            predicates.add(condition.toPredicate());
+        }
+        return predicates;
+    }
+
+    private Predicate<DataRow> toPredicate() {
+        Predicate<DataRow> predicate = row -> true;
+        for (Condition condition : conditions) {
+            predicate = predicate.and(condition.toPredicate());
+        }
+        return predicate;
+    }
+
+    /**
+     * Parses a condition string.
+     *
+     * @param condition The condition string (e.g., "Category||Starts With||E").
+     * @return The parsed condition.
+     */
+    private static Condition parseCondition(String condition, Map<String, DataRow.DataType> columnTypes) {
+        String[] parts = condition.split("\\|\\|", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid condition format: " + condition);
+        }
+
+        String column = parts[0];
+        String operator = parts[1];
+        String value = parts[2].trim();
+
+        DataRow.DataType type = columnTypes.get(column);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+
+        switch (type) {
+            case INTEGER:
+                return new IntCondition(column, CompareOp.fromSymbol(operator), Integer.parseInt(value));
+            case DOUBLE:
+                return new DoubleCondition(column, CompareOp.fromSymbol(operator), Double.parseDouble(value));
+            case BOOLEAN:
+                boolean boolValue = Boolean.parseBoolean(value);
+                switch (operator) {
+                    case "=":
+                        return new BooleanCondition(column, boolValue, true);
+                    case "!=":
+                        return new BooleanCondition(column, boolValue, false);
+                    default:
+                        throw new IllegalArgumentException("Unsupported operator for BOOLEAN: " + operator);
+                }
+            case STRING:
+                String lowerValue = value.toLowerCase();
+                switch (operator) {
+                    case "Contains":
+                        return new StringCondition(column, operator, lowerValue,
+                                field -> field.toLowerCase().contains(lowerValue));
+                    case "Starts With":
+                        return new StringCondition(column, operator, lowerValue,
+                                field -> field.toLowerCase().startsWith(lowerValue));
+                    case "Ends With":
+                        return new StringCondition(column, operator, lowerValue,
+                                field -> field.toLowerCase().endsWith(lowerValue));
+                    case "=":
+                        return new StringCondition(column, operator, value,
+                                field -> field.equalsIgnoreCase(value));
+                    case "!=":
+                        return new StringCondition(column, operator, value,
+                                field -> !field.equalsIgnoreCase(value));
+                    default:
+                        throw new IllegalArgumentException("Unsupported operator for STRING: " + operator);
+                }
+            default:
+                throw new IllegalArgumentException("Unsupported data type for filtering: " + type);
+        }
+    }
+
+    /**
+     * Rows selected from a dataset by a filter, together with the conditions
+     * that selected them.
+     */
+    static final class Selection {
+        private final Set<String> keys;
+        private final Analytics<DataRow> rows;
+
+        private Selection(Set<String> keys, Analytics<DataRow> rows) {
+            this.keys = keys;
+            this.rows = rows;
+        }
+
+        /**
+         * Checks whether this selection was made by the given filter.
+         *
+         * @param filter The filter.
+         * @return True if both have the same conditions.
+         */
+        boolean isSelectedBy(CompiledFilter filter) {
+            return keys.equals(filter.keys());
+        }
+
+        /**
+         * Retrieves the selected rows.
+         *
+         * @return The rows, in order.
+         */
+        Analytics<DataRow> getRows() {
+            return rows;
+        }
+    }
+
+    /**
+     * Conditions of a filter bound to the columns of one table.
+     */
+    private static class Plan {
+        private final RoaringBitmap indexed; // Rows matching all indexed conditions, or null
+        private final Kernel[] kernels;
+        private final ZoneCheck[] zones; // Per kernel, null where no zone map applies
+
+        Plan(RoaringBitmap indexed, Kernel[] kernels, ZoneCheck[] zones) {
+            this.indexed = indexed;
+            this.kernels = kernels;
+            this.zones = zones;
+        }
+    }
+
+    /**
+     * Slice of a SortedIndex matching a range condition.
+     */
+    private static class IndexRange {
+        private final SortedIndex index;
+        private final int from;
+        private final int to;
+        private Kernel kernel; // Used instead when scanning is cheaper
+        private ZoneCheck zone;
+
+        IndexRange(SortedIndex index, int[] slice) {
+            this.index = index;
+            this.from = slice[0];
+            this.to = slice[1];
+        }
+
+        int length() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Condition kernel bound to one column; compacts a selection vector to the
+     * rows that match.
+     */
+    private interface Kernel {
+        int select(int[] rows, int count);
+    }
+
+    /**
+     * Zone map test of a condition for one block of rows; returns
+     * {@link ZoneMap#NONE}, {@link ZoneMap#SOME} or {@link ZoneMap#ALL}.
+     */
+    private interface ZoneCheck {
+        int match(int block);
+    }
+
+    /**
+     * A single parsed condition. Rows with a missing value never match.
+     */
+    private abstract static class Condition {
+        final String column;
+
+        Condition(String column) {
+            this.column = column;
+        }
+
+        /**
+         * Binds the condition to a column of a DataTable.
+         *
+         * @return The kernel, or null if the column has an unexpected type.
+         */
+        abstract Kernel bind(Column source);
+
+        /**
+         * Resolves the condition through the column's bitmap index.
+         *
+         * @param build Whether the index may be built if it does not exist yet.
+         * @return The matching rows, or null if the column has no index.
+         */
+        RoaringBitmap index(Column source, boolean build) {
+            return null;
+        }
+
+        /**
+         * Resolves the condition to a slice of the column's sorted index.
+         *
+         * @param build Whether the index may be built if it does not exist yet.
+         * @return The slice, or null if the condition is not a single range or
+         *         there is no index.
+         */
+        IndexRange range(Column source, boolean build) {
+            return null;
+        }
+
+        /**
+         * Binds the condition to the column's zone map.
+         *
+         * @return The block test, or null if the column has no zone map.
+         */
+        ZoneCheck zones(Column source) {
+            return null;
+        }
+
+        abstract Predicate<DataRow> toPredicate();
+
+        /**
+         * Describes the parsed condition as column, operator and constant.
+         */
+        abstract String key();
+    }
+
+    private static class IntCondition extends Condition {
+        private final CompareOp op;
+        private final int value;
+
+        IntCondition(String column, CompareOp op, int value) {
+            super(column);
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override
+        Kernel bind(Column source) {
+            if (!(source instanceof IntColumn)) {
+                return null;
+            }
+            IntColumn ints = (IntColumn) source;
+            return (rows, count) -> ints.select(op, value, rows, count);
+        }
+
+        @Override
+        IndexRange range(Column source, boolean build) {
+            return rangeOf(source, op, value, build);
+        }
+
+        @Override
+        ZoneCheck zones(Column source) {
+            return zonesOf(source, op, value);
+        }
+
+        @Override
+        Predicate<DataRow> toPredicate() {
+            return row -> {
+                Object field = row.getField(column);
+                return field != null && op.test(((Number) field).intValue(), value);
+            };
+        }
+
+        @Override
+        String key() {
+            return column + "||" + op.getSymbol() + "||" + value;
+        }
+    }
+
+    private static class DoubleCondition extends Condition {
+        private final CompareOp op;
+        private final double value;
+
+        DoubleCondition(String column, CompareOp op, double value) {
+            super(column);
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override
+        Kernel bind(Column source) {
+            if (!(source instanceof DoubleColumn)) {
+                return null;
+            }
+            DoubleColumn doubles = (DoubleColumn) source;
+            return (rows, count) -> doubles.select(op, value, rows, count);
+        }
+
+        @Override
+        IndexRange range(Column source, boolean build) {
+            return rangeOf(source, op, value, build);
+        }
+
+        @Override
+        ZoneCheck zones(Column source) {
+            return zonesOf(source, op, value);
+        }
+
+        @Override
+        Predicate<DataRow> toPredicate() {
+            return row -> {
+                Object field = row.getField(column);
+                return field != null && op.test(((Number) field).doubleValue(), value);
+            };
+        }
+
+        @Override
+        String key() {
+            return column + "||" + op.getSymbol() + "||" + value;
+        }
+    }
+
+    private static class BooleanCondition extends Condition {
+        private final boolean value;
+        private final boolean equal;
+
+        BooleanCondition(String column, boolean value, boolean equal) {
+            super(column);
+            this.value = value;
+            this.equal = equal;
+        }
+
+        @Override
+        Kernel bind(Column source) {
+            if (!(source instanceof BooleanColumn)) {
+                return null;
+            }
+            BooleanColumn booleans = (BooleanColumn) source;
+            return (rows, count) -> booleans.select(value, equal, rows, count);
+        }
+
+        @Override
+        Predicate<DataRow> toPredicate() {
+            return row -> {
+                Object field = row.getField(column);
+                return field != null && (((Boolean) field) == value) == equal;
+            };
+        }
+
+        @Override
+        String key() {
+            return column + "||" + (equal ? "=" : "!=") + "||" + value;
+        }
+    }
+
+    private static class StringCondition extends Condition {
+        private final String operator;
+        private final String value;
+        private final Predicate<String> condition;
+
+        StringCondition(String column, String operator, String value, Predicate<String> condition) {
+            super(column);
+            this.operator = operator;
+            this.value = value;
+            this.condition = condition;
+        }
+
+        @Override
+        Kernel bind(Column source) {
+            if (!(source instanceof StringColumn)) {
+                return null;
+            }
+            StringColumn strings = (StringColumn) source;
+            boolean[] matches = strings.matchCodes(condition);
+            return (rows, count) -> strings.select(matches, rows, count);
+        }
+
+        @Override
+        RoaringBitmap index(Column source, boolean build) {
+            if (!(source instanceof StringColumn)) {
+                return null;
+            }
+            StringColumn strings = (StringColumn) source;
+            if (!build && !strings.hasBitmapIndex()) {
+                return null;
+            }
+            BitmapIndex index = strings.getBitmapIndex();
+            return index != null ? index.select(strings.matchCodes(condition)) : null;
+        }
+
+        @Override
+        Predicate<DataRow> toPredicate() {
+            return row -> {
+                Object field = row.getField(column);
+                return field != null && condition.test(field.toString());
+            };
+        }
+
+        @Override
+        String key() {
+            return column + "||" + operator + "||" + value;
+        }
+    }
+}
@@ -2,15 +2,20 @@ package com.assignment2;
 
 import com.assignment2.analytics.Analytics;
 import com.assignment2.model.DataRow;
+import com.assignment2.util.NumberScanner;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
-import java.util.function.Predicate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,8 +39,15 @@ public class FilterDialogController {
     @FXML
     private Button cancelButton;
 
+    @FXML
+    private ProgressBar progressBar;
+
+    private Task<Analytics<DataRow>> filterTask; // Running filter job, if any
+
     private Analytics<DataRow> analytics;
     private Analytics<DataRow> filteredAnalytics;
+    private CompiledFilter.Selection activeSelection; // Result of the conditions shown on opening, if any
+    private Map<String, DataRow.DataType> columnTypes = Collections.emptyMap();
 
     private static final Logger logger = Logger.getLogger(FilterDialogController.class.getName());
 
@@ -56,9 +68,30 @@ public class FilterDialogController {
      */
     public void setAnalytics(Analytics<DataRow> analytics) {
         this.analytics = analytics;
+        this.columnTypes = AnalyticsService.getColumnTypes(analytics);
         populateColumns();
     }
 
+    /**
+     * Shows the conditions of the filter currently applied to the data, so that
+     * they can be refined, relaxed or removed. Must be called after
+     * {@link #setAnalytics(Analytics)}.
+     *
+     * @param conditions The applied conditions; empty if no filter is applied.
+     * @param selection  The rows the conditions selected from the data.
+     */
+    public void setActiveFilter(List<String> conditions, Analytics<DataRow> selection) {
+        if (conditions.isEmpty()) {
+            return;
+        }
+        try {
+            activeSelection = CompiledFilter.compile(conditions, columnTypes).selectionOf(selection);
+            conditionsListView.getItems().setAll(conditions);
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.WARNING, "Applied filter conditions no longer compile:", e);
+        }
+    }
+
     /**
      * Populates the column ComboBox with available columns from the data.
      */
@@ -68,8 +101,7 @@ public class FilterDialogController {
             showAlert(Alert.AlertType.WARNING, "No Data", "No data available to filter.");
             return;
         }
-        DataRow firstRow = analytics.getData().get(0);
-        ObservableList<String> columns = FXCollections.observableArrayList(firstRow.getFields().keySet());
+        ObservableList<String> columns = FXCollections.observableArrayList(columnTypes.keySet());
         columnComboBox.setItems(columns);
         if (!columns.isEmpty()) {
             columnComboBox.getSelectionModel().selectFirst();
@@ -87,7 +119,7 @@ public class FilterDialogController {
             operatorComboBox.setItems(FXCollections.observableArrayList());
             return;
         }
-        DataRow.DataType type = analytics.getData().get(0).getFieldType(selectedColumn);
+        DataRow.DataType type = columnTypes.get(selectedColumn);
         operatorComboBox.getItems().clear();
         if (type == DataRow.DataType.INTEGER || type == DataRow.DataType.DOUBLE) {
             operatorComboBox.setItems(FXCollections.observableArrayList("<", ">", "<=", ">=", "=", "!="));
@@ -132,7 +164,7 @@ public class FilterDialogController {
         }
 
         // Validate the value based on column data type
-        DataRow.DataType type = analytics.getData().get(0).getFieldType(column);
+        DataRow.DataType type = columnTypes.get(column);
         if (!validateValue(type, value)) {
             showAlert(Alert.AlertType.ERROR, "Input Error", "Invalid value for the selected column type.");
             return;
@@ -155,30 +187,31 @@ public class FilterDialogController {
      * @return True if valid, else false.
      */
     private boolean validateValue(DataRow.DataType type, String value) {
-        try {
-            switch (type) {
-                case INTEGER:
-                    Integer.parseInt(value);
-                    break;
-                case DOUBLE:
-                    Double.parseDouble(value);
-                    break;
-                case BOOLEAN:
-                    if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
-                        return false;
-                    }
-                    break;
-                case STRING:
-                    // No validation needed for strings
-                    break;
-                default:
-                    return false;
-            }
-            return true;
-        } catch (NumberFormatException e) {
-            logger.log(Level.WARNING, "Value validation failed for type " + type + " with value: " + value, e);
+        if (type == null) {
             return false;
         }
+        boolean valid;
+        switch (type) {
+            case INTEGER:
+                valid = NumberScanner.scanInt(value) != NumberScanner.NOT_AN_INT;
+                break;
+            case DOUBLE:
+                valid = NumberScanner.isDouble(value);
+                break;
+            case BOOLEAN:
+                valid = value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false");
+                break;
+            case STRING:
+                // No validation needed for strings
+                valid = true;
+                break;
+            default:
+                valid = false;
+        }
+        if (!valid) {
+            logger.warning("Value validation failed for type " + type + " with value: " + value);
+        }
+        return valid;
     }
 
     /**
@@ -203,173 +236,89 @@ public class FilterDialogController {
     private void handleApplyFilters(ActionEvent event) {
         ObservableList<String> conditions = conditionsListView.getItems();
 
+        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
         if (conditions.isEmpty()) {
+            if (activeSelection != null) {
+                // Every applied condition was removed
+                filteredAnalytics = analytics;
+                logger.info("Filter removed.");
+                stage.close();
+                return;
+            }
             showAlert(Alert.AlertType.ERROR, "No Conditions", "Please add at least one filter condition.");
             return;
         }
 
+        CompiledFilter filter;
         try {
-            // Combine all predicates using logical AND
-            Predicate<DataRow> combinedPredicate = conditions.stream()
-                    .map(this::parseCondition)
-                    .reduce(dataRow -> true, Predicate::and);
+            // Compile all conditions, combined using logical AND
+            filter = CompiledFilter.compile(conditions, columnTypes);
+        } catch (Exception e) {
+            showAlert(Alert.AlertType.ERROR, "Filter Error", "An error occurred while applying filters.");
+            logger.log(Level.SEVERE, "Error applying filters:", e);
+            return;
+        }
 
-            filteredAnalytics = AnalyticsService.filter(analytics, combinedPredicate);
+        // Re-running a filter on the same data reuses its earlier result
+        Analytics<DataRow> source = analytics;
+        CompiledFilter.Selection previous = activeSelection;
+        QueryCache cache = QueryCache.getDefault();
+        CompiledFilter.Selection cached = cache.get(source, filter.canonicalForm());
+        if (cached != null && cached.isSelectedBy(filter)) {
+            filteredAnalytics = cached.getRows();
+            logger.info("Filter result reused from " + cache + ". Filtered data size: "
+                    + filteredAnalytics.getData().size());
+            stage.close();
+            return;
+        }
+
+        // Refine the closest earlier selection on a worker thread; the dialog stays responsive and can cancel
+        Task<Analytics<DataRow>> task = AnalysisExecutor.getDefault().submit("Filter",
+                source.getData().size(), monitor -> filter.refine(source, previous, cache, monitor).getRows());
+        task.setOnSucceeded(e -> {
+            filteredAnalytics = task.getValue();
             logger.info("Filters applied successfully. Filtered data size: "
                     + (filteredAnalytics != null ? filteredAnalytics.getData().size() : "null"));
-
-            // Close the dialog
-            Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+            setRunning(null);
             stage.close();
-
-        } catch (Exception e) {
+        });
+        task.setOnCancelled(e -> {
+            setRunning(null);
+            logger.info("Filter cancelled.");
+        });
+        task.setOnFailed(e -> {
+            setRunning(null);
             showAlert(Alert.AlertType.ERROR, "Filter Error", "An error occurred while applying filters.");
-            logger.log(Level.SEVERE, "Error applying filters:", e);
-        }
+            logger.log(Level.SEVERE, "Error applying filters:", task.getException());
+        });
+        stage.setOnHidden(e -> task.cancel());
+        setRunning(task);
     }
 
     /**
-     * Parses a condition string into a Predicate for filtering.
+     * Switches the dialog between editing and waiting for a filter job.
      *
-     * @param condition The condition string (e.g., "Category||Starts With||E").
-     * @return A Predicate representing the condition.
+     * @param task The running job, or null when none is running.
      */
-    private Predicate<DataRow> parseCondition(String condition) {
-        String[] parts = condition.split("\\|\\|", 3);
-        if (parts.length != 3) {
-            throw new IllegalArgumentException("Invalid condition format: " + condition);
+    private void setRunning(Task<Analytics<DataRow>> task) {
+        filterTask = task;
+        applyFilterButton.setDisable(task != null);
+        progressBar.setVisible(task != null);
+        progressBar.setManaged(task != null);
+        if (task != null) {
+            progressBar.progressProperty().bind(task.progressProperty());
+        } else {
+            progressBar.progressProperty().unbind();
         }
+    }
 
-        String column = parts[0];
-        String operator = parts[1];
-        String value = parts[2].trim();
-
-        DataRow.DataType type = analytics.getData().get(0).getFieldType(column);
-
-        switch (type) {
-            case INTEGER:
-                int intValue = Integer.parseInt(value);
-                switch (operator) {
-                    case "<":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Integer) field) < intValue;
-                        };
-                    case ">":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Integer) field) > intValue;
-                        };
-                    case "<=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Integer) field) <= intValue;
-                        };
-                    case ">=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Integer) field) >= intValue;
-                        };
-                    case "=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Integer) field) == intValue;
-                        };
-                    case "!=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Integer) field) != intValue;
-                        };
-                    default:
-                        throw new IllegalArgumentException("Unsupported operator for INTEGER: " + operator);
-                }
-            case DOUBLE:
-                double doubleValue = Double.parseDouble(value);
-                switch (operator) {
-                    case "<":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Double) field) < doubleValue;
-                        };
-                    case ">":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Double) field) > doubleValue;
-                        };
-                    case "<=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Double) field) <= doubleValue;
-                        };
-                    case ">=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Double) field) >= doubleValue;
-                        };
-                    case "=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Double) field) == doubleValue;
-                        };
-                    case "!=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Double) field) != doubleValue;
-                        };
-                    default:
-                        throw new IllegalArgumentException("Unsupported operator for DOUBLE: " + operator);
-                }
-            case BOOLEAN:
-                boolean boolValue = Boolean.parseBoolean(value);
-                switch (operator) {
-                    case "=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Boolean) field) == boolValue;
-                        };
-                    case "!=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((Boolean) field) != boolValue;
-                        };
-                    default:
-                        throw new IllegalArgumentException("Unsupported operator for BOOLEAN: " + operator);
-                }
-            case STRING:
-                String trimmedValue = value.trim();
-                switch (operator) {
-                    case "Contains":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((String) field).toLowerCase().contains(trimmedValue.toLowerCase());
-                        };
-                    case "Starts With":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null
-                                    && ((String) field).toLowerCase().startsWith(trimmedValue.toLowerCase());
-                        };
-                    case "Ends With":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((String) field).toLowerCase().endsWith(trimmedValue.toLowerCase());
-                        };
-                    case "=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && ((String) field).equalsIgnoreCase(trimmedValue);
-                        };
-                    case "!=":
-                        return row -> {
-                            Object field = row.getField(column);
-                            return field != null && !((String) field).equalsIgnoreCase(trimmedValue);
-                        };
-                    default:
-                        throw new IllegalArgumentException("Unsupported operator for STRING: " + operator);
-                }
-            default:
-                throw new IllegalArgumentException("Unsupported data type for filtering: " + type);
-        }
+    /**
+     * Retrieves the conditions of the last applied filter.
+     *
+     * @return The condition strings, empty if the filter was removed.
+     */
+    public List<String> getConditions() {
+        return new ArrayList<>(conditionsListView.getItems());
     }
 
     /**
@@ -388,6 +337,11 @@ public class FilterDialogController {
      */
     @FXML
     private void handleCancel(ActionEvent event) {
+        if (filterTask != null) {
+            // Cancel the running filter but keep the dialog open
+            filterTask.cancel();
+            return;
+        }
         try {
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
             stage.close();
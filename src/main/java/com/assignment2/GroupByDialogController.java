@@ -4,6 +4,7 @@ import com.assignment2.analytics.Analytics;
 import com.assignment2.model.DataRow;
 
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -19,6 +20,9 @@ public class GroupByDialogController {
     @FXML
     private ComboBox<String> groupByColumnComboBox;
 
+    @FXML
+    private ListView<String> groupByColumnsListView;
+
     @FXML
     private ComboBox<String> aggregationFunctionComboBox;
 
@@ -37,10 +41,17 @@ public class GroupByDialogController {
     @FXML
     private Button cancelButton;
 
+    @FXML
+    private ProgressBar progressBar;
+
+    private Task<Analytics<DataRow>> groupByTask; // Running group-by job, if any
+
     private final List<AggregationFunction> aggregationFunctions = new ArrayList<>();
 
     private Analytics<DataRow> analytics;
     private Analytics<DataRow> groupedAnalytics;
+    private List<String> allColumns = new ArrayList<>();
+    private List<String> numericColumns = new ArrayList<>();
 
     private static final Logger logger = Logger.getLogger(GroupByDialogController.class.getName());
 
@@ -48,7 +59,9 @@ public class GroupByDialogController {
     private void initialize() {
         // Initialize aggregation functions
         aggregationFunctionComboBox
-                .setItems(FXCollections.observableArrayList("Count", "Sum", "Average", "Max", "Min", "List"));
+                .setItems(FXCollections.observableArrayList("Count", "Sum", "Average", "Max", "Min", "Variance",
+                        "Std Dev", "Median", "P95", "P99", "List", "Sample List", "Count Distinct",
+                        "Approx Count Distinct"));
         aggregationFunctionComboBox.getSelectionModel().selectFirst();
 
         // Initialize aggregation columns ComboBox as disabled initially
@@ -62,6 +75,7 @@ public class GroupByDialogController {
             } else {
                 aggregationColumnComboBox.setDisable(false);
             }
+            showAggregationColumns(newVal);
         });
     }
 
@@ -83,13 +97,55 @@ public class GroupByDialogController {
         }
 
         // Populate aggregation columns based on data types
-        List<String> numericColumns = AnalyticsService.getAvailableNumericColumns(analytics);
-        aggregationColumnComboBox.setItems(FXCollections.observableArrayList(numericColumns));
-        if (!numericColumns.isEmpty()) {
+        allColumns = columns;
+        numericColumns = AnalyticsService.getAvailableNumericColumns(analytics);
+        showAggregationColumns(aggregationFunctionComboBox.getValue());
+    }
+
+    /**
+     * Offers the columns an aggregation function applies to: any column for
+     * functions on distinct values, otherwise numeric columns.
+     *
+     * @param function The selected aggregation function, or null.
+     */
+    private void showAggregationColumns(String function) {
+        boolean anyColumn = function != null && (function.toLowerCase().endsWith("list")
+                || function.toLowerCase().endsWith("distinct"));
+        List<String> columns = anyColumn ? allColumns : numericColumns;
+        String selected = aggregationColumnComboBox.getValue();
+        aggregationColumnComboBox.setItems(FXCollections.observableArrayList(columns));
+        if (selected != null && columns.contains(selected)) {
+            aggregationColumnComboBox.getSelectionModel().select(selected);
+        } else if (!columns.isEmpty()) {
             aggregationColumnComboBox.getSelectionModel().selectFirst();
         }
     }
 
+    /**
+     * Handles adding the selected column to the group by columns.
+     */
+    @FXML
+    private void handleAddGroupByColumn(ActionEvent event) {
+        String column = groupByColumnComboBox.getValue();
+        if (column == null || column.isEmpty()) {
+            showAlert(Alert.AlertType.ERROR, "Input Error", "Please select a column to group by.");
+            return;
+        }
+        if (groupByColumnsListView.getItems().contains(column)) {
+            showAlert(Alert.AlertType.ERROR, "Input Error", "The column is already grouped by.");
+            return;
+        }
+        groupByColumnsListView.getItems().add(column);
+    }
+
+    /**
+     * Handles clearing the group by columns.
+     */
+    @FXML
+    private void handleClearGroupByColumns(ActionEvent event) {
+        groupByColumnsListView.getItems().clear();
+    }
+
     /**
      * Handles adding an aggregation function.
      */
@@ -125,9 +181,14 @@ public class GroupByDialogController {
      */
     @FXML
     private void handleApplyGroupBy(ActionEvent event) {
-        String groupByColumn = groupByColumnComboBox.getValue();
+        // Without added columns, group by the selected column alone
+        List<String> groupByColumns = new ArrayList<>(groupByColumnsListView.getItems());
+        if (groupByColumns.isEmpty() && groupByColumnComboBox.getValue() != null
+                && !groupByColumnComboBox.getValue().isEmpty()) {
+            groupByColumns.add(groupByColumnComboBox.getValue());
+        }
 
-        if (groupByColumn == null || groupByColumn.isEmpty()) {
+        if (groupByColumns.isEmpty()) {
             showAlert(Alert.AlertType.ERROR, "Input Error", "Please select a column to group by.");
             return;
         }
@@ -137,34 +198,114 @@ public class GroupByDialogController {
             return;
         }
 
-        try {
-            // Perform group by with multiple aggregations
-            Map<Object, Map<String, Object>> groupedData = AnalyticsService.performGroupByMultipleAggregations(
-                    analytics, groupByColumn, aggregationFunctions);
-
-            // Convert groupedData to a list of DataRow
-            List<DataRow> groupedRows = new ArrayList<>();
-            for (Map.Entry<Object, Map<String, Object>> entry : groupedData.entrySet()) {
-                DataRow row = new DataRow();
-                row.addField(groupByColumn, entry.getKey().toString());
-                for (Map.Entry<String, Object> aggEntry : entry.getValue().entrySet()) {
-                    row.addField(aggEntry.getKey(), aggEntry.getValue().toString());
-                }
-                groupedRows.add(row);
-            }
+        // Re-running a group-by on the same data reuses its earlier result
+        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+        Analytics<DataRow> source = analytics;
+        List<AggregationFunction> aggregations = new ArrayList<>(aggregationFunctions);
+        QueryCache cache = QueryCache.getDefault();
+        String operation = canonicalForm(groupByColumns, aggregations);
+        Analytics<DataRow> cached = cache.get(source, operation);
+        if (cached != null) {
+            groupedAnalytics = cached;
+            stage.close();
+            showAlert(Alert.AlertType.INFORMATION, "Group By Success", "Data has been grouped successfully.");
+            logger.info("Group By result reused from " + cache + ".");
+            return;
+        }
 
-            groupedAnalytics = new Analytics<>(groupedRows);
+        // Group on a worker thread; the dialog stays responsive and can cancel
+        Task<Analytics<DataRow>> task = AnalysisExecutor.getDefault().submit("Group By",
+                source.getData().size(), monitor -> {
+                    Analytics<DataRow> result = groupBy(source, groupByColumns, aggregations, monitor);
+                    cache.put(source, operation, result, QueryCache.estimateBytes(result));
+                    return result;
+                });
+        task.setOnSucceeded(e -> {
+            groupedAnalytics = task.getValue();
+            setRunning(null);
 
             // Close the dialog
-            Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
             stage.close();
 
             showAlert(Alert.AlertType.INFORMATION, "Group By Success", "Data has been grouped successfully.");
             logger.info("Group By applied successfully.");
-
-        } catch (Exception e) {
+        });
+        task.setOnCancelled(e -> {
+            setRunning(null);
+            logger.info("Group By cancelled.");
+        });
+        task.setOnFailed(e -> {
+            setRunning(null);
             showAlert(Alert.AlertType.ERROR, "Group By Error", "An error occurred while applying Group By.");
-            logger.log(Level.SEVERE, "Error applying Group By:", e);
+            logger.log(Level.SEVERE, "Error applying Group By:", task.getException());
+        });
+        stage.setOnHidden(e -> task.cancel());
+        setRunning(task);
+    }
+
+    /**
+     * Describes a group-by as its group columns and aggregations, in order, since
+     * both decide the columns of the result.
+     *
+     * @param groupByColumns The group columns.
+     * @param aggregations   The aggregation functions.
+     * @return The canonical form, usable as a cache key.
+     */
+    private static String canonicalForm(List<String> groupByColumns, List<AggregationFunction> aggregations) {
+        StringBuilder operation = new StringBuilder("groupBy:").append(String.join("||", groupByColumns));
+        for (AggregationFunction aggregation : aggregations) {
+            operation.append("||").append(aggregation.getFunction()).append('(').append(aggregation.getColumn())
+                    .append(')');
+        }
+        return operation.toString();
+    }
+
+    /**
+     * Performs the group by and converts the groups into rows. Runs on a worker
+     * thread.
+     *
+     * @param source         The data to group.
+     * @param groupByColumns The columns to group by.
+     * @param aggregations   The aggregation functions.
+     * @param monitor        Receives progress and can cancel the group by.
+     * @return The grouped data, one row per group.
+     */
+    private static Analytics<DataRow> groupBy(Analytics<DataRow> source, List<String> groupByColumns,
+            List<AggregationFunction> aggregations, ProgressMonitor monitor) {
+        // Perform group by with multiple aggregations
+        Map<List<Object>, Map<String, Object>> groupedData = AnalyticsService.performGroupByMultipleAggregations(
+                source, groupByColumns, aggregations, true, monitor);
+
+        // Convert groupedData to a list of DataRow
+        List<DataRow> groupedRows = new ArrayList<>();
+        for (Map.Entry<List<Object>, Map<String, Object>> entry : groupedData.entrySet()) {
+            DataRow row = new DataRow();
+            for (int i = 0; i < groupByColumns.size(); i++) {
+                Object key = entry.getKey().get(i);
+                row.addField(groupByColumns.get(i), key != null ? key.toString() : null);
+            }
+            for (Map.Entry<String, Object> aggEntry : entry.getValue().entrySet()) {
+                row.addField(aggEntry.getKey(), aggEntry.getValue().toString());
+            }
+            groupedRows.add(row);
+        }
+        return Analytics.wrap(groupedRows);
+    }
+
+    /**
+     * Switches the dialog between editing and waiting for a group-by job.
+     *
+     * @param task The running job, or null when none is running.
+     */
+    private void setRunning(Task<Analytics<DataRow>> task) {
+        groupByTask = task;
+        applyGroupByButton.setDisable(task != null);
+        progressBar.setVisible(task != null);
+        progressBar.setManaged(task != null);
+        if (task != null) {
+            progressBar.progressProperty().bind(task.progressProperty());
+        } else {
+            progressBar.progressProperty().unbind();
         }
     }
 
@@ -173,6 +314,11 @@ public class GroupByDialogController {
      */
     @FXML
     private void handleCancel(ActionEvent event) {
+        if (groupByTask != null) {
+            // Cancel the running group by but keep the dialog open
+            groupByTask.cancel();
+            return;
+        }
         try {
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
             stage.close();
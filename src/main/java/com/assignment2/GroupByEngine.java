@@ -0,0 +1,987 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.BooleanColumn;
+import com.assignment2.model.Column;
+import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+import com.assignment2.model.CompositeKeyIndex;
+import com.assignment2.model.IntColumn;
+import com.assignment2.model.StringColumn;
+import com.assignment2.model.StringDictionary;
+import com.assignment2.util.DataUtil;
+import com.assignment2.util.HyperLogLog;
+import com.assignment2.util.LongGroupTable;
+import com.assignment2.util.SummaryStatistics;
+import com.assignment2.util.TDigest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
+
+/**
+ * Single-pass group-by engine. Every row is visited once: its group is looked up
+ * and each aggregation updates a fixed-size accumulator slot of that group in
+ * place, so memory grows with the number of groups rather than the number of
+ * rows. Each input column is read once per row no matter how many aggregations
+ * use it.
+ *
+ * Rows backed by a DataTable are read straight from its columns by row index,
+ * without creating a row view: the dense ids a CompositeKeyIndex assigns to
+ * their group keys are the group ids, so rows are grouped without boxing, and
+ * numeric values of a string column are parsed once per distinct value. Only
+ * rows that own their fields are grouped by boxed key lists.
+ *
+ * In parallel mode every ForkJoin worker aggregates a contiguous slice of the
+ * rows into its own partial result, and neighbouring partials are merged group
+ * by group. Merging left before right keeps groups and listed values in order
+ * of first appearance, so both modes return the same result; only estimated
+ * quantiles may differ slightly, within the error of their sketches.
+ *
+ * Distinct values of table rows are keyed by their primitive value or
+ * dictionary code rather than by text: "Count Distinct" keeps an exact set of
+ * keys per group, and "Approx Count Distinct" a {@link HyperLogLog} sketch that
+ * stays within a few KB per group whatever the cardinality. "Sample List" lists
+ * at most {@value #SAMPLE_VALUES} distinct values per group.
+ *
+ * "Median" and percentiles such as "P95" or "P99" are estimated from a
+ * {@link TDigest} per group. The "Digest" function yields the digest itself,
+ * for callers that query several quantiles of the same values. Likewise
+ * "Variance" and "Std Dev" keep {@link SummaryStatistics} per group, and the
+ * "Summary" function yields them.
+ */
+class GroupByEngine {
+    private static final Logger logger = Logger.getLogger(GroupByEngine.class.getName());
+    private static final int INITIAL_GROUPS = 16;
+    private static final int MIN_SLICE_ROWS = 1 << 16;
+    static final int SAMPLE_VALUES = 20;
+
+    private final List<String> groupByColumns;
+    private final List<Input> inputs = new ArrayList<>();
+    private final String[] functions;
+    private final String[] names;
+    private final int[] inputIndexes;
+    private final boolean[] keyedAggregations;
+    private ProgressMonitor monitor = ProgressMonitor.NONE;
+
+    /**
+     * Creates an engine for one or more group-by columns and a list of
+     * aggregations.
+     *
+     * @param groupByColumns The columns to group by.
+     * @param aggregations   The aggregation functions to compute per group.
+     */
+    GroupByEngine(List<String> groupByColumns, List<AggregationFunction> aggregations) {
+        this.groupByColumns = new ArrayList<>(groupByColumns);
+        this.functions = new String[aggregations.size()];
+        this.names = new String[aggregations.size()];
+        this.inputIndexes = new int[aggregations.size()];
+        this.keyedAggregations = new boolean[aggregations.size()];
+        for (int i = 0; i < aggregations.size(); i++) {
+            AggregationFunction aggFunc = aggregations.get(i);
+            functions[i] = aggFunc.getFunction();
+            names[i] = functions[i] + "(" + DataUtil.toTitleCase(aggFunc.getColumn()) + ")";
+            Accumulator accumulator = createAccumulator(functions[i]);
+            if (accumulator == null) {
+                logger.warning("Unsupported aggregation function: " + functions[i]);
+                inputIndexes[i] = -1;
+            } else if (accumulator.usesInput()) {
+                Input input = inputFor(aggFunc.getColumn());
+                keyedAggregations[i] = accumulator.usesKey();
+                input.numeric |= accumulator.usesNumber();
+                input.raw |= !accumulator.usesNumber() && !accumulator.usesKey();
+                input.keyed |= accumulator.usesKey();
+                inputIndexes[i] = inputs.indexOf(input);
+            } else {
+                inputIndexes[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * Sets the monitor that receives the number of rows aggregated and can
+     * cancel the aggregation.
+     *
+     * @param monitor The monitor.
+     */
+    void setMonitor(ProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Aggregates the rows in one pass on the calling thread.
+     *
+     * @param analytics The rows to aggregate.
+     * @return A map of group keys, in order of first appearance, to their
+     *         aggregation results. A key holds one value per group-by column;
+     *         missing values are null.
+     */
+    Map<List<Object>, Map<String, Object>> aggregate(Analytics<DataRow> analytics) {
+        DataTable table = bind(analytics);
+        Source source = new Source(analytics.getData(), table != null ? analytics.positionsIn(table.rows()) : null);
+        Partial partial = new Partial(table);
+        partial.addRows(source, 0, source.rows.size());
+        return partial.toResult();
+    }
+
+    /**
+     * Aggregates the rows with thread-local partial results on a ForkJoin pool.
+     * Small inputs are aggregated on the calling thread.
+     *
+     * @param analytics The rows to aggregate.
+     * @param pool      The pool to run on.
+     * @return The same result as {@link #aggregate(Analytics)}.
+     */
+    Map<List<Object>, Map<String, Object>> aggregateParallel(Analytics<DataRow> analytics, ForkJoinPool pool) {
+        int size = analytics.getData().size();
+        int slices = Math.min(pool.getParallelism() * 4, size / MIN_SLICE_ROWS);
+        if (slices < 2) {
+            return aggregate(analytics);
+        }
+        DataTable table = bind(analytics);
+        Source source = new Source(analytics.getData(), table != null ? analytics.positionsIn(table.rows()) : null);
+        int sliceRows = (size + slices - 1) / slices;
+        return pool.invoke(new SliceTask(source, table, 0, size, sliceRows)).toResult();
+    }
+
+    /**
+     * Binds the inputs to the table whose rows are aggregated.
+     *
+     * @return The table, or null if the rows are not all rows of one table.
+     */
+    private DataTable bind(Analytics<DataRow> analytics) {
+        DataTable table = AnalyticsService.tableOf(analytics);
+        for (Input input : inputs) {
+            input.bind(table);
+        }
+        return table;
+    }
+
+    private Input inputFor(String column) {
+        for (Input input : inputs) {
+            if (Objects.equals(input.column, column)) {
+                return input;
+            }
+        }
+        Input input = new Input(column);
+        inputs.add(input);
+        return input;
+    }
+
+    /**
+     * Reads the quantile a function estimates: 0.5 for "Median" and p / 100
+     * for a percentile "Pp" with p between 0 and 100 (e.g., "P95").
+     *
+     * @param function The aggregation function or statistic.
+     * @return The quantile, or NaN if the function is no quantile.
+     */
+    static double quantileOf(String function) {
+        String name = function.toLowerCase();
+        if (name.equals("median")) {
+            return 0.5;
+        }
+        if (name.matches("p\\d{1,2}(\\.\\d+)?")) {
+            double percentile = Double.parseDouble(name.substring(1));
+            if (percentile > 0) {
+                return percentile / 100;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static Accumulator createAccumulator(String function) {
+        double quantile = quantileOf(function);
+        if (!Double.isNaN(quantile)) {
+            return new QuantileAccumulator(quantile);
+        }
+        switch (function.toLowerCase()) {
+            case "count":
+                return new CountAccumulator();
+            case "sum":
+                return new SumAccumulator(false);
+            case "average":
+                return new SumAccumulator(true);
+            case "max":
+                return new ExtremeAccumulator(true);
+            case "min":
+                return new ExtremeAccumulator(false);
+            case "list":
+                return new ListAccumulator(Integer.MAX_VALUE);
+            case "sample list":
+                return new ListAccumulator(SAMPLE_VALUES);
+            case "count distinct":
+                return new DistinctAccumulator();
+            case "approx count distinct":
+                return new SketchAccumulator();
+            case "digest":
+                return new QuantileAccumulator(Double.NaN);
+            case "variance":
+            case "std dev":
+            case "summary":
+                return new SummaryAccumulator(function.toLowerCase());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Aggregates a range of rows by splitting it into slices and merging the
+     * partial results of both halves.
+     */
+    private class SliceTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final Source source;
+        private final DataTable table;
+        private final int from;
+        private final int to;
+        private final int sliceRows;
+
+        SliceTask(Source source, DataTable table, int from, int to, int sliceRows) {
+            this.source = source;
+            this.table = table;
+            this.from = from;
+            this.to = to;
+            this.sliceRows = sliceRows;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= sliceRows) {
+                Partial partial = new Partial(table);
+                partial.addRows(source, from, to);
+                return partial;
+            }
+            int slices = (to - from + sliceRows - 1) / sliceRows;
+            int middle = from + (slices / 2) * sliceRows;
+            SliceTask right = new SliceTask(source, table, middle, to, sliceRows);
+            right.fork();
+            Partial left = new SliceTask(source, table, from, middle, sliceRows).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * The rows to aggregate, with their row indexes when they are the rows of
+     * the table the inputs are bound to.
+     */
+    private static class Source {
+        private final List<DataRow> rows;
+        private final int[] rowIndexes; // Row indexes in the bound table, or null for rows owning their fields
+
+        Source(List<DataRow> rows, int[] rowIndexes) {
+            this.rows = rows;
+            this.rowIndexes = rowIndexes;
+        }
+    }
+
+    /**
+     * Groups and accumulator state for a subset of the rows. Owned by one thread
+     * until it is merged.
+     *
+     * Groups of table rows are the ids of their keys in the CompositeKeyIndex,
+     * and partials are merged by looking up the first row of each group in the
+     * other partial's index, so table rows never box a key. The map of key lists
+     * is the fallback for rows that own their fields, or for group-by columns
+     * missing from the table, and stays empty otherwise.
+     */
+    private class Partial {
+        private final CompositeKeyIndex keyIndex; // Groups of table rows, or null for the fallback
+        private int[] firstRows = new int[INITIAL_GROUPS]; // Per group of table rows, its first row index
+        private final Accumulator[] accumulators = new Accumulator[functions.length];
+        private final Map<List<Object>, Integer> groupIds = new HashMap<>(); // Fallback only
+        private final List<List<Object>> groupKeys = new ArrayList<>(); // Fallback only
+        private long[] counts = new long[INITIAL_GROUPS];
+
+        /**
+         * Creates an empty partial result.
+         *
+         * @param table The table whose rows are aggregated, or null for rows
+         *              that own their fields.
+         */
+        Partial(DataTable table) {
+            List<Column> groupSources = new ArrayList<>();
+            for (String column : groupByColumns) {
+                Column source = table != null ? table.getColumn(column) : null;
+                if (source == null) {
+                    groupSources = null;
+                    break;
+                }
+                groupSources.add(source);
+            }
+            this.keyIndex = groupSources != null ? new CompositeKeyIndex(table, groupSources) : null;
+            for (int a = 0; a < accumulators.length; a++) {
+                accumulators[a] = createAccumulator(functions[a]);
+            }
+        }
+
+        void addRows(Source source, int from, int to) {
+            double[] numbers = new double[inputs.size()];
+            Object[] values = new Object[inputs.size()];
+            long[] keys = new long[inputs.size()];
+            boolean[] missing = new boolean[inputs.size()];
+            boolean tableRows = source.rowIndexes != null;
+            int reported = from;
+            for (int r = from; r < to; r++) {
+                if (r - reported == ProgressMonitor.REPORT_ROWS) {
+                    monitor.worked(r - reported);
+                    reported = r;
+                }
+                int index = tableRows ? source.rowIndexes[r] : -1;
+                DataRow row = tableRows && keyIndex != null ? null : source.rows.get(r);
+                int group;
+                if (keyIndex != null) {
+                    group = groupOfRow(index);
+                } else {
+                    List<Object> key = new ArrayList<>(groupByColumns.size());
+                    for (String column : groupByColumns) {
+                        key.add(row.getField(column));
+                    }
+                    group = groupOf(key);
+                }
+                counts[group]++;
+
+                for (int i = 0; i < inputs.size(); i++) {
+                    Input input = inputs.get(i);
+                    if (input.numeric) {
+                        numbers[i] = tableRows ? input.readDouble(index)
+                                : DataUtil.parseSafeDouble(row.getField(input.column));
+                    }
+                    if (input.raw) {
+                        values[i] = tableRows ? input.readValue(index) : row.getField(input.column);
+                    }
+                    if (input.keyed) {
+                        if (tableRows) {
+                            missing[i] = input.isMissing(index);
+                            keys[i] = missing[i] ? 0 : input.readKey(index);
+                        } else {
+                            values[i] = row.getField(input.column);
+                        }
+                    }
+                }
+                for (int a = 0; a < accumulators.length; a++) {
+                    if (accumulators[a] != null) {
+                        int input = inputIndexes[a];
+                        if (input >= 0 && keyedAggregations[a] && tableRows) {
+                            if (!missing[input]) {
+                                accumulators[a].addKey(group, keys[input]);
+                            }
+                        } else if (input >= 0) {
+                            accumulators[a].add(group, numbers[input], values[input]);
+                        } else {
+                            accumulators[a].add(group, 0.0, null);
+                        }
+                    }
+                }
+            }
+            monitor.worked(to - reported);
+        }
+
+        /**
+         * Merges the partial result of the rows that follow this one's rows.
+         *
+         * @param other The partial result to merge in.
+         */
+        void merge(Partial other) {
+            for (int otherGroup = 0; otherGroup < other.groupCount(); otherGroup++) {
+                int group = keyIndex != null ? groupOfRow(other.firstRows[otherGroup])
+                        : groupOf(other.groupKeys.get(otherGroup));
+                counts[group] += other.counts[otherGroup];
+                for (int a = 0; a < accumulators.length; a++) {
+                    if (accumulators[a] != null) {
+                        accumulators[a].merge(group, other.accumulators[a], otherGroup);
+                    }
+                }
+            }
+        }
+
+        Map<List<Object>, Map<String, Object>> toResult() {
+            Map<List<Object>, Map<String, Object>> resultMap = new LinkedHashMap<>();
+            for (int group = 0; group < groupCount(); group++) {
+                Map<String, Object> aggResults = new LinkedHashMap<>();
+                for (int a = 0; a < accumulators.length; a++) {
+                    Accumulator accumulator = accumulators[a];
+                    aggResults.put(names[a], accumulator != null ? accumulator.result(group, counts[group]) : null);
+                }
+                resultMap.put(keyIndex != null ? keyIndex.keyOf(group) : groupKeys.get(group), aggResults);
+            }
+            return resultMap;
+        }
+
+        private int groupCount() {
+            return keyIndex != null ? keyIndex.size() : groupKeys.size();
+        }
+
+        /**
+         * Finds the group of a table row, whose id is the id of its key.
+         */
+        private int groupOfRow(int row) {
+            int known = keyIndex.size();
+            int group = keyIndex.idOf(row);
+            if (group == known) {
+                if (group == firstRows.length) {
+                    firstRows = Arrays.copyOf(firstRows, group * 2);
+                }
+                firstRows[group] = row;
+                addGroup(group);
+            }
+            return group;
+        }
+
+        /**
+         * Finds the group of a key of a row that owns its fields.
+         */
+        private int groupOf(List<Object> key) {
+            Integer id = groupIds.get(key);
+            if (id != null) {
+                return id;
+            }
+            int group = groupKeys.size();
+            groupIds.put(key, group);
+            groupKeys.add(key);
+            addGroup(group);
+            return group;
+        }
+
+        private void addGroup(int group) {
+            if (group == counts.length) {
+                counts = Arrays.copyOf(counts, group * 2);
+            }
+            for (Accumulator accumulator : accumulators) {
+                if (accumulator != null) {
+                    accumulator.ensureCapacity(counts.length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one input column. Table rows are read from the column directly;
+     * numbers of a string column are parsed once per dictionary entry, and
+     * values are keyed by their bits or dictionary code. Bound
+     * once before aggregation and read-only afterwards, so it is shared by all
+     * workers.
+     */
+    private static class Input {
+        private final String column;
+        private boolean numeric;
+        private boolean raw;
+        private boolean keyed;
+        private Column source;
+        private double[] numbersByCode;
+
+        Input(String column) {
+            this.column = column;
+        }
+
+        void bind(DataTable table) {
+            source = table != null ? table.getColumn(column) : null;
+            numbersByCode = null;
+            if (numeric && source instanceof StringColumn) {
+                StringDictionary dictionary = ((StringColumn) source).getDictionary();
+                numbersByCode = new double[dictionary.size()];
+                for (int code = 0; code < numbersByCode.length; code++) {
+                    numbersByCode[code] = DataUtil.parseSafeDouble(dictionary.getValue(code));
+                }
+            }
+        }
+
+        double readDouble(int row) {
+            if (source == null || source.isNull(row)) {
+                return 0.0;
+            }
+            if (numbersByCode != null) {
+                return numbersByCode[((StringColumn) source).getCode(row)];
+            }
+            return source.getDouble(row);
+        }
+
+        Object readValue(int row) {
+            return source != null ? source.getValue(row) : null;
+        }
+
+        boolean isMissing(int row) {
+            return source == null || source.isNull(row);
+        }
+
+        /**
+         * Reads a key that is equal for two rows exactly when their values are.
+         * Keys of different columns are not comparable.
+         */
+        long readKey(int row) {
+            if (source instanceof StringColumn) {
+                return ((StringColumn) source).getCode(row);
+            }
+            if (source instanceof IntColumn) {
+                return ((IntColumn) source).getInt(row);
+            }
+            if (source instanceof BooleanColumn) {
+                return ((BooleanColumn) source).getBoolean(row) ? 1 : 0;
+            }
+            return Double.doubleToLongBits(source.getDouble(row));
+        }
+    }
+
+    /**
+     * Per-group state of one aggregation, stored in arrays indexed by group.
+     */
+    private abstract static class Accumulator {
+        boolean usesInput() {
+            return true;
+        }
+
+        boolean usesNumber() {
+            return true;
+        }
+
+        /**
+         * Tells whether values of table rows are passed to {@link #addKey(int, long)}
+         * instead of {@link #add(int, double, Object)}.
+         */
+        boolean usesKey() {
+            return false;
+        }
+
+        abstract void ensureCapacity(int groups);
+
+        abstract void add(int group, double number, Object value);
+
+        /**
+         * Adds the present value of a table row by its key; see Input.readKey.
+         */
+        void addKey(int group, long key) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Folds the state of a group of another accumulator of the same kind,
+         * built from later rows, into a group of this one.
+         */
+        abstract void merge(int group, Accumulator other, int otherGroup);
+
+        abstract Object result(int group, long count);
+    }
+
+    private static class CountAccumulator extends Accumulator {
+        @Override
+        boolean usesInput() {
+            return false;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            // The engine keeps the row count of every group
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+        }
+
+        @Override
+        Object result(int group, long count) {
+            return count;
+        }
+    }
+
+    /**
+     * Compensated (Kahan) sum, matching the accuracy of DoubleStream.sum().
+     */
+    private static class SumAccumulator extends Accumulator {
+        private final boolean average;
+        private double[] sums = new double[INITIAL_GROUPS];
+        private double[] compensations = new double[INITIAL_GROUPS];
+
+        SumAccumulator(boolean average) {
+            this.average = average;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (sums.length < groups) {
+                sums = Arrays.copyOf(sums, groups);
+                compensations = Arrays.copyOf(compensations, groups);
+            }
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+            double corrected = number - compensations[group];
+            double sum = sums[group] + corrected;
+            compensations[group] = (sum - sums[group]) - corrected;
+            sums[group] = sum;
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+            SumAccumulator sum = (SumAccumulator) other;
+            add(group, sum.sums[otherGroup], null);
+            add(group, -sum.compensations[otherGroup], null);
+        }
+
+        @Override
+        Object result(int group, long count) {
+            return average ? sums[group] / count : sums[group];
+        }
+    }
+
+    private static class ExtremeAccumulator extends Accumulator {
+        private final boolean max;
+        private double[] extremes = new double[0];
+
+        ExtremeAccumulator(boolean max) {
+            this.max = max;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (extremes.length < groups) {
+                int start = extremes.length;
+                extremes = Arrays.copyOf(extremes, groups);
+                Arrays.fill(extremes, start, groups, max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+            }
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+            extremes[group] = max ? Math.max(extremes[group], number) : Math.min(extremes[group], number);
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+            add(group, ((ExtremeAccumulator) other).extremes[otherGroup], null);
+        }
+
+        @Override
+        Object result(int group, long count) {
+            return extremes[group];
+        }
+    }
+
+    /**
+     * Distinct values of a group in order of first appearance; missing values
+     * are skipped. Past the limit further distinct values are only noted, so a
+     * capped list holds the same first values in both modes: a partial that
+     * reached the limit is merged with nothing but the flag of the next.
+     */
+    private static class ListAccumulator extends Accumulator {
+        private final int limit;
+        private final List<Set<String>> lists = new ArrayList<>();
+        private final BitSet truncated = new BitSet();
+
+        ListAccumulator(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        boolean usesNumber() {
+            return false;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            while (lists.size() < groups) {
+                lists.add(null);
+            }
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+            if (value == null) {
+                return;
+            }
+            Set<String> list = list(group);
+            String text = value.toString();
+            if (list.size() < limit) {
+                list.add(text);
+            } else if (!list.contains(text)) {
+                truncated.set(group);
+            }
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+            ListAccumulator list = (ListAccumulator) other;
+            Set<String> values = list.lists.get(otherGroup);
+            if (values != null) {
+                for (String value : values) {
+                    add(group, 0.0, value);
+                }
+            }
+            if (list.truncated.get(otherGroup)) {
+                truncated.set(group);
+            }
+        }
+
+        @Override
+        Object result(int group, long count) {
+            Set<String> list = lists.get(group);
+            String values = list != null ? String.join(", ", list) : "";
+            return truncated.get(group) ? values + ", ..." : values;
+        }
+
+        private Set<String> list(int group) {
+            Set<String> list = lists.get(group);
+            if (list == null) {
+                list = new LinkedHashSet<>();
+                lists.set(group, list);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Exact number of distinct values of a group; missing values are not
+     * counted. Values of table rows are kept as primitive keys and other rows
+     * by their text.
+     */
+    private static class DistinctAccumulator extends Accumulator {
+        private final List<LongGroupTable> keys = new ArrayList<>();
+        private final List<Set<String>> texts = new ArrayList<>();
+
+        @Override
+        boolean usesNumber() {
+            return false;
+        }
+
+        @Override
+        boolean usesKey() {
+            return true;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            while (keys.size() < groups) {
+                keys.add(null);
+                texts.add(null);
+            }
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+            if (value == null) {
+                return;
+            }
+            Set<String> set = texts.get(group);
+            if (set == null) {
+                set = new HashSet<>();
+                texts.set(group, set);
+            }
+            set.add(value.toString());
+        }
+
+        @Override
+        void addKey(int group, long key) {
+            LongGroupTable set = keys.get(group);
+            if (set == null) {
+                set = new LongGroupTable(4);
+                keys.set(group, set);
+            }
+            set.add(key);
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+            DistinctAccumulator distinct = (DistinctAccumulator) other;
+            LongGroupTable otherKeys = distinct.keys.get(otherGroup);
+            if (otherKeys != null) {
+                for (int id = 0; id < otherKeys.size(); id++) {
+                    addKey(group, otherKeys.keyAt(id));
+                }
+            }
+            Set<String> otherTexts = distinct.texts.get(otherGroup);
+            if (otherTexts != null) {
+                for (String text : otherTexts) {
+                    add(group, 0.0, text);
+                }
+            }
+        }
+
+        @Override
+        Object result(int group, long count) {
+            LongGroupTable set = keys.get(group);
+            Set<String> textSet = texts.get(group);
+            return (long) (set != null ? set.size() : 0) + (textSet != null ? textSet.size() : 0);
+        }
+    }
+
+    /**
+     * Estimated number of distinct values of a group, from a HyperLogLog sketch
+     * of the hashed keys or texts of its values; missing values are not
+     * counted.
+     */
+    private static class SketchAccumulator extends Accumulator {
+        private final List<HyperLogLog> sketches = new ArrayList<>();
+
+        @Override
+        boolean usesNumber() {
+            return false;
+        }
+
+        @Override
+        boolean usesKey() {
+            return true;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            while (sketches.size() < groups) {
+                sketches.add(null);
+            }
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+            if (value != null) {
+                sketch(group).add(HyperLogLog.hash(value.toString()));
+            }
+        }
+
+        @Override
+        void addKey(int group, long key) {
+            sketch(group).add(HyperLogLog.hash(key));
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+            HyperLogLog sketch = ((SketchAccumulator) other).sketches.get(otherGroup);
+            if (sketch != null) {
+                sketch(group).merge(sketch);
+            }
+        }
+
+        @Override
+        Object result(int group, long count) {
+            HyperLogLog sketch = sketches.get(group);
+            return sketch != null ? sketch.estimate() : 0L;
+        }
+
+        private HyperLogLog sketch(int group) {
+            HyperLogLog sketch = sketches.get(group);
+            if (sketch == null) {
+                sketch = new HyperLogLog();
+                sketches.set(group, sketch);
+            }
+            return sketch;
+        }
+    }
+
+    /**
+     * Estimated quantile of the values of a group, or the digest itself when
+     * the quantile is NaN. Missing values count as 0.0, as for the sums.
+     */
+    private static class QuantileAccumulator extends Accumulator {
+        private final double quantile;
+        private final List<TDigest> digests = new ArrayList<>();
+
+        QuantileAccumulator(double quantile) {
+            this.quantile = quantile;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            while (digests.size() < groups) {
+                digests.add(null);
+            }
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+            digest(group).add(number);
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+            TDigest digest = ((QuantileAccumulator) other).digests.get(otherGroup);
+            if (digest != null) {
+                digest(group).merge(digest);
+            }
+        }
+
+        @Override
+        Object result(int group, long count) {
+            TDigest digest = digest(group);
+            return Double.isNaN(quantile) ? digest : digest.quantile(quantile);
+        }
+
+        private TDigest digest(int group) {
+            TDigest digest = digests.get(group);
+            if (digest == null) {
+                digest = new TDigest();
+                digests.set(group, digest);
+            }
+            return digest;
+        }
+    }
+
+    /**
+     * Count, sum, extremes and variance of the values of a group in one
+     * {@link SummaryStatistics}, yielding the variance, the standard deviation
+     * or the statistics themselves.
+     */
+    private static class SummaryAccumulator extends Accumulator {
+        private final String statistic;
+        private final List<SummaryStatistics> summaries = new ArrayList<>();
+
+        SummaryAccumulator(String statistic) {
+            this.statistic = statistic;
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            while (summaries.size() < groups) {
+                summaries.add(null);
+            }
+        }
+
+        @Override
+        void add(int group, double number, Object value) {
+            summary(group).accept(number);
+        }
+
+        @Override
+        void merge(int group, Accumulator other, int otherGroup) {
+            SummaryStatistics summary = ((SummaryAccumulator) other).summaries.get(otherGroup);
+            if (summary != null) {
+                summary(group).combine(summary);
+            }
+        }
+
+        @Override
+        Object result(int group, long count) {
+            SummaryStatistics summary = summary(group);
+            switch (statistic) {
+                case "variance":
+                    return summary.getVariance();
+                case "std dev":
+                    return summary.getStandardDeviation();
+                default:
+                    return summary;
+            }
+        }
+
+        private SummaryStatistics summary(int group) {
+            SummaryStatistics summary = summaries.get(group);
+            if (summary == null) {
+                summary = new SummaryStatistics();
+                summaries.set(group, summary);
+            }
+            return summary;
+        }
+    }
+}
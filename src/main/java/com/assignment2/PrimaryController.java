@@ -2,11 +2,14 @@ package com.assignment2;
 
 import com.assignment2.analytics.Analytics;
 import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
 import com.assignment2.parser.CSVParsingException;
 import com.assignment2.parser.CSVParser;
+import com.assignment2.parser.ParseListener;
 import com.assignment2.util.DataUtil;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -30,7 +33,7 @@ import java.util.logging.Logger;
  */
 public class PrimaryController {
     @FXML
-    private TableView<Map<String, Object>> dataTable;
+    private TableView<DataRow> dataTable;
 
     @FXML
     private Label statusLabel;
@@ -38,8 +41,40 @@ public class PrimaryController {
     @FXML
     private Button restoreOriginalDataButton; // New Button
 
+    @FXML
+    private MenuItem importMenuItem;
+
+    @FXML
+    private ProgressBar importProgressBar;
+
+    @FXML
+    private Button cancelImportButton;
+
+    @FXML
+    private Button filterButton;
+
+    @FXML
+    private Button groupByButton;
+
+    @FXML
+    private Button statisticsButton;
+
+    @FXML
+    private Button topRowsButton;
+
+    @FXML
+    private Button pieChartButton;
+
+    private ImportTask importTask; // Import running in the background, if any
+    private boolean restoreDisabledBeforeImport; // State of the Restore button when the import started
+
+    private RowTableModel tableModel; // Items of dataTable, or null when empty
+    private Task<int[]> sortTask; // Header sort running in the background, if any
+
     private Analytics<DataRow> originalAnalytics; // Holds original data
     private Analytics<DataRow> currentAnalytics; // Holds current (filtered/sorted) data
+    private Analytics<DataRow> filterBase; // Data the active filter was applied to, or null if none
+    private List<String> filterConditions = Collections.emptyList(); // Conditions of the active filter
 
     private static final Logger logger = Logger.getLogger(PrimaryController.class.getName());
 
@@ -55,6 +90,60 @@ public class PrimaryController {
 
         // Disable Restore button initially since no operations have been applied
         restoreOriginalDataButton.setDisable(true);
+
+        // Rows are sorted through the model's index permutation, never copied
+        dataTable.setSortPolicy(table -> {
+            if (tableModel != null) {
+                sortTable(table.getSortOrder());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Sorts the table rows on a worker thread, so that the window stays
+     * responsive while millions of rows are sorted, and shows them in the new
+     * order once the sort is done. A newer sort order replaces a running sort.
+     *
+     * @param sortOrder The TableView sort order.
+     */
+    private void sortTable(List<TableColumn<DataRow, ?>> sortOrder) {
+        cancelSort();
+        RowTableModel model = tableModel;
+        AnalysisExecutor.Job<int[]> job = model.sortJob(sortOrder);
+        if (job == null) {
+            model.setOrder(null);
+            dataTable.refresh();
+            return;
+        }
+        Task<int[]> task = AnalysisExecutor.getDefault().submit("Sort", -1, job);
+        task.setOnSucceeded(event -> {
+            if (task != sortTask) {
+                return;
+            }
+            sortTask = null;
+            // Rows appended meanwhile by a running import dropped the sort order
+            if (model == tableModel && model.setOrder(task.getValue())) {
+                dataTable.refresh();
+                statusLabel.setText("Rows sorted.");
+            }
+        });
+        task.setOnFailed(event -> {
+            if (task == sortTask) {
+                sortTask = null;
+                statusLabel.setText("Sort failed.");
+            }
+            logger.log(Level.SEVERE, "Error sorting rows:", task.getException());
+        });
+        sortTask = task;
+        statusLabel.setText("Sorting rows...");
+    }
+
+    private void cancelSort() {
+        if (sortTask != null) {
+            sortTask.cancel();
+            sortTask = null;
+        }
     }
 
     /**
@@ -102,8 +191,15 @@ public class PrimaryController {
             }
         }
 
-        Map<String, Double> categoryData = AnalyticsService.aggregateForPieChart(currentAnalytics, categoryColumn,
-                valueColumn);
+        // Reopening the chart on the same data reuses the earlier aggregation
+        QueryCache cache = QueryCache.getDefault();
+        String operation = "pieChart:" + categoryColumn + "||" + valueColumn;
+        Map<String, Double> categoryData = cache.get(currentAnalytics, operation);
+        if (categoryData == null) {
+            categoryData = Collections.unmodifiableMap(
+                    AnalyticsService.aggregateForPieChart(currentAnalytics, categoryColumn, valueColumn));
+            cache.put(currentAnalytics, operation, categoryData, QueryCache.estimateBytes(categoryData));
+        }
 
         for (Map.Entry<String, Double> entry : categoryData.entrySet()) {
             PieChart.Data slice = new PieChart.Data(entry.getKey(), entry.getValue());
@@ -114,7 +210,9 @@ public class PrimaryController {
     }
 
     /**
-     * Handles the Import CSV action.
+     * Handles the Import CSV action. The file is parsed by a background task, so
+     * the window stays responsive; rows are shown batch by batch as they are
+     * parsed, and the import can be cancelled.
      */
     @FXML
     private void handleImportCSV() {
@@ -126,62 +224,181 @@ public class PrimaryController {
         File file = fileChooser.showOpenDialog(stage);
 
         if (file != null) {
-            try {
-                // Parse CSV with DataRow
-                List<DataRow> dataRows = CSVParser.parseCSVSpecific(file.getAbsolutePath(), DataRow.class, ",");
-                originalAnalytics = new Analytics<>(dataRows);
+            ImportTask task = new ImportTask(file);
+            task.setOnSucceeded(event -> {
+                // Work on row views of the complete columnar table; results on the old data are of no further use
+                QueryCache.getDefault().clear();
+                originalAnalytics = Analytics.wrap(task.getValue().rows());
                 currentAnalytics = originalAnalytics; // Initialize currentAnalytics with original data
-                populateTable(currentAnalytics.getData());
+                clearFilter();
+                populateTable(currentAnalytics);
                 statusLabel.setText("Imported: " + file.getName());
                 restoreOriginalDataButton.setDisable(true); // No operations applied yet
+                finishImport();
                 logger.info("Successfully imported CSV: " + file.getName());
-            } catch (CSVParsingException e) {
-                showAlert(Alert.AlertType.ERROR, "CSV Parsing Error", e.getMessage());
-                logger.log(Level.SEVERE, "CSV Parsing Error:", e);
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Import Error", "An unexpected error occurred.");
-                logger.log(Level.SEVERE, "Import Error:", e);
-            }
+            });
+            task.setOnCancelled(event -> {
+                populateTable(currentAnalytics);
+                restoreOriginalDataButton.setDisable(restoreDisabledBeforeImport);
+                statusLabel.setText("Import cancelled: " + file.getName());
+                finishImport();
+                logger.info("Cancelled import of CSV: " + file.getName());
+            });
+            task.setOnFailed(event -> {
+                populateTable(currentAnalytics);
+                restoreOriginalDataButton.setDisable(restoreDisabledBeforeImport);
+                statusLabel.setText("Import failed: " + file.getName());
+                finishImport();
+                Throwable e = task.getException();
+                if (e instanceof CSVParsingException) {
+                    showAlert(Alert.AlertType.ERROR, "CSV Parsing Error", e.getMessage());
+                    logger.log(Level.SEVERE, "CSV Parsing Error:", e);
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Import Error", "An unexpected error occurred.");
+                    logger.log(Level.SEVERE, "Import Error:", e);
+                }
+            });
+
+            importTask = task;
+            importMenuItem.setDisable(true);
+            // The table shows the new rows while the dialogs would still work on the old data
+            restoreDisabledBeforeImport = restoreOriginalDataButton.isDisable();
+            setAnalysisDisabled(true);
+            importProgressBar.progressProperty().bind(task.progressProperty());
+            setImportControlsVisible(true);
+            statusLabel.setText("Importing: " + file.getName());
+
+            Thread thread = new Thread(task, "csv-import");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Handles cancelling a running import.
+     */
+    @FXML
+    private void handleCancelImport(ActionEvent event) {
+        if (importTask != null) {
+            importTask.cancel();
         }
     }
 
     /**
-     * Populates the TableView with data.
+     * Shows the rows of a parsed batch while the import is still running.
      *
-     * @param dataRows List of DataRow objects.
+     * @param task  The import task that produced the batch.
+     * @param batch The rows of the batch.
      */
-    void populateTable(List<DataRow> dataRows) {
+    private void showBatch(ImportTask task, DataTable batch) {
+        if (task != importTask || task.isCancelled() || batch.getRowCount() == 0) {
+            return;
+        }
+        if (!task.showingBatches) {
+            task.showingBatches = true;
+            populateTable(Analytics.wrap(batch.rows()));
+        } else {
+            tableModel.append(Analytics.wrap(batch.rows()));
+            dataTable.refresh();
+        }
+        statusLabel.setText("Importing: " + task.file.getName() + " (" + tableModel.size() + " rows)");
+    }
+
+    private void finishImport() {
+        importTask = null;
+        importMenuItem.setDisable(false);
+        setAnalysisDisabled(false);
+        importProgressBar.progressProperty().unbind();
+        setImportControlsVisible(false);
+    }
+
+    /**
+     * Enables or disables the actions that work on the current data, including
+     * Restore Original Data.
+     *
+     * @param disabled True to disable them.
+     */
+    private void setAnalysisDisabled(boolean disabled) {
+        filterButton.setDisable(disabled);
+        groupByButton.setDisable(disabled);
+        statisticsButton.setDisable(disabled);
+        topRowsButton.setDisable(disabled);
+        pieChartButton.setDisable(disabled);
+        if (disabled) {
+            restoreOriginalDataButton.setDisable(true);
+        }
+    }
+
+    private void setImportControlsVisible(boolean visible) {
+        importProgressBar.setVisible(visible);
+        importProgressBar.setManaged(visible);
+        cancelImportButton.setVisible(visible);
+        cancelImportButton.setManaged(visible);
+    }
+
+    /**
+     * Background task parsing a CSV file in PARALLEL mode, or restoring it from
+     * the snapshot of an earlier import. Progress is reported in bytes, and every
+     * parsed batch is handed to the Application Thread. Quoted fields and blank
+     * lines are read as described in {@link CSVParser.ParseMode}.
+     */
+    private class ImportTask extends Task<DataTable> implements ParseListener {
+        private final File file;
+        private boolean showingBatches; // Only accessed on the Application Thread
+
+        ImportTask(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected DataTable call() throws Exception {
+            return CSVParser.importTable(file.getAbsolutePath(), ",", CSVParser.ParseMode.PARALLEL, this);
+        }
+
+        @Override
+        public void progress(long bytesRead, long totalBytes) {
+            updateProgress(bytesRead, totalBytes);
+        }
+
+        @Override
+        public void batch(DataTable rows) {
+            Platform.runLater(() -> showBatch(this, rows));
+        }
+    }
+
+    /**
+     * Populates the TableView with data. The rows are not copied: the TableView
+     * reads them by index through a RowTableModel, which formats only the cells
+     * that are shown.
+     *
+     * @param analytics The rows to show.
+     */
+    void populateTable(Analytics<DataRow> analytics) {
+        cancelSort();
         dataTable.getColumns().clear();
+        List<DataRow> dataRows = analytics.getData();
 
         if (dataRows.isEmpty()) {
+            tableModel = null;
+            dataTable.setItems(FXCollections.observableArrayList());
             statusLabel.setText("No data to display.");
             return;
         }
 
         // Dynamically create columns based on Map keys
         DataRow sample = dataRows.get(0);
-        Set<String> columns = sample.getFields().keySet();
+        List<String> columns = new ArrayList<>(sample.getFields().keySet());
+        tableModel = new RowTableModel(columns, analytics);
 
         for (String key : columns) {
             DataRow.DataType type = sample.getFieldType(key);
             String columnHeader = DataUtil.toTitleCase(key) + " (" + type.toString() + ")";
-            TableColumn<Map<String, Object>, String> column = new TableColumn<>(columnHeader);
-            column.setCellValueFactory(cellData -> {
-                Object value = cellData.getValue().get(key);
-                return new javafx.beans.property.SimpleStringProperty(value != null ? value.toString() : "");
-            });
+            TableColumn<DataRow, String> column = tableModel.createColumn(columnHeader, key);
             column.setPrefWidth(150);
             dataTable.getColumns().add(column);
         }
 
-        // Convert DataRow to Map<String, Object> for dynamic TableView
-        List<Map<String, Object>> mapData = new ArrayList<>();
-        for (DataRow row : dataRows) {
-            mapData.add(row.getFields());
-        }
-
-        ObservableList<Map<String, Object>> observableData = FXCollections.observableArrayList(mapData);
-        dataTable.setItems(observableData);
+        dataTable.setItems(tableModel);
     }
 
     /**
@@ -191,12 +408,22 @@ public class PrimaryController {
      */
     public void updateAnalytics(Analytics<DataRow> updatedAnalytics) {
         this.currentAnalytics = updatedAnalytics;
-        populateTable(this.currentAnalytics.getData());
+        clearFilter();
+        populateTable(this.currentAnalytics);
 
         // Enable the Restore button since operations have been applied
         restoreOriginalDataButton.setDisable(false);
     }
 
+    /**
+     * Forgets the active filter, for example once the data was grouped; the
+     * next filter starts from the current data.
+     */
+    private void clearFilter() {
+        filterBase = null;
+        filterConditions = Collections.emptyList();
+    }
+
     /**
      * Handles the Exit action.
      */
@@ -224,9 +451,11 @@ public class PrimaryController {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("FilterDialog.fxml"));
             Parent root = loader.load();
 
-            // Get the controller and pass the currentAnalytics instance
+            // Pass the data before the active filter, so that its conditions can be refined or removed
             FilterDialogController controller = loader.getController();
-            controller.setAnalytics(currentAnalytics);
+            Analytics<DataRow> base = filterBase != null ? filterBase : currentAnalytics;
+            controller.setAnalytics(base);
+            controller.setActiveFilter(filterConditions, currentAnalytics);
 
             // Create a new stage for the dialog
             Stage stage = new Stage();
@@ -239,6 +468,8 @@ public class PrimaryController {
             Analytics<DataRow> filteredAnalytics = controller.getFilteredAnalytics();
             if (filteredAnalytics != null) {
                 updateAnalytics(filteredAnalytics);
+                filterConditions = controller.getConditions();
+                filterBase = filterConditions.isEmpty() ? null : base;
                 statusLabel.setText("Data filtered.");
             } else {
                 statusLabel.setText("Filter applied but no data matched the criteria.");
@@ -300,6 +531,7 @@ public class PrimaryController {
             stage.setTitle("Statistics");
             stage.initModality(Modality.APPLICATION_MODAL); // Block input to other windows
             stage.setScene(new Scene(root));
+            controller.setStage(stage);
             stage.showAndWait();
 
             // Update status or handle any results if necessary
@@ -310,6 +542,38 @@ public class PrimaryController {
         }
     }
 
+    /**
+     * Handles the Top Rows button action.
+     */
+    @FXML
+    private void handleTopRows(ActionEvent event) {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("TopRowsDialog.fxml"));
+            Parent root = loader.load();
+
+            // Get the controller and pass the currentAnalytics instance
+            TopRowsDialogController controller = loader.getController();
+            controller.setAnalytics(currentAnalytics);
+
+            // Create a new stage for the dialog
+            Stage stage = new Stage();
+            stage.setTitle("Top Rows");
+            stage.initModality(Modality.APPLICATION_MODAL); // Block input to other windows
+            stage.setScene(new Scene(root));
+            stage.showAndWait();
+
+            // After dialog is closed, show the top rows if any were selected
+            Analytics<DataRow> topAnalytics = controller.getTopAnalytics();
+            if (topAnalytics != null) {
+                updateAnalytics(topAnalytics);
+                statusLabel.setText("Showing " + topAnalytics.getData().size() + " top rows.");
+            }
+        } catch (IOException e) {
+            showAlert(Alert.AlertType.ERROR, "Top Rows Error", "Failed to open Top Rows Dialog.");
+            logger.log(Level.SEVERE, "Error opening Top Rows Dialog:", e);
+        }
+    }
+
     /**
      * Handles restoring the original data from the CSV.
      */
@@ -317,7 +581,8 @@ public class PrimaryController {
     private void handleRestoreOriginalData(ActionEvent event) {
         if (originalAnalytics != null) {
             currentAnalytics = originalAnalytics;
-            populateTable(currentAnalytics.getData());
+            clearFilter();
+            populateTable(currentAnalytics);
             statusLabel.setText("Reverted to original data.");
             restoreOriginalDataButton.setDisable(true); // Disable since we're back to original
             logger.info("Restored original data from CSV.");
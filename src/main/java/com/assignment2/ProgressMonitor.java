@@ -0,0 +1,26 @@
+package com.assignment2;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Receives the progress of a long-running analysis and lets the caller cancel
+ * it. Analyses report work in rows, in steps of a few ten thousand rows, and
+ * may do so from several threads at once.
+ */
+public interface ProgressMonitor {
+
+    /** Monitor for analyses run without progress reporting or cancellation. */
+    ProgressMonitor NONE = rows -> {
+    };
+
+    /** Number of rows an analysis processes between two reports. */
+    int REPORT_ROWS = 1 << 16;
+
+    /**
+     * Reports finished work.
+     *
+     * @param rows The number of rows processed since the last report.
+     * @throws CancellationException If the analysis has been cancelled.
+     */
+    void worked(long rows);
+}
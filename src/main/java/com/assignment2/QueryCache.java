@@ -0,0 +1,306 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.DataRow;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Memory-bounded cache of analysis results, so that re-running a filter,
+ * group-by, statistic or pie chart on the same data returns at once. A result
+ * is keyed by the {@link Analytics#getVersion() version} of the dataset it was
+ * computed from and a canonical description of the operation; since datasets
+ * never change, a cached result stays valid for as long as it is kept.
+ *
+ * Every entry carries an estimate of the heap it holds. When the estimates add
+ * up to more than the byte budget, the least recently used entries are evicted
+ * until the cache fits again. Results larger than the whole budget are not
+ * cached. The cache is safe to use from the worker threads of
+ * {@link AnalysisExecutor} and the JavaFX Application Thread alike.
+ */
+public class QueryCache {
+    private static final Logger logger = Logger.getLogger(QueryCache.class.getName());
+
+    /**
+     * System property overriding the byte budget of the default cache.
+     */
+    public static final String MAX_BYTES_PROPERTY = "com.assignment2.queryCacheBytes";
+
+    private static final long ENTRY_BYTES = 96; // Key, map entry and bookkeeping
+    private static final long VIEW_ROW_BYTES = 4; // Position of a table-backed row in a view
+    private static final long ROW_BYTES = 40; // Row that owns its fields and its list slot
+    private static final long FIELD_BYTES = 160; // Field of a row that owns its fields
+    private static QueryCache defaultCache;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes The byte budget, at least 0.
+     */
+    public QueryCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Negative byte budget: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Retrieves the cache shared by the application's dialogs. Its budget is an
+     * eighth of the maximum heap unless the {@value #MAX_BYTES_PROPERTY} system
+     * property sets one.
+     *
+     * @return The shared cache.
+     */
+    public static synchronized QueryCache getDefault() {
+        if (defaultCache == null) {
+            long maxBytes = Long.getLong(MAX_BYTES_PROPERTY, Runtime.getRuntime().maxMemory() / 8);
+            defaultCache = new QueryCache(Math.max(0, maxBytes));
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Looks up a result and counts a hit or a miss.
+     *
+     * @param dataset   The dataset the result was computed from.
+     * @param operation The canonical form of the operation.
+     * @param <V>       The type the result was stored with.
+     * @return The cached result, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <V> V get(Analytics<?> dataset, String operation) {
+        Entry entry = entries.get(new Key(dataset.getVersion(), operation));
+        if (entry == null) {
+            misses++;
+            logger.fine("Query cache miss: " + operation);
+            return null;
+        }
+        hits++;
+        logger.fine("Query cache hit: " + operation);
+        return (V) entry.value;
+    }
+
+    /**
+     * Lists the results of one dataset whose operations start with a prefix, for
+     * callers that can build on a related result. Neither the counters nor the
+     * recency of the results change.
+     *
+     * @param dataset The dataset the results were computed from.
+     * @param prefix  The start of the canonical forms (e.g., "filter:").
+     * @param <V>     The type the results were stored with.
+     * @return The results, least recently used first.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <V> List<V> findAll(Analytics<?> dataset, String prefix) {
+        List<V> values = new ArrayList<>();
+        for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+            Key key = entry.getKey();
+            if (key.version == dataset.getVersion() && key.operation.startsWith(prefix)) {
+                values.add((V) entry.getValue().value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Stores a result, replacing any result of the same operation, and evicts
+     * least recently used results while the cache is over budget. The result
+     * must not be modified afterwards.
+     *
+     * @param dataset   The dataset the result was computed from.
+     * @param operation The canonical form of the operation.
+     * @param value     The result.
+     * @param bytes     An estimate of the heap held by the result.
+     */
+    public synchronized void put(Analytics<?> dataset, String operation, Object value, long bytes) {
+        Key key = new Key(dataset.getVersion(), operation);
+        long size = ENTRY_BYTES + 2L * operation.length() + Math.max(0, bytes);
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            this.bytes -= previous.bytes;
+        }
+        if (size > maxBytes) {
+            logger.fine("Result of " + operation + " exceeds the query cache budget.");
+            return;
+        }
+        entries.put(key, new Entry(value, size));
+        this.bytes += size;
+        trim();
+    }
+
+    /**
+     * Changes the byte budget, evicting results if the cache no longer fits.
+     *
+     * @param maxBytes The byte budget, at least 0.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Negative byte budget: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * Retrieves the byte budget.
+     *
+     * @return The maximum estimated size of the cached results.
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Retrieves the estimated size of the cached results.
+     *
+     * @return The estimate in bytes.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Counts the cached results.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Counts the lookups that found a result.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Counts the lookups that found no result.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Counts the results evicted to stay within the byte budget.
+     *
+     * @return The number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Removes all results. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryCache[entries=" + entries.size() + ", bytes=" + bytes + "/" + maxBytes + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * Estimates the heap held by a dataset of rows beyond the rows it shares with
+     * other datasets. Rows backed by a DataTable come from views and only cost
+     * their position, while rows owning their fields cost every field.
+     *
+     * @param analytics The dataset.
+     * @return The estimate in bytes.
+     */
+    public static long estimateBytes(Analytics<DataRow> analytics) {
+        List<DataRow> rows = analytics.getData();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        DataRow first = rows.get(0);
+        long rowBytes = first.getTable() != null ? VIEW_ROW_BYTES
+                : ROW_BYTES + FIELD_BYTES * first.getFields().size();
+        return rowBytes * rows.size();
+    }
+
+    /**
+     * Estimates the heap held by a map of labels to values.
+     *
+     * @param map The map.
+     * @return The estimate in bytes.
+     */
+    public static long estimateBytes(Map<String, ?> map) {
+        long bytes = 0;
+        for (String label : map.keySet()) {
+            bytes += ENTRY_BYTES + 2L * label.length();
+        }
+        return bytes;
+    }
+
+    private void trim() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Dataset version and canonical operation of a cached result.
+     */
+    private static final class Key {
+        private final long version;
+        private final String operation;
+
+        Key(long version, String operation) {
+            this.version = version;
+            this.operation = operation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return version == other.version && operation.equals(other.operation);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, operation);
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long bytes;
+
+        Entry(Object value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.BooleanColumn;
+import com.assignment2.model.Column;
+import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+import com.assignment2.model.DoubleColumn;
+import com.assignment2.model.IntColumn;
+import com.assignment2.model.StringColumn;
+import com.assignment2.model.StringDictionary;
+import com.assignment2.util.IndexSort;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorts rows by the values of their columns without comparing rows. For rows
+ * backed by one DataTable, every sort column is read once into an array of
+ * unsigned long keys whose order is the order of the values: INTEGER and DOUBLE
+ * values are bit-flipped, BOOLEAN values numbered, and STRING values replaced by
+ * the rank of their dictionary entry, computed once per distinct string. Missing
+ * values get the smallest key. The rows are then sorted by the keys with
+ * {@link Analytics#sortByKeys(long[], int)}, least significant column first, so
+ * the sort takes a few linear passes per column. Keys are read by row index, so
+ * no row view is created.
+ *
+ * Rows that own their fields are sorted with
+ * {@link #compareValues(Object, Object)} as the fallback. Both ways give the
+ * same stable order.
+ */
+class RowSorter {
+
+    private RowSorter() {
+    }
+
+    /**
+     * Sorts rows by one or more columns.
+     *
+     * @param analytics  The rows.
+     * @param columns    The sort columns, most significant first.
+     * @param descending Per column, whether it sorts in descending order.
+     * @return A new Analytics view of the rows in sorted order.
+     */
+    static Analytics<DataRow> sort(Analytics<DataRow> analytics, List<String> columns, boolean[] descending) {
+        DataTable table = AnalyticsService.tableOf(analytics);
+        Analytics<DataRow> sorted = analytics;
+        for (int c = columns.size() - 1; c >= 0; c--) {
+            if (table != null) {
+                int[] keyBytes = new int[1];
+                long[] keys = keys(sorted.positionsIn(table.rows()), table.getColumn(columns.get(c)), descending[c],
+                        keyBytes);
+                sorted = sorted.sortByKeys(keys, keyBytes[0]);
+            } else {
+                sorted = sorted.sortBy(comparator(columns.get(c), descending[c]));
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Keeps the first k rows of the order by one column, without sorting all
+     * rows; see {@link Analytics#topK(int, long[])}.
+     *
+     * @param analytics  The rows.
+     * @param column     The sort column.
+     * @param descending Whether the column sorts in descending order.
+     * @param k          The number of rows to keep, at least 0.
+     * @return A new Analytics view of at most k rows in sorted order.
+     */
+    static Analytics<DataRow> top(Analytics<DataRow> analytics, String column, boolean descending, int k) {
+        DataTable table = AnalyticsService.tableOf(analytics);
+        if (table != null) {
+            return analytics.topK(k, keys(analytics.positionsIn(table.rows()), table.getColumn(column), descending,
+                    new int[1]));
+        }
+        return analytics.topK(k, comparator(column, descending));
+    }
+
+    /**
+     * Compares two field values: numbers numerically, values of the same
+     * Comparable class naturally, anything else by text. Missing values sort
+     * first.
+     *
+     * @param a The first value, or null.
+     * @param b The second value, or null.
+     * @return A negative value, zero or a positive value as a sorts before, with
+     *         or after b.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a.getClass() == b.getClass() && a instanceof Comparable) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * Orders rows that own their fields by the values of one column.
+     */
+    private static Comparator<DataRow> comparator(String column, boolean descending) {
+        int sign = descending ? -1 : 1;
+        return (a, b) -> sign * compareValues(a.getField(column), b.getField(column));
+    }
+
+    /**
+     * Reads the sort keys of a column.
+     *
+     * @param rows     Indexes of the rows to read, in key order.
+     * @param column   The column, or null if the table has none by that name.
+     * @param keyBytes Receives the number of low-order key bytes in use.
+     * @return The keys; 0 stands for a missing value.
+     */
+    private static long[] keys(int[] rows, Column column, boolean descending, int[] keyBytes) {
+        long[] keys = new long[rows.length];
+        keyBytes[0] = 1;
+        if (column == null) {
+            return keys;
+        }
+        int[] ranks = null;
+        if (column instanceof IntColumn) {
+            keyBytes[0] = 5;
+        } else if (column instanceof DoubleColumn) {
+            keyBytes[0] = 8;
+        } else if (column instanceof StringColumn) {
+            ranks = ranks(((StringColumn) column).getDictionary());
+            keyBytes[0] = 4;
+        }
+        long mask = keyBytes[0] == 8 ? -1L : (1L << (8 * keyBytes[0])) - 1;
+        for (int i = 0; i < keys.length; i++) {
+            int row = rows[i];
+            long key;
+            if (column.isNull(row)) {
+                key = 0;
+            } else if (column instanceof IntColumn) {
+                key = ((((IntColumn) column).getInt(row) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL) + 1;
+            } else if (column instanceof DoubleColumn) {
+                // Flip the bits so that unsigned order is Double.compare order
+                long bits = Double.doubleToLongBits(((DoubleColumn) column).getDouble(row));
+                key = bits < 0 ? ~bits : bits | Long.MIN_VALUE;
+            } else if (column instanceof BooleanColumn) {
+                key = ((BooleanColumn) column).getBoolean(row) ? 2 : 1;
+            } else {
+                key = ranks[((StringColumn) column).getCode(row)] + 1;
+            }
+            keys[i] = descending ? ~key & mask : key;
+        }
+        return keys;
+    }
+
+    /**
+     * Ranks the entries of a dictionary in String order.
+     *
+     * @return The rank of every code.
+     */
+    private static int[] ranks(StringDictionary dictionary) {
+        int[] codes = new int[dictionary.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = i;
+        }
+        IndexSort.sort(codes, (a, b) -> dictionary.getValue(a).compareTo(dictionary.getValue(b)));
+        int[] ranks = new int[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            ranks[codes[i]] = i;
+        }
+        return ranks;
+    }
+}
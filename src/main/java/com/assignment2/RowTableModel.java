@@ -0,0 +1,234 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.DataRow;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only TableView items backed directly by the rows of a dataset. Rows are
+ * looked up by index instead of being copied into an ObservableList, so showing
+ * a new dataset takes constant time whatever its size. Cells are formatted only
+ * when the TableView asks for a visible index, and the formatted rows are kept
+ * in a small LRU cache so scrolling back does not format them again.
+ *
+ * Sorting through the column headers reorders an index permutation instead of
+ * the rows themselves. The permutation is computed by a job that can run off
+ * the Application Thread; see {@link #sortJob(List)}.
+ */
+class RowTableModel extends ObservableListBase<DataRow> {
+    private static final int CACHED_ROWS = 1024;
+
+    private final String[] columns;
+    private final List<Analytics<DataRow>> segments = new ArrayList<>();
+    private int[] starts = new int[1];
+    private int size;
+    private int[] order; // View index to row index, or null when unsorted
+    private final Map<Integer, String[]> formatted = new LinkedHashMap<Integer, String[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+            return size() > CACHED_ROWS;
+        }
+    };
+
+    /**
+     * Creates a model over the rows of a dataset, which are not copied.
+     *
+     * @param columns The field names shown as columns, in column order.
+     * @param rows    The rows.
+     */
+    RowTableModel(List<String> columns, Analytics<DataRow> rows) {
+        this.columns = columns.toArray(new String[0]);
+        if (!rows.getData().isEmpty()) {
+            addSegment(rows);
+        }
+    }
+
+    /**
+     * Appends more rows, for example the next batch of a running import. An
+     * active sort order is dropped.
+     *
+     * @param rows The rows to append, which are not copied.
+     */
+    void append(Analytics<DataRow> rows) {
+        if (rows.getData().isEmpty()) {
+            return;
+        }
+        beginChange();
+        if (order != null) {
+            reorder(null);
+        }
+        int from = size;
+        addSegment(rows);
+        nextAdd(from, size);
+        endChange();
+    }
+
+    /**
+     * Prepares sorting the view by the given columns, comparing the typed field
+     * values; see {@link RowSorter}. Missing values sort first. The job reads the
+     * rows shown now, even if more are appended later, and may run on any
+     * thread; pass its result to {@link #setOrder(int[])}.
+     *
+     * @param sortOrder The TableView sort order.
+     * @return The job computing the new view order, or null for an empty sort
+     *         order, which restores file order.
+     */
+    AnalysisExecutor.Job<int[]> sortJob(List<TableColumn<DataRow, ?>> sortOrder) {
+        if (sortOrder.isEmpty()) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>();
+        boolean[] descending = new boolean[sortOrder.size()];
+        for (TableColumn<DataRow, ?> column : sortOrder) {
+            descending[keys.size()] = column.getSortType() == TableColumn.SortType.DESCENDING;
+            keys.add((String) column.getUserData());
+        }
+        Analytics<DataRow> rows;
+        if (segments.size() == 1) {
+            // A single dataset keeps the table backing its rows, if any
+            rows = segments.get(0);
+        } else {
+            List<Analytics<DataRow>> sortSegments = new ArrayList<>(segments);
+            int[] sortStarts = starts.clone();
+            int sortSize = size;
+            rows = Analytics.wrap(new AbstractList<DataRow>() {
+                @Override
+                public DataRow get(int index) {
+                    return row(sortSegments, sortStarts, index);
+                }
+
+                @Override
+                public int size() {
+                    return sortSize;
+                }
+            });
+        }
+        return monitor -> RowSorter.sort(rows, keys, descending).positionsIn(rows);
+    }
+
+    /**
+     * Shows the rows in a new order.
+     *
+     * @param sorted View index to row index, as computed by a
+     *               {@link #sortJob(List) sort job}, or null for file order.
+     * @return False if rows were appended since the sort job started, in which
+     *         case the order is not changed.
+     */
+    boolean setOrder(int[] sorted) {
+        if (sorted != null && sorted.length != size) {
+            return false;
+        }
+        if (sorted != null || order != null) {
+            beginChange();
+            reorder(sorted);
+            endChange();
+        }
+        return true;
+    }
+
+    @Override
+    public DataRow get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return row(order != null ? order[index] : index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a column that displays one field of this model's rows.
+     *
+     * @param header The column header.
+     * @param field  The field name.
+     * @return A new TableColumn.
+     */
+    TableColumn<DataRow, String> createColumn(String header, String field) {
+        int column = Arrays.asList(columns).indexOf(field);
+        TableColumn<DataRow, String> tableColumn = new TableColumn<>(header);
+        tableColumn.setUserData(field);
+        tableColumn.setCellFactory(c -> new TableCell<DataRow, String>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                int index = getIndex();
+                setText(empty || index < 0 || index >= size ? null : text(index, column));
+            }
+        });
+        return tableColumn;
+    }
+
+    /**
+     * Retrieves the display text of a cell, formatting it on first use.
+     */
+    private String text(int index, int column) {
+        String[] texts = formatted.get(index);
+        if (texts == null) {
+            texts = new String[columns.length];
+            formatted.put(index, texts);
+        }
+        String text = texts[column];
+        if (text == null) {
+            Object value = get(index).getField(columns[column]);
+            text = value != null ? value.toString() : "";
+            texts[column] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Switches to a new view order and reports it as a permutation; must be
+     * called inside a change.
+     *
+     * @param newOrder View index to row index, or null for file order.
+     */
+    private void reorder(int[] newOrder) {
+        int[] viewOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            viewOf[newOrder != null ? newOrder[i] : i] = i;
+        }
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = viewOf[order != null ? order[i] : i];
+        }
+        order = newOrder;
+        formatted.clear();
+        nextPermutation(0, size, permutation);
+    }
+
+    private DataRow row(int index) {
+        return row(segments, starts, index);
+    }
+
+    private static DataRow row(List<Analytics<DataRow>> segments, int[] starts, int index) {
+        if (segments.size() == 1) {
+            return segments.get(0).getData().get(index);
+        }
+        int segment = Arrays.binarySearch(starts, 0, segments.size(), index);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+        return segments.get(segment).getData().get(index - starts[segment]);
+    }
+
+    private void addSegment(Analytics<DataRow> rows) {
+        if (segments.size() == starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        starts[segments.size()] = size;
+        segments.add(rows);
+        size += rows.getData().size();
+    }
+}
@@ -3,19 +3,28 @@ package com.assignment2;
 import com.assignment2.analytics.Analytics;
 import com.assignment2.model.DataRow;
 import com.assignment2.util.DataUtil;
+import com.assignment2.util.SummaryStatistics;
+import com.assignment2.util.TDigest;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.function.ToDoubleFunction;
 
 /**
- * Controller for the Statistics Dialog.
+ * Controller for the Statistics Dialog. All selected operations share at most
+ * two passes over the column: one collects its summary statistics (count, sum,
+ * average, extremes and variance) and one its t-digest, from which quantiles
+ * such as the median are estimated. Both are cached, so further statistics of
+ * the same column cost no pass over the rows.
  */
 public class StatisticsDialogController {
 
@@ -25,6 +34,14 @@ public class StatisticsDialogController {
     @FXML
     private ListView<String> operationsListView;
 
+    @FXML
+    private Button applyStatisticsButton;
+
+    @FXML
+    private ProgressBar progressBar;
+
+    private Task<String> statisticsTask; // Running statistics job, if any
+
     private Analytics<DataRow> analytics;
 
     private Stage stage;
@@ -37,7 +54,9 @@ public class StatisticsDialogController {
      */
     @FXML
     private void initialize() {
-        operationsListView.setItems(FXCollections.observableArrayList("Sum", "Average", "Max", "Min"));
+        operationsListView.setItems(
+                FXCollections.observableArrayList("Sum", "Average", "Max", "Min", "Count", "Variance", "Std Dev",
+                        "Median", "P95", "P99"));
         operationsListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
     }
 
@@ -77,28 +96,178 @@ public class StatisticsDialogController {
             return;
         }
 
-        try {
-            StringBuilder resultBuilder = new StringBuilder();
-            ToDoubleFunction<DataRow> mapper = row -> DataUtil.parseSafeDouble(row.getField(selectedColumn));
-
-            for (String operation : selectedOperations) {
-                double result = AnalyticsService.performStatistic(analytics, operation, mapper);
-                resultBuilder.append(operation).append(" of '")
-                        .append(DataUtil.toTitleCase(selectedColumn)).append("': ")
-                        .append(result).append("\n");
+        // Statistics already computed on the same data are reused
+        Analytics<DataRow> source = analytics;
+        List<String> operations = new ArrayList<>(selectedOperations);
+        QueryCache cache = QueryCache.getDefault();
+        Map<String, Double> results = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String operation : operations) {
+            Double cached = cache.get(source, canonicalForm(operation, selectedColumn));
+            if (cached != null) {
+                results.put(operation, cached);
+            } else {
+                missing.add(operation);
             }
+        }
+        if (missing.isEmpty()) {
+            String text = formatResults(operations, selectedColumn, results);
+            showAlert(Alert.AlertType.INFORMATION, "Statistics Results", text);
+            logger.info("Reused statistics on column '" + selectedColumn + "' from " + cache + ":\n" + text);
+            stage.close();
+            return;
+        }
 
-            showAlert(Alert.AlertType.INFORMATION, "Statistics Results", resultBuilder.toString());
+        // Compute the rest on a worker thread; the dialog stays responsive and can cancel.
+        // Max and Min alone may be answered without a pass, from the column's zone map.
+        boolean quantiles = false;
+        boolean extremesOnly = true;
+        int extremes = 0;
+        for (String operation : missing) {
+            if (!Double.isNaN(GroupByEngine.quantileOf(operation))) {
+                quantiles = true;
+            } else if (operation.equalsIgnoreCase("max") || operation.equalsIgnoreCase("min")) {
+                extremes++;
+            } else {
+                extremesOnly = false;
+            }
+        }
+        long passes = (quantiles ? 1 : 0) + (extremesOnly ? extremes : 1);
+        boolean summarize = !extremesOnly;
+        Task<String> task = AnalysisExecutor.getDefault().submit("Statistics",
+                passes * source.getData().size(), monitor -> {
+                    TDigest digest = null;
+                    SummaryStatistics summary = null;
+                    for (String operation : missing) {
+                        double quantile = GroupByEngine.quantileOf(operation);
+                        double result;
+                        if (Double.isNaN(quantile) && !summarize) {
+                            result = AnalyticsService.performColumnStatistic(source, operation, selectedColumn,
+                                    monitor);
+                        } else if (Double.isNaN(quantile)) {
+                            if (summary == null) {
+                                summary = summaryOf(source, selectedColumn, cache, monitor);
+                            }
+                            result = AnalyticsService.statisticOf(summary, operation);
+                        } else {
+                            if (digest == null) {
+                                digest = digestOf(source, selectedColumn, cache, monitor);
+                            }
+                            result = digest.quantile(quantile);
+                        }
+                        cache.put(source, canonicalForm(operation, selectedColumn), result, Double.BYTES);
+                        results.put(operation, result);
+                    }
+                    return formatResults(operations, selectedColumn, results);
+                });
+        task.setOnSucceeded(e -> {
+            setRunning(null);
+            showAlert(Alert.AlertType.INFORMATION, "Statistics Results", task.getValue());
 
             // Log the statistics results
-            logger.info("Performed statistics on column '" + selectedColumn + "':\n" + resultBuilder.toString());
+            logger.info("Performed statistics on column '" + selectedColumn + "':\n" + task.getValue());
 
             // Close the dialog
             stage.close();
+        });
+        task.setOnCancelled(e -> {
+            setRunning(null);
+            logger.info("Statistics cancelled.");
+        });
+        task.setOnFailed(e -> {
+            setRunning(null);
+            Throwable error = task.getException();
+            showAlert(Alert.AlertType.ERROR, "Statistics Error", "An error occurred: " + error.getMessage());
+            logger.log(Level.SEVERE, "Statistics operation error:", error);
+        });
+        stage.setOnHidden(e -> task.cancel());
+        setRunning(task);
+    }
+
+    /**
+     * Describes a statistic of a column, usable as a cache key.
+     *
+     * @param operation The operation (e.g., "Sum").
+     * @param column    The column name.
+     * @return The canonical form.
+     */
+    private static String canonicalForm(String operation, String column) {
+        return "statistic:" + operation.toLowerCase() + "(" + column + ")";
+    }
 
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Statistics Error", "An error occurred: " + e.getMessage());
-            logger.log(Level.SEVERE, "Statistics operation error:", e);
+    /**
+     * Retrieves the summary statistics of a column from the cache, computing and
+     * caching them if needed. Runs on a worker thread.
+     *
+     * @param source  The data.
+     * @param column  The column name.
+     * @param cache   The cache.
+     * @param monitor Receives progress and can cancel the pass.
+     * @return The summary statistics of the column.
+     */
+    private static SummaryStatistics summaryOf(Analytics<DataRow> source, String column, QueryCache cache,
+            ProgressMonitor monitor) {
+        String operation = canonicalForm("summary", column);
+        SummaryStatistics summary = cache.get(source, operation);
+        if (summary == null) {
+            summary = AnalyticsService.summarizeColumn(source, column, monitor);
+            cache.put(source, operation, summary, 64);
+        }
+        return summary;
+    }
+
+    /**
+     * Retrieves the digest of a column from the cache, computing and caching it
+     * if needed. Runs on a worker thread.
+     *
+     * @param source  The data.
+     * @param column  The column name.
+     * @param cache   The cache.
+     * @param monitor Receives progress and can cancel the pass.
+     * @return The digest of the column.
+     */
+    private static TDigest digestOf(Analytics<DataRow> source, String column, QueryCache cache,
+            ProgressMonitor monitor) {
+        String operation = canonicalForm("digest", column);
+        TDigest digest = cache.get(source, operation);
+        if (digest == null) {
+            digest = AnalyticsService.computeDigest(source, column, monitor);
+            cache.put(source, operation, digest, digest.estimateBytes());
+        }
+        return digest;
+    }
+
+    /**
+     * Formats statistics results, one line per operation.
+     *
+     * @param operations The operations, in display order.
+     * @param column     The column name.
+     * @param results    The result of every operation.
+     * @return The formatted results.
+     */
+    private static String formatResults(List<String> operations, String column, Map<String, Double> results) {
+        StringBuilder resultBuilder = new StringBuilder();
+        for (String operation : operations) {
+            resultBuilder.append(operation).append(" of '").append(DataUtil.toTitleCase(column)).append("': ")
+                    .append(results.get(operation).doubleValue()).append("\n");
+        }
+        return resultBuilder.toString();
+    }
+
+    /**
+     * Switches the dialog between editing and waiting for a statistics job.
+     *
+     * @param task The running job, or null when none is running.
+     */
+    private void setRunning(Task<String> task) {
+        statisticsTask = task;
+        applyStatisticsButton.setDisable(task != null);
+        progressBar.setVisible(task != null);
+        progressBar.setManaged(task != null);
+        if (task != null) {
+            progressBar.progressProperty().bind(task.progressProperty());
+        } else {
+            progressBar.progressProperty().unbind();
         }
     }
 
@@ -107,6 +276,11 @@ public class StatisticsDialogController {
      */
     @FXML
     private void handleCancel() {
+        if (statisticsTask != null) {
+            // Cancel the running operations but keep the dialog open
+            statisticsTask.cancel();
+            return;
+        }
         stage.close();
     }
 
@@ -0,0 +1,167 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.DataRow;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.Node;
+import javafx.scene.control.*;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller for the Top Rows Dialog, which keeps the first rows of the order
+ * by one column, such as the 100 largest values of a column. Only those rows
+ * are ordered: one pass keeps the best rows so far in a bounded heap instead
+ * of sorting all data.
+ */
+public class TopRowsDialogController {
+
+    @FXML
+    private ComboBox<String> columnComboBox;
+
+    @FXML
+    private TextField countField;
+
+    @FXML
+    private CheckBox largestFirstCheckBox;
+
+    @FXML
+    private Button applyButton;
+
+    @FXML
+    private ProgressBar progressBar;
+
+    private Task<Analytics<DataRow>> topTask; // Running top rows job, if any
+
+    private Analytics<DataRow> analytics;
+    private Analytics<DataRow> topAnalytics;
+
+    private static final Logger logger = Logger.getLogger(TopRowsDialogController.class.getName());
+
+    /**
+     * Sets the Analytics instance and populates the column ComboBox.
+     *
+     * @param analytics Analytics instance containing data.
+     */
+    public void setAnalytics(Analytics<DataRow> analytics) {
+        this.analytics = analytics;
+        List<String> columns = new ArrayList<>();
+        if (!analytics.getData().isEmpty()) {
+            columns.addAll(analytics.getData().get(0).getFields().keySet());
+        }
+        columnComboBox.setItems(FXCollections.observableArrayList(columns));
+        if (!columns.isEmpty()) {
+            columnComboBox.getSelectionModel().selectFirst();
+        }
+    }
+
+    /**
+     * Handles keeping the top rows.
+     */
+    @FXML
+    private void handleApply(ActionEvent event) {
+        String column = columnComboBox.getValue();
+        if (column == null || column.isEmpty()) {
+            showAlert(Alert.AlertType.ERROR, "Input Error", "Please select a column.");
+            return;
+        }
+        int count;
+        try {
+            count = Integer.parseInt(countField.getText().trim());
+        } catch (NumberFormatException e) {
+            count = -1;
+        }
+        if (count <= 0) {
+            showAlert(Alert.AlertType.ERROR, "Input Error", "Please enter a positive number of rows.");
+            return;
+        }
+
+        // Select on a worker thread; the dialog stays responsive and can cancel
+        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+        Analytics<DataRow> source = analytics;
+        int k = count;
+        boolean descending = largestFirstCheckBox.isSelected();
+        Task<Analytics<DataRow>> task = AnalysisExecutor.getDefault().submit("Top Rows", -1,
+                monitor -> AnalyticsService.topByColumn(source, column, k, descending));
+        task.setOnSucceeded(e -> {
+            topAnalytics = task.getValue();
+            setRunning(null);
+            stage.close();
+            logger.info("Kept the top " + k + " rows by column '" + column + "'.");
+        });
+        task.setOnCancelled(e -> {
+            setRunning(null);
+            logger.info("Top rows cancelled.");
+        });
+        task.setOnFailed(e -> {
+            setRunning(null);
+            showAlert(Alert.AlertType.ERROR, "Top Rows Error", "An error occurred while selecting the top rows.");
+            logger.log(Level.SEVERE, "Error selecting top rows:", task.getException());
+        });
+        stage.setOnHidden(e -> task.cancel());
+        setRunning(task);
+    }
+
+    /**
+     * Switches the dialog between editing and waiting for a top rows job.
+     *
+     * @param task The running job, or null when none is running.
+     */
+    private void setRunning(Task<Analytics<DataRow>> task) {
+        topTask = task;
+        applyButton.setDisable(task != null);
+        progressBar.setVisible(task != null);
+        progressBar.setManaged(task != null);
+        if (task != null) {
+            progressBar.progressProperty().bind(task.progressProperty());
+        } else {
+            progressBar.progressProperty().unbind();
+        }
+    }
+
+    /**
+     * Handles canceling the top rows operation.
+     */
+    @FXML
+    private void handleCancel(ActionEvent event) {
+        if (topTask != null) {
+            // Cancel the running job but keep the dialog open
+            topTask.cancel();
+            return;
+        }
+        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+        stage.close();
+    }
+
+    /**
+     * Retrieves the top rows.
+     *
+     * @return An Analytics view of the top rows, in order, or null if the
+     *         dialog was cancelled.
+     */
+    public Analytics<DataRow> getTopAnalytics() {
+        return topAnalytics;
+    }
+
+    /**
+     * Displays an alert dialog.
+     *
+     * @param alertType Type of alert.
+     * @param title     Title of the dialog.
+     * @param message   Content message.
+     */
+    private void showAlert(Alert.AlertType alertType, String title, String message) {
+        Alert alert = new Alert(alertType);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -1,6 +1,11 @@
 package com.assignment2.analytics;
 
+import com.assignment2.util.IndexSort;
+import com.assignment2.util.RadixSort;
+import com.assignment2.util.SummaryStatistics;
+
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.*;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
@@ -8,37 +13,279 @@ import java.util.stream.Collectors;
 /**
  * Generic Analytics class for performing operations on data.
  *
+ * An instance is either a list of records or a view: an array of positions
+ * into the records of a shared base list that never changes. Filtering and
+ * sorting create views, and views of views map their positions straight to the
+ * base, so a chain of filters and sorts allocates only int arrays and never
+ * copies a record list.
+ *
  * @param <T> The type of data records.
  */
 public class Analytics<T> {
+    private static final AtomicLong versions = new AtomicLong();
+
+    private final List<T> base; // Shared by all views; never modified
+    private final int[] positions; // Positions in base, or null for all of base
     private final List<T> data;
+    private final long version = versions.incrementAndGet();
 
+    /**
+     * Creates an instance over a copy of the records.
+     *
+     * @param records The records.
+     */
     public Analytics(List<T> records) {
-        this.data = new ArrayList<>(records);
+        this(new ArrayList<>(records), null);
+    }
+
+    private Analytics(List<T> base, int[] positions) {
+        this.base = base;
+        this.positions = positions;
+        this.data = positions == null ? Collections.unmodifiableList(base) : new PositionList<>(base, positions);
+    }
+
+    /**
+     * Creates an instance over a list without copying it, for lists that
+     * nothing will modify, such as the rows of a DataTable or a freshly built
+     * result list.
+     *
+     * @param records The records; must never change.
+     * @param <T>     The type of data records.
+     * @return A new Analytics instance backed by the list.
+     */
+    public static <T> Analytics<T> wrap(List<T> records) {
+        return new Analytics<>(records, null);
     }
 
     public List<T> getData() {
-        return Collections.unmodifiableList(data);
+        return data;
+    }
+
+    /**
+     * Checks whether this instance holds exactly the records of a list, in
+     * their order, because it was {@link #wrap(List) wrapped} around that very
+     * list. Takes constant time; an instance that merely holds the same records
+     * some other way, such as a filter that kept every record, is not
+     * recognized.
+     *
+     * @param records The list.
+     * @return True if this instance wraps the list itself.
+     */
+    public boolean covers(List<?> records) {
+        return positions == null && base == records;
+    }
+
+    /**
+     * Checks whether all records of this instance come from a list, because it
+     * was {@link #wrap(List) wrapped} around that very list or is a view of such
+     * an instance. Like {@link #covers(List)} this takes constant time.
+     *
+     * @param records The list.
+     * @return True if this instance wraps the list or is a view of it.
+     */
+    public boolean isBackedBy(List<?> records) {
+        return base == records;
     }
 
+    /**
+     * Retrieves the positions of this instance's records in a list it is
+     * {@link #isBackedBy(List) backed by}, so that callers learn where every
+     * record sits without visiting one.
+     *
+     * @param records The list.
+     * @return The position in the list of every record, in order, or null if
+     *         this instance is not backed by the list.
+     */
+    public int[] positionsIn(List<?> records) {
+        if (base != records) {
+            return null;
+        }
+        if (positions != null) {
+            return positions.clone();
+        }
+        int[] all = new int[base.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    /**
+     * Retrieves the positions of this instance's records in the data of
+     * another instance backed by the same list, such as the instance this one
+     * was sorted or filtered from.
+     *
+     * @param other The other instance.
+     * @return The position in {@code other.getData()} of every record, in
+     *         order, or null if the instances are backed by different lists.
+     *         Records the other instance lacks get -1; a record it holds more
+     *         than once gets its last position.
+     */
+    public int[] positionsIn(Analytics<T> other) {
+        if (other.base != base) {
+            return null;
+        }
+        if (other.positions == null) {
+            return positionsIn(base);
+        }
+        int[] inverse = new int[base.size()];
+        Arrays.fill(inverse, -1);
+        for (int i = 0; i < other.positions.length; i++) {
+            inverse[other.positions[i]] = i;
+        }
+        int[] mapped = new int[data.size()];
+        for (int i = 0; i < mapped.length; i++) {
+            mapped[i] = inverse[positions != null ? positions[i] : i];
+        }
+        return mapped;
+    }
+
+    /**
+     * Creates a view of some of the records, in the given order, without
+     * copying them.
+     *
+     * @param selected Positions of records in {@link #getData()}; only the first
+     *                 count are used and the array is not kept.
+     * @param count    The number of positions.
+     * @return A new Analytics instance sharing this instance's records.
+     * @throws IndexOutOfBoundsException If a position is out of range.
+     */
+    public Analytics<T> select(int[] selected, int count) {
+        int size = data.size();
+        int[] mapped = new int[count];
+        for (int i = 0; i < count; i++) {
+            int position = selected[i];
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException("Position " + position + " out of range [0, " + size + ")");
+            }
+            mapped[i] = positions != null ? positions[position] : position;
+        }
+        return new Analytics<>(base, mapped);
+    }
+
+    /**
+     * Retrieves the version of this dataset, unique within the running
+     * application. The records an instance holds, and their order, never change
+     * after it is constructed: views share their base list but never modify it,
+     * and {@link #wrap(List)} requires a list that nothing modifies. Results
+     * computed from an instance, such as those kept by a query cache, thus stay
+     * valid for as long as its version is in use.
+     *
+     * @return The dataset version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts a lazy query over this data: filters, maps and sorts are collected
+     * into a plan that is optimized and run in as few passes as possible when a
+     * terminal operation is called.
+     *
+     * @return An empty plan over this data.
+     */
+    public LazyAnalytics<T> lazy() {
+        return new LazyAnalytics<>(this);
+    }
+
+    /**
+     * Keeps the records matching the provided predicate.
+     *
+     * @param predicate Predicate to apply for filtering.
+     * @return A new Analytics view of the matching records, in order.
+     */
     public Analytics<T> filter(Predicate<T> predicate) {
-        List<T> filtered = data.stream()
-                .filter(predicate)
-                .collect(Collectors.toList());
-        return new Analytics<>(filtered);
+        int[] selected = new int[data.size()];
+        int count = 0;
+        for (int i = 0; i < selected.length; i++) {
+            if (predicate.test(data.get(i))) {
+                selected[count++] = i;
+            }
+        }
+        return select(selected, count);
     }
 
     /**
-     * Sorts the data based on the provided comparator.
+     * Sorts the data based on the provided comparator. The sort is stable.
+     * Records that can be given sort keys are sorted faster by
+     * {@link #sortByKeys(long[], int)}.
      *
      * @param comparator Comparator to define the sort order.
-     * @return A new Analytics instance containing the sorted data.
+     * @return A new Analytics view of the records in sorted order.
      */
     public Analytics<T> sortBy(Comparator<T> comparator) {
-        List<T> sorted = data.stream()
-                .sorted(comparator)
-                .collect(Collectors.toList());
-        return new Analytics<>(sorted);
+        int[] order = new int[data.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = positions != null ? positions[i] : i;
+        }
+        IndexSort.sort(order, (a, b) -> comparator.compare(base.get(a), base.get(b)));
+        return new Analytics<>(base, order);
+    }
+
+    /**
+     * Sorts the data by one unsigned key per record without comparing records:
+     * the positions are radix sorted by the keys on all cores, in a few linear
+     * passes. The sort is stable, so sorting by the least significant key
+     * first and the most significant last sorts by all of them.
+     *
+     * @param keys     The key of every record, in the order of
+     *                 {@link #getData()}; compared as unsigned and not kept.
+     * @param keyBytes The number of low-order key bytes in use, 1 to 8.
+     * @return A new Analytics view of the records in key order.
+     * @throws IllegalArgumentException If there are fewer keys than records.
+     */
+    public Analytics<T> sortByKeys(long[] keys, int keyBytes) {
+        int size = data.size();
+        if (keys.length < size) {
+            throw new IllegalArgumentException(keys.length + " keys for " + size + " records");
+        }
+        long[] sortKeys = Arrays.copyOf(keys, size);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = positions != null ? positions[i] : i;
+        }
+        RadixSort.parallelSort(sortKeys, order, size, keyBytes);
+        return new Analytics<>(base, order);
+    }
+
+    /**
+     * Keeps the first k records of the order a stable sort by the comparator
+     * would give, without sorting all records: one pass keeps the best records
+     * so far in a bounded heap.
+     *
+     * @param k          The number of records to keep, at least 0.
+     * @param comparator Comparator to define the sort order.
+     * @return A new Analytics view of at most k records in sorted order.
+     * @throws IllegalArgumentException If k is negative.
+     */
+    public Analytics<T> topK(int k, Comparator<T> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative k: " + k);
+        }
+        int[] top = IndexSort.top(data.size(), k, (a, b) -> comparator.compare(data.get(a), data.get(b)));
+        return select(top, top.length);
+    }
+
+    /**
+     * Keeps the k records with the smallest keys, in the order of
+     * {@link #sortByKeys(long[], int)}, without sorting all records.
+     *
+     * @param k    The number of records to keep, at least 0.
+     * @param keys The key of every record, in the order of {@link #getData()};
+     *             compared as unsigned.
+     * @return A new Analytics view of at most k records in key order.
+     * @throws IllegalArgumentException If k is negative or there are fewer keys
+     *                                  than records.
+     */
+    public Analytics<T> topK(int k, long[] keys) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative k: " + k);
+        }
+        if (keys.length < data.size()) {
+            throw new IllegalArgumentException(keys.length + " keys for " + data.size() + " records");
+        }
+        int[] top = IndexSort.top(data.size(), k, (a, b) -> Long.compareUnsigned(keys[a], keys[b]));
+        return select(top, top.length);
     }
 
     /**
@@ -112,6 +359,20 @@ public class Analytics<T> {
         return min.isPresent() ? Optional.of(min.getAsDouble()) : Optional.empty();
     }
 
+    /**
+     * Collects the count, sum, average, extremes and variance of a numeric field
+     * in one pass, instead of one pass for each of {@link #sum},
+     * {@link #average}, {@link #max} and {@link #min}.
+     *
+     * @param mapper Function to extract the numeric value from each record.
+     * @return The statistics of the mapped numeric values.
+     */
+    public SummaryStatistics summarize(ToDoubleFunction<T> mapper) {
+        return data.stream()
+                .mapToDouble(mapper)
+                .collect(SummaryStatistics::new, SummaryStatistics::accept, SummaryStatistics::combine);
+    }
+
     /**
      * Counts the number of records that match the provided predicate.
      *
@@ -132,10 +393,11 @@ public class Analytics<T> {
      * @return A new Analytics instance containing the mapped data.
      */
     public <R> Analytics<R> map(Function<T, R> mapper) {
-        List<R> mapped = data.stream()
-                .map(mapper)
-                .collect(Collectors.toList());
-        return new Analytics<>(mapped);
+        List<R> mapped = new ArrayList<>(data.size());
+        for (T record : data) {
+            mapped.add(mapper.apply(record));
+        }
+        return wrap(mapped);
     }
 
     /**
@@ -221,4 +483,27 @@ public class Analytics<T> {
         return data.stream()
                 .noneMatch(predicate);
     }
+
+    /**
+     * Read-only list of the records of a view.
+     */
+    private static final class PositionList<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> base;
+        private final int[] positions;
+
+        PositionList(List<T> base, int[] positions) {
+            this.base = base;
+            this.positions = positions;
+        }
+
+        @Override
+        public T get(int index) {
+            return base.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
 }
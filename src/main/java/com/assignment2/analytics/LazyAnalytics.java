@@ -0,0 +1,399 @@
+package com.assignment2.analytics;
+
+import com.assignment2.util.IndexSort;
+import com.assignment2.util.SummaryStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Lazy counterpart of {@link Analytics}, created by {@link Analytics#lazy()}.
+ * {@link #filter}, {@link #map} and {@link #sortBy} only add a step to a
+ * logical plan; the data is read when a terminal operation such as
+ * {@link #toAnalytics()}, {@link #count()} or {@link #groupBy} runs.
+ *
+ * Before running, the plan is optimized:
+ * <ul>
+ * <li>filters move ahead of sorts, so fewer records are sorted;</li>
+ * <li>adjacent sorts merge into one sort by the last comparator, with the
+ * earlier ones breaking ties, which is the order stable sorts would give;</li>
+ * <li>terminals that ignore order drop the sorts, and {@link #count()} drops
+ * the maps whose results no filter reads;</li>
+ * <li>the filters and maps between two sorts are fused into one pass that
+ * takes each record through all of them.</li>
+ * </ul>
+ * A chain without sorts is thus one scan of the data, and a chain of filters
+ * and sorts without maps yields an Analytics view that shares the source's
+ * records. Functions passed to a plan must not have side effects, as they may
+ * be skipped or run in a different order than written.
+ *
+ * Plans are immutable: every step returns a new LazyAnalytics, so a plan can be
+ * extended in several ways and run several times.
+ *
+ * @param <T> The type of data records.
+ */
+public final class LazyAnalytics<T> {
+    private final Analytics<?> source;
+    private final List<Step> steps;
+
+    LazyAnalytics(Analytics<?> source) {
+        this(source, Collections.emptyList());
+    }
+
+    private LazyAnalytics(Analytics<?> source, List<Step> steps) {
+        this.source = source;
+        this.steps = steps;
+    }
+
+    /**
+     * Adds a filter to the plan.
+     *
+     * @param predicate Predicate the records must match.
+     * @return The extended plan.
+     */
+    public LazyAnalytics<T> filter(Predicate<? super T> predicate) {
+        return then(new Step(Kind.FILTER, predicate));
+    }
+
+    /**
+     * Adds a map to the plan.
+     *
+     * @param mapper Function to transform each record.
+     * @param <R>    Type of the resulting records.
+     * @return The extended plan.
+     */
+    public <R> LazyAnalytics<R> map(Function<? super T, ? extends R> mapper) {
+        return then(new Step(Kind.MAP, mapper));
+    }
+
+    /**
+     * Adds a stable sort to the plan.
+     *
+     * @param comparator Comparator to define the sort order.
+     * @return The extended plan.
+     */
+    public LazyAnalytics<T> sortBy(Comparator<? super T> comparator) {
+        return then(new Step(Kind.SORT, comparator));
+    }
+
+    /**
+     * Runs the plan. Without maps in the plan, the result is a view of the
+     * source's records.
+     *
+     * @return A new Analytics instance containing the resulting records.
+     */
+    @SuppressWarnings("unchecked")
+    public Analytics<T> toAnalytics() {
+        List<Step> plan = optimize(true, false);
+        if (!hasMap(plan)) {
+            int[] positions = new int[source.getData().size()];
+            int[] count = new int[1];
+            run(plan, (position, record) -> positions[count[0]++] = position);
+            return (Analytics<T>) source.select(positions, count[0]);
+        }
+        List<T> records = new ArrayList<>();
+        run(plan, (position, record) -> records.add((T) record));
+        return Analytics.wrap(records);
+    }
+
+    /**
+     * Counts the resulting records.
+     *
+     * @return The count.
+     */
+    public long count() {
+        long[] count = new long[1];
+        run(optimize(false, true), (position, record) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Calculates the sum of a numeric field of the resulting records. Sorts are
+     * skipped, so the last bits may differ from summing in sorted order.
+     *
+     * @param mapper Function to extract the numeric value from each record.
+     * @return The sum of the mapped numeric values.
+     */
+    public double sum(ToDoubleFunction<? super T> mapper) {
+        return summarize(mapper).getSum();
+    }
+
+    /**
+     * Calculates the average of a numeric field of the resulting records.
+     *
+     * @param mapper Function to extract the numeric value from each record.
+     * @return The average of the mapped numeric values, or 0.0 if no data is
+     *         present.
+     */
+    public double average(ToDoubleFunction<? super T> mapper) {
+        return summarize(mapper).getAverage();
+    }
+
+    /**
+     * Finds the maximum value of a numeric field of the resulting records.
+     *
+     * @param mapper Function to extract the numeric value from each record.
+     * @return An Optional containing the maximum value, or empty if no data is
+     *         present.
+     */
+    public Optional<Double> max(ToDoubleFunction<? super T> mapper) {
+        SummaryStatistics statistics = summarize(mapper);
+        return statistics.getCount() > 0 ? Optional.of(statistics.getMax()) : Optional.empty();
+    }
+
+    /**
+     * Finds the minimum value of a numeric field of the resulting records.
+     *
+     * @param mapper Function to extract the numeric value from each record.
+     * @return An Optional containing the minimum value, or empty if no data is
+     *         present.
+     */
+    public Optional<Double> min(ToDoubleFunction<? super T> mapper) {
+        SummaryStatistics statistics = summarize(mapper);
+        return statistics.getCount() > 0 ? Optional.of(statistics.getMin()) : Optional.empty();
+    }
+
+    /**
+     * Collects the count, sum, average, extremes and variance of a numeric field
+     * of the resulting records in one pass. Sorts are skipped, as for
+     * {@link #sum}.
+     *
+     * @param mapper Function to extract the numeric value from each record.
+     * @return The statistics of the mapped numeric values.
+     */
+    @SuppressWarnings("unchecked")
+    public SummaryStatistics summarize(ToDoubleFunction<? super T> mapper) {
+        SummaryStatistics statistics = new SummaryStatistics();
+        run(optimize(false, false), (position, record) -> statistics.accept(mapper.applyAsDouble((T) record)));
+        return statistics;
+    }
+
+    /**
+     * Groups the resulting records, in order, and applies the given collector to
+     * every group.
+     *
+     * @param keyMapper Function to extract the grouping key from each record.
+     * @param collector Collector to apply to the grouped data.
+     * @param <K>       Type of the grouping key.
+     * @param <U>       Type of the collector result.
+     * @return A map of grouped keys to the collector results.
+     */
+    public <K, U> Map<K, U> groupBy(Function<T, K> keyMapper, Collector<T, ?, U> collector) {
+        return collect(Collectors.groupingBy(keyMapper, collector));
+    }
+
+    /**
+     * Collects the resulting records, in order, using the provided collector.
+     *
+     * @param collector Collector to apply to the data.
+     * @param <R>       Type of the collected result.
+     * @return The collected result.
+     */
+    public <R> R collect(Collector<T, ?, R> collector) {
+        return collectWith(collector);
+    }
+
+    /**
+     * Describes the optimized plan that {@link #toAnalytics()} runs, one pass or
+     * sort per arrow (e.g., "scan -> filter+map -> sort -> map").
+     *
+     * @return The description.
+     */
+    public String explain() {
+        StringBuilder plan = new StringBuilder("scan");
+        boolean inPass = false;
+        for (Step step : optimize(true, false)) {
+            if (step.kind == Kind.SORT) {
+                plan.append(" -> sort");
+                inPass = false;
+            } else {
+                plan.append(inPass ? "+" : " -> ").append(step.kind == Kind.FILTER ? "filter" : "map");
+                inPass = true;
+            }
+        }
+        return plan.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "LazyAnalytics[" + explain() + "]";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <A, R> R collectWith(Collector<T, A, R> collector) {
+        A container = collector.supplier().get();
+        BiConsumer<A, T> accumulator = collector.accumulator();
+        run(optimize(true, false), (position, record) -> accumulator.accept(container, (T) record));
+        return collector.finisher().apply(container);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private <R> LazyAnalytics<R> then(Step step) {
+        List<Step> extended = new ArrayList<>(steps);
+        extended.add(step);
+        return new LazyAnalytics<>(source, Collections.unmodifiableList(extended));
+    }
+
+    /**
+     * Rewrites the plan for a terminal operation.
+     *
+     * @param ordered   Whether the terminal depends on the order of records.
+     * @param countOnly Whether the terminal only counts records.
+     * @return The optimized steps.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Step> optimize(boolean ordered, boolean countOnly) {
+        List<Step> plan = new ArrayList<>(steps);
+
+        // Filters commute with stable sorts; bubble each one ahead of the sorts before it
+        for (int i = 1; i < plan.size(); i++) {
+            for (int j = i; j > 0 && plan.get(j).kind == Kind.FILTER && plan.get(j - 1).kind == Kind.SORT; j--) {
+                Collections.swap(plan, j, j - 1);
+            }
+        }
+
+        // Sorting by a, then stably by b, orders by b with ties broken by a
+        for (int i = plan.size() - 1; i > 0; i--) {
+            if (plan.get(i).kind == Kind.SORT && plan.get(i - 1).kind == Kind.SORT) {
+                Comparator<Object> first = (Comparator<Object>) plan.get(i - 1).function;
+                Comparator<Object> last = (Comparator<Object>) plan.get(i).function;
+                plan.set(i - 1, new Step(Kind.SORT, last.thenComparing(first)));
+                plan.remove(i);
+            }
+        }
+
+        if (!ordered) {
+            plan.removeIf(step -> step.kind == Kind.SORT);
+        }
+        if (countOnly) {
+            // Maps after the last filter do not change how many records there are
+            int last = plan.size() - 1;
+            while (last >= 0 && plan.get(last).kind != Kind.FILTER) {
+                plan.remove(last--);
+            }
+        }
+        return plan;
+    }
+
+    private static boolean hasMap(List<Step> plan) {
+        for (Step step : plan) {
+            if (step.kind == Kind.MAP) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs an optimized plan and passes every resulting record, in order, to a
+     * sink together with the position of the source record it came from.
+     */
+    @SuppressWarnings("unchecked")
+    private void run(List<Step> plan, Sink sink) {
+        List<?> data = source.getData();
+        int count = data.size();
+        int[] positions = null; // Null while every source record is still present, in order
+        Object[] records = null; // Null while the records are the source's own
+
+        int from = 0;
+        while (true) {
+            int to = from;
+            while (to < plan.size() && plan.get(to).kind != Kind.SORT) {
+                to++;
+            }
+            Step[] pass = plan.subList(from, to).toArray(new Step[0]);
+            boolean last = to == plan.size();
+            boolean maps = records != null || hasMap(Arrays.asList(pass));
+
+            // One fused pass through the filters and maps up to the next sort
+            int[] keptPositions = last ? null : new int[count];
+            Object[] keptRecords = last || !maps ? null : new Object[count];
+            int kept = 0;
+            for (int k = 0; k < count; k++) {
+                int position = positions != null ? positions[k] : k;
+                Object record = records != null ? records[k] : data.get(position);
+                boolean keep = true;
+                for (int s = 0; s < pass.length && keep; s++) {
+                    if (pass[s].kind == Kind.FILTER) {
+                        keep = ((Predicate<Object>) pass[s].function).test(record);
+                    } else {
+                        record = ((Function<Object, Object>) pass[s].function).apply(record);
+                    }
+                }
+                if (!keep) {
+                    continue;
+                }
+                if (last) {
+                    sink.accept(position, record);
+                } else {
+                    keptPositions[kept] = position;
+                    if (keptRecords != null) {
+                        keptRecords[kept] = record;
+                    }
+                    kept++;
+                }
+            }
+            if (last) {
+                return;
+            }
+
+            // Sort the survivors through an index permutation
+            Comparator<Object> comparator = (Comparator<Object>) plan.get(to).function;
+            int[] order = new int[kept];
+            for (int k = 0; k < kept; k++) {
+                order[k] = k;
+            }
+            Object[] sortRecords = keptRecords;
+            int[] sortPositions = keptPositions;
+            IndexSort.sort(order, sortRecords != null
+                    ? (a, b) -> comparator.compare(sortRecords[a], sortRecords[b])
+                    : (a, b) -> comparator.compare(data.get(sortPositions[a]), data.get(sortPositions[b])));
+            positions = new int[kept];
+            records = sortRecords != null ? new Object[kept] : null;
+            for (int k = 0; k < kept; k++) {
+                positions[k] = sortPositions[order[k]];
+                if (records != null) {
+                    records[k] = sortRecords[order[k]];
+                }
+            }
+            count = kept;
+            from = to + 1;
+        }
+    }
+
+    private enum Kind {
+        FILTER, MAP, SORT
+    }
+
+    /**
+     * One step of a plan: a Predicate, Function or Comparator on the records.
+     */
+    private static final class Step {
+        private final Kind kind;
+        private final Object function;
+
+        Step(Kind kind, Object function) {
+            this.kind = kind;
+            this.function = function;
+        }
+    }
+
+    /**
+     * Receives the records a plan produces.
+     */
+    private interface Sink {
+        void accept(int position, Object record);
+    }
+}
@@ -0,0 +1,82 @@
+package com.assignment2.model;
+
+import com.assignment2.util.RoaringBitmap;
+
+/**
+ * Bitmap index of a low-cardinality STRING column: one compressed bitmap of row
+ * indexes per dictionary code, plus one of all non-null rows. A condition on the
+ * column's values resolves to a union of code bitmaps instead of a scan.
+ */
+public class BitmapIndex {
+    private final RoaringBitmap[] bitmaps;
+    private final RoaringBitmap nonNull;
+
+    /**
+     * Builds the index of a column in one pass over its codes.
+     *
+     * @param column The column to index.
+     */
+    BitmapIndex(StringColumn column) {
+        bitmaps = new RoaringBitmap[column.getDictionary().size()];
+        for (int code = 0; code < bitmaps.length; code++) {
+            bitmaps[code] = new RoaringBitmap();
+        }
+        nonNull = new RoaringBitmap();
+        for (int row = 0; row < column.size(); row++) {
+            if (!column.isNull(row)) {
+                bitmaps[column.getCode(row)].add(row);
+                nonNull.add(row);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the rows holding a value.
+     *
+     * @param code The dictionary code of the value.
+     * @return The bitmap of row indexes; must not be modified.
+     */
+    public RoaringBitmap get(int code) {
+        return bitmaps[code];
+    }
+
+    /**
+     * Retrieves the rows whose value is flagged. When most codes are flagged the
+     * result is computed as the non-null rows minus the unflagged codes, so both
+     * "=" and "!=" conditions touch only a few bitmaps.
+     *
+     * @param matches Flags indexed by dictionary code, as returned by
+     *                {@link StringColumn#matchCodes(java.util.function.Predicate)}.
+     * @return The bitmap of matching row indexes; must not be modified.
+     */
+    public RoaringBitmap select(boolean[] matches) {
+        int matched = 0;
+        for (boolean match : matches) {
+            matched += match ? 1 : 0;
+        }
+        boolean complement = matched * 2 > matches.length;
+        RoaringBitmap result = null;
+        for (int code = 0; code < matches.length; code++) {
+            if (matches[code] != complement) {
+                result = result == null ? bitmaps[code] : result.or(bitmaps[code]);
+            }
+        }
+        if (complement) {
+            return result == null ? nonNull : nonNull.andNot(result);
+        }
+        return result == null ? new RoaringBitmap() : result;
+    }
+
+    /**
+     * Estimates the heap used by the index.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long estimateBytes() {
+        long bytes = 16L + 8L * bitmaps.length + nonNull.estimateBytes();
+        for (RoaringBitmap bitmap : bitmaps) {
+            bytes += bitmap.estimateBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,71 @@
+package com.assignment2.model;
+
+/**
+ * Column of BOOLEAN values backed by a boolean array.
+ */
+public class BooleanColumn extends Column {
+    private final boolean[] values;
+
+    BooleanColumn(boolean[] values, int size, long[] nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public DataRow.DataType getType() {
+        return DataRow.DataType.BOOLEAN;
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    /**
+     * Retrieves the primitive value at a row. The result is undefined for null
+     * rows.
+     *
+     * @param row The row index.
+     * @return The boolean value.
+     */
+    public boolean getBoolean(int row) {
+        return values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        // Booleans are not numeric, matching DataUtil.parseSafeDouble
+        return 0.0;
+    }
+
+    boolean[] rawValues() {
+        return values;
+    }
+
+    /**
+     * Keeps the rows whose value equals, or differs from, a constant, compacting
+     * the selection in place. Null rows never match.
+     *
+     * @param value The constant to compare with.
+     * @param equal True to keep equal values, false to keep different ones.
+     * @param rows  Row indexes to test; overwritten with the matching rows.
+     * @param count The number of row indexes.
+     * @return The number of matching rows now at the start of rows.
+     */
+    public int select(boolean value, boolean equal, int[] rows, int count) {
+        count = removeNulls(rows, count);
+        boolean wanted = value == equal;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            rows[kept] = row;
+            kept += values[row] == wanted ? 1 : 0;
+        }
+        return kept;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 16L + values.length;
+    }
+}
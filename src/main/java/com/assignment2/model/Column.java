@@ -0,0 +1,192 @@
+package com.assignment2.model;
+
+import com.assignment2.util.DataUtil;
+
+/**
+ * Immutable, typed storage for the values of one column of a DataTable. Each
+ * concrete column keeps its values in a single primitive array; missing values
+ * are tracked in a bitmap that is only allocated when the column has nulls.
+ */
+public abstract class Column {
+    protected final int size;
+    protected final long[] nulls;
+    private volatile SortedIndex sortedIndex;
+    private volatile ZoneMap zoneMap;
+
+    protected Column(int size, long[] nulls) {
+        this.size = size;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Retrieves the number of values in the column.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the value at a row is missing.
+     *
+     * @param row The row index.
+     * @return True if the value is null, else false.
+     */
+    public boolean isNull(int row) {
+        return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Checks whether the column contains any missing values.
+     *
+     * @return True if at least one value is null.
+     */
+    public boolean hasNulls() {
+        return nulls != null;
+    }
+
+    /**
+     * Counts the missing values of the column.
+     *
+     * @return The number of null rows.
+     */
+    public int nullCount() {
+        if (nulls == null) {
+            return 0;
+        }
+        int count = 0;
+        int fullWords = size >>> 6;
+        for (int i = 0; i < fullWords; i++) {
+            count += Long.bitCount(nulls[i]);
+        }
+        if ((size & 63) != 0) {
+            count += Long.bitCount(nulls[fullWords] & ((1L << size) - 1));
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the sorted index of a numeric column, building it on first use.
+     *
+     * @return The SortedIndex, or null if the column is not numeric.
+     */
+    public SortedIndex getSortedIndex() {
+        SortedIndex index = sortedIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = sortedIndex;
+                if (index == null) {
+                    index = buildSortedIndex();
+                    sortedIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether the sorted index has been built, so that
+     * {@link #getSortedIndex()} returns it without sorting the column.
+     *
+     * @return True if the index exists.
+     */
+    public boolean hasSortedIndex() {
+        return sortedIndex != null;
+    }
+
+    /**
+     * Retrieves the zone map of a numeric column, building it on first use.
+     *
+     * @return The ZoneMap, or null if the column is not numeric.
+     */
+    public ZoneMap getZoneMap() {
+        if (getType() != DataRow.DataType.INTEGER && getType() != DataRow.DataType.DOUBLE) {
+            return null;
+        }
+        ZoneMap zones = zoneMap;
+        if (zones == null) {
+            synchronized (this) {
+                zones = zoneMap;
+                if (zones == null) {
+                    zones = new ZoneMap(this);
+                    zoneMap = zones;
+                }
+            }
+        }
+        return zones;
+    }
+
+    /**
+     * Installs a zone map restored from a snapshot instead of building it.
+     *
+     * @param zones The zone map of this column.
+     */
+    void setZoneMap(ZoneMap zones) {
+        zoneMap = zones;
+    }
+
+    /**
+     * Builds the sorted index of the column.
+     *
+     * @return The index, or null if the column type has no order.
+     */
+    protected SortedIndex buildSortedIndex() {
+        return null;
+    }
+
+    /**
+     * Drops null rows from a selection, compacting it in place.
+     *
+     * @param rows  Row indexes; overwritten with the non-null rows.
+     * @param count The number of row indexes.
+     * @return The number of non-null rows now at the start of rows.
+     */
+    protected int removeNulls(int[] rows, int count) {
+        if (nulls == null) {
+            return count;
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            rows[kept] = row;
+            kept += (nulls[row >>> 6] & (1L << row)) == 0 ? 1 : 0;
+        }
+        return kept;
+    }
+
+    /**
+     * Retrieves the data type shared by every value of the column.
+     *
+     * @return The DataType enum.
+     */
+    public abstract DataRow.DataType getType();
+
+    /**
+     * Retrieves the value at a row as an Object, boxing primitives.
+     *
+     * @param row The row index.
+     * @return The value, or null if missing.
+     */
+    public abstract Object getValue(int row);
+
+    /**
+     * Retrieves the value at a row as a double using the same rules as
+     * {@link DataUtil#parseSafeDouble(Object)}.
+     *
+     * @param row The row index.
+     * @return The numeric value, or 0.0 if missing or not numeric.
+     */
+    public double getDouble(int row) {
+        return DataUtil.parseSafeDouble(getValue(row));
+    }
+
+    /**
+     * Estimates the heap used by the column's arrays.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long estimateBytes() {
+        return nulls != null ? 16L + 8L * nulls.length : 0L;
+    }
+}
@@ -0,0 +1,396 @@
+package com.assignment2.model;
+
+import com.assignment2.util.NumberScanner;
+
+import java.util.Arrays;
+
+/**
+ * Append-only builder for a single column. The column type is inferred from the
+ * appended values and widened when a value does not fit the current type:
+ * INTEGER widens to DOUBLE, and any other conflict widens to STRING using the
+ * textual form of the values stored so far.
+ *
+ * Arrays are only ever replaced when they grow or widen, so a column created by
+ * {@link #snapshot()} stays valid while the builder keeps appending.
+ */
+class ColumnBuilder {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private DataRow.DataType type;
+    private int[] ints;
+    private double[] doubles;
+    private boolean[] booleans;
+    private int[] codes;
+    private StringDictionary.Builder dictionary;
+    private long[] nulls;
+    private int size;
+    private int capacity = INITIAL_CAPACITY;
+
+    ColumnBuilder() {
+    }
+
+    /**
+     * Creates a builder whose column is expected to have a given type, so cells
+     * are decoded with the decoder for that type first.
+     *
+     * @param expectedType The expected DataType, or null if unknown.
+     */
+    ColumnBuilder(DataRow.DataType expectedType) {
+        if (expectedType != null) {
+            initType(expectedType);
+        }
+    }
+
+    /**
+     * Retrieves the type inferred so far, or null if only nulls were appended.
+     *
+     * @return The current DataType.
+     */
+    DataRow.DataType getType() {
+        return type;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends an already parsed value, dispatching on its runtime type.
+     *
+     * @param value The value (Integer, Double, Boolean, String or null).
+     */
+    void appendValue(Object value) {
+        if (value == null) {
+            appendNull();
+        } else if (value instanceof Integer) {
+            appendInt((Integer) value);
+        } else if (value instanceof Double) {
+            appendDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            appendBoolean((Boolean) value);
+        } else {
+            appendString(value.toString());
+        }
+    }
+
+    /**
+     * Appends a raw UTF-8 cell, classified with the same rules as
+     * {@link DataRow#addField(String, String)} but on the bytes directly and
+     * without exceptions. Cells matching the column's current type go through a
+     * decoder specialized for that type. String
+     * cells are dictionary-encoded from their bytes without creating a String for
+     * values seen before. Numbers and booleans in a STRING column are stored in
+     * the textual form of their parsed value, so the result does not depend on
+     * where widening happened.
+     *
+     * @param bytes  The buffer holding the trimmed cell.
+     * @param offset Start of the cell.
+     * @param length Length of the cell; 0 means null.
+     */
+    void appendBytes(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            appendNull();
+            return;
+        }
+        // Specialized decoders for the expected type; anything unexpected falls
+        // through to full classification, which widens the column
+        if (type != null) {
+            switch (type) {
+                case INTEGER: {
+                    long intValue = NumberScanner.scanInt(bytes, offset, length);
+                    if (intValue != NumberScanner.NOT_AN_INT) {
+                        ensureCapacity();
+                        ints[size++] = (int) intValue;
+                        return;
+                    }
+                    break;
+                }
+                case DOUBLE:
+                    if (NumberScanner.isDouble(bytes, offset, length)) {
+                        ensureCapacity();
+                        doubles[size++] = NumberScanner.parseDouble(bytes, offset, length);
+                        return;
+                    }
+                    break;
+                case BOOLEAN:
+                    if (NumberScanner.matchesIgnoreCase(bytes, offset, length, "true")
+                            || NumberScanner.matchesIgnoreCase(bytes, offset, length, "false")) {
+                        ensureCapacity();
+                        booleans[size++] = (bytes[offset] | 0x20) == 't';
+                        return;
+                    }
+                    break;
+                default:
+                    if (!mayBeNumberOrBoolean(bytes[offset])) {
+                        ensureCapacity();
+                        codes[size++] = dictionary.encode(bytes, offset, length);
+                        return;
+                    }
+                    break;
+            }
+        }
+        appendClassified(bytes, offset, length);
+    }
+
+    private void appendClassified(byte[] bytes, int offset, int length) {
+        DataRow.DataType cellType = TypeInference.classify(bytes, offset, length);
+        switch (cellType) {
+            case INTEGER:
+                appendInt((int) NumberScanner.scanInt(bytes, offset, length));
+                break;
+            case DOUBLE:
+                appendDouble(NumberScanner.parseDouble(bytes, offset, length));
+                break;
+            case BOOLEAN:
+                appendBoolean((bytes[offset] | 0x20) == 't');
+                break;
+            default:
+                if (type == null) {
+                    initType(DataRow.DataType.STRING);
+                } else if (type != DataRow.DataType.STRING) {
+                    widenToString();
+                }
+                ensureCapacity();
+                codes[size++] = dictionary.encode(bytes, offset, length);
+                break;
+        }
+    }
+
+    private static boolean mayBeNumberOrBoolean(byte first) {
+        switch (first) {
+            case '+':
+            case '-':
+            case '.':
+            case 'N':
+            case 'I':
+            case 't':
+            case 'T':
+            case 'f':
+            case 'F':
+                return true;
+            default:
+                return first >= '0' && first <= '9';
+        }
+    }
+
+    void appendNull() {
+        ensureCapacity();
+        if (nulls == null) {
+            nulls = new long[(capacity + 63) >>> 6];
+        }
+        nulls[size >>> 6] |= 1L << size;
+        if (codes != null) {
+            codes[size] = 0;
+        }
+        size++;
+    }
+
+    void appendInt(int value) {
+        if (type == null) {
+            initType(DataRow.DataType.INTEGER);
+        }
+        switch (type) {
+            case INTEGER:
+                ensureCapacity();
+                ints[size++] = value;
+                break;
+            case DOUBLE:
+                ensureCapacity();
+                doubles[size++] = value;
+                break;
+            case STRING:
+                appendString(Integer.toString(value));
+                break;
+            default:
+                widenToString();
+                appendString(Integer.toString(value));
+                break;
+        }
+    }
+
+    void appendDouble(double value) {
+        if (type == null) {
+            initType(DataRow.DataType.DOUBLE);
+        } else if (type == DataRow.DataType.INTEGER) {
+            widenToDouble();
+        }
+        switch (type) {
+            case DOUBLE:
+                ensureCapacity();
+                doubles[size++] = value;
+                break;
+            case STRING:
+                appendString(Double.toString(value));
+                break;
+            default:
+                widenToString();
+                appendString(Double.toString(value));
+                break;
+        }
+    }
+
+    void appendBoolean(boolean value) {
+        if (type == null) {
+            initType(DataRow.DataType.BOOLEAN);
+        }
+        if (type == DataRow.DataType.BOOLEAN) {
+            ensureCapacity();
+            booleans[size++] = value;
+        } else {
+            if (type != DataRow.DataType.STRING) {
+                widenToString();
+            }
+            appendString(Boolean.toString(value));
+        }
+    }
+
+    void appendString(String value) {
+        if (type == null) {
+            initType(DataRow.DataType.STRING);
+        } else if (type != DataRow.DataType.STRING) {
+            widenToString();
+        }
+        ensureCapacity();
+        codes[size++] = dictionary.encode(value);
+    }
+
+    /**
+     * Creates an immutable column over the values appended so far without
+     * copying them.
+     *
+     * @return The Column.
+     */
+    Column snapshot() {
+        return createColumn();
+    }
+
+    /**
+     * Creates the final column, trimming the arrays to the appended size. The
+     * builder must not be used afterwards.
+     *
+     * @return The Column.
+     */
+    Column build() {
+        if (capacity != size) {
+            capacity = size;
+            if (ints != null) {
+                ints = Arrays.copyOf(ints, size);
+            }
+            if (doubles != null) {
+                doubles = Arrays.copyOf(doubles, size);
+            }
+            if (booleans != null) {
+                booleans = Arrays.copyOf(booleans, size);
+            }
+            if (codes != null) {
+                codes = Arrays.copyOf(codes, size);
+            }
+            if (nulls != null) {
+                nulls = Arrays.copyOf(nulls, (size + 63) >>> 6);
+            }
+        }
+        return createColumn();
+    }
+
+    private Column createColumn() {
+        if (type == null) {
+            // A column without any value is treated as an all-null STRING column
+            initType(DataRow.DataType.STRING);
+        }
+        switch (type) {
+            case INTEGER:
+                return new IntColumn(ints, size, nulls);
+            case DOUBLE:
+                return new DoubleColumn(doubles, size, nulls);
+            case BOOLEAN:
+                return new BooleanColumn(booleans, size, nulls);
+            default:
+                return new StringColumn(codes, size, nulls, dictionary.build());
+        }
+    }
+
+    private void initType(DataRow.DataType newType) {
+        type = newType;
+        switch (newType) {
+            case INTEGER:
+                ints = new int[capacity];
+                break;
+            case DOUBLE:
+                doubles = new double[capacity];
+                break;
+            case BOOLEAN:
+                booleans = new boolean[capacity];
+                break;
+            default:
+                type = DataRow.DataType.STRING;
+                codes = new int[capacity];
+                dictionary = new StringDictionary.Builder();
+                break;
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size < capacity) {
+            return;
+        }
+        capacity = Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+        if (ints != null) {
+            ints = Arrays.copyOf(ints, capacity);
+        }
+        if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, capacity);
+        }
+        if (booleans != null) {
+            booleans = Arrays.copyOf(booleans, capacity);
+        }
+        if (codes != null) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+        if (nulls != null) {
+            nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+        }
+    }
+
+    private boolean isNullAt(int row) {
+        return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private void widenToDouble() {
+        double[] widened = new double[capacity];
+        for (int i = 0; i < size; i++) {
+            widened[i] = ints[i];
+        }
+        doubles = widened;
+        ints = null;
+        type = DataRow.DataType.DOUBLE;
+    }
+
+    private void widenToString() {
+        StringDictionary.Builder dict = new StringDictionary.Builder();
+        int[] widened = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            if (isNullAt(i)) {
+                continue;
+            }
+            String text;
+            switch (type) {
+                case INTEGER:
+                    text = Integer.toString(ints[i]);
+                    break;
+                case DOUBLE:
+                    text = Double.toString(doubles[i]);
+                    break;
+                default:
+                    text = Boolean.toString(booleans[i]);
+                    break;
+            }
+            widened[i] = dict.encode(text);
+        }
+        ints = null;
+        doubles = null;
+        booleans = null;
+        codes = widened;
+        dictionary = dict;
+        type = DataRow.DataType.STRING;
+    }
+}
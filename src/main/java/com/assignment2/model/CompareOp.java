@@ -0,0 +1,92 @@
+package com.assignment2.model;
+
+/**
+ * Comparison operators of numeric filter conditions.
+ */
+public enum CompareOp {
+    LT("<"),
+    GT(">"),
+    LE("<="),
+    GE(">="),
+    EQ("="),
+    NE("!=");
+
+    private final String symbol;
+
+    CompareOp(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Retrieves the symbol shown in the filter dialog.
+     *
+     * @return The operator symbol.
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Looks up an operator by its symbol.
+     *
+     * @param symbol The operator symbol (e.g., "<=").
+     * @return The operator.
+     * @throws IllegalArgumentException If the symbol is unknown.
+     */
+    public static CompareOp fromSymbol(String symbol) {
+        for (CompareOp op : values()) {
+            if (op.symbol.equals(symbol)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported operator: " + symbol);
+    }
+
+    /**
+     * Applies the operator to two int values.
+     *
+     * @param a The left operand.
+     * @param b The right operand.
+     * @return The result of the comparison.
+     */
+    public boolean test(int a, int b) {
+        switch (this) {
+            case LT:
+                return a < b;
+            case GT:
+                return a > b;
+            case LE:
+                return a <= b;
+            case GE:
+                return a >= b;
+            case EQ:
+                return a == b;
+            default:
+                return a != b;
+        }
+    }
+
+    /**
+     * Applies the operator to two double values.
+     *
+     * @param a The left operand.
+     * @param b The right operand.
+     * @return The result of the comparison.
+     */
+    public boolean test(double a, double b) {
+        switch (this) {
+            case LT:
+                return a < b;
+            case GT:
+                return a > b;
+            case LE:
+                return a <= b;
+            case GE:
+                return a >= b;
+            case EQ:
+                return a == b;
+            default:
+                return a != b;
+        }
+    }
+}
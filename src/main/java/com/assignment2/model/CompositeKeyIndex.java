@@ -0,0 +1,132 @@
+package com.assignment2.model;
+
+import com.assignment2.util.ByteKeyGroupTable;
+import com.assignment2.util.LongGroupTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assigns dense group ids, in order of first appearance, to combinations of the
+ * values of several columns. Each column first maps its value to a small id
+ * through a GroupKeyIndex. When the bit widths needed for the largest possible
+ * id of every column add up to at most 63 bits, the ids are packed into one long
+ * and looked up in a LongGroupTable; otherwise they are written as varints into
+ * a reusable buffer and looked up in a ByteKeyGroupTable. Neither path
+ * allocates per row.
+ */
+public class CompositeKeyIndex {
+    private final GroupKeyIndex[] columns;
+    private final int[] shifts;
+    private final LongGroupTable packed;
+    private final ByteKeyGroupTable bytes;
+    private final byte[] buffer;
+    private final List<List<Object>> keys = new ArrayList<>();
+
+    /**
+     * Creates an index over columns of one DataTable.
+     *
+     * @param table   The table.
+     * @param columns The columns whose values form the group key.
+     */
+    public CompositeKeyIndex(DataTable table, List<Column> columns) {
+        this.columns = new GroupKeyIndex[columns.size()];
+        this.shifts = new int[columns.size()];
+        int bits = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            this.columns[i] = new GroupKeyIndex(column);
+            shifts[i] = bits;
+            bits += bitsFor(maxDistinct(column, table.getRowCount()));
+        }
+        if (bits <= 63) {
+            packed = new LongGroupTable();
+            bytes = null;
+            buffer = null;
+        } else {
+            packed = null;
+            bytes = new ByteKeyGroupTable();
+            buffer = new byte[5 * columns.size()];
+        }
+    }
+
+    /**
+     * Retrieves the group id of the values at a row.
+     *
+     * @param row The row index.
+     * @return The dense group id.
+     */
+    public int idOf(int row) {
+        int known = size();
+        int id;
+        if (columns.length == 1) {
+            // A single column's ids already are dense group ids
+            id = columns[0].idOf(row);
+        } else if (packed != null) {
+            long key = 0;
+            for (int i = 0; i < columns.length; i++) {
+                key |= (long) columns[i].idOf(row) << shifts[i];
+            }
+            id = packed.add(key);
+        } else {
+            int length = 0;
+            for (GroupKeyIndex column : columns) {
+                int value = column.idOf(row);
+                while ((value & ~0x7F) != 0) {
+                    buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                    value >>>= 7;
+                }
+                buffer[length++] = (byte) value;
+            }
+            id = bytes.add(buffer, 0, length);
+        }
+        if (id == known) {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = columns[i].keyOf(columns[i].idOf(row));
+            }
+            keys.add(Collections.unmodifiableList(Arrays.asList(values)));
+        }
+        return id;
+    }
+
+    /**
+     * Retrieves the key of a group.
+     *
+     * @param id The group id.
+     * @return The column values of the group, in column order; missing values
+     *         are null.
+     */
+    public List<Object> keyOf(int id) {
+        return keys.get(id);
+    }
+
+    /**
+     * Retrieves the number of groups seen so far.
+     *
+     * @return The group count.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Upper bound for the number of ids a column can produce, including the id
+     * for missing values.
+     */
+    private static long maxDistinct(Column column, int rowCount) {
+        if (column instanceof StringColumn) {
+            return ((StringColumn) column).getDictionary().size() + 1L;
+        }
+        if (column instanceof BooleanColumn) {
+            return 3;
+        }
+        return rowCount + 1L;
+    }
+
+    private static int bitsFor(long distinct) {
+        return 64 - Long.numberOfLeadingZeros(Math.max(0, distinct - 1));
+    }
+}
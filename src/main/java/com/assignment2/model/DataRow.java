@@ -1,16 +1,23 @@
 package com.assignment2.model;
 
-import com.assignment2.util.DataUtil;
+import com.assignment2.util.NumberScanner;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Represents a single row of data with fields and their corresponding types.
+ *
+ * A row either owns its fields, or is a read-only view of one row of a
+ * {@link DataTable}, in which case it holds no values of its own.
  */
 public class DataRow {
-    private Map<String, Object> fields = new HashMap<>();
-    private Map<String, DataType> fieldTypes = new HashMap<>();
+    private final Map<String, Object> fields;
+    private final Map<String, DataType> fieldTypes;
+    private final DataTable table;
+    private final int rowIndex;
 
     public enum DataType {
         STRING,
@@ -20,6 +27,29 @@ public class DataRow {
         DATE // Extend as needed
     }
 
+    /**
+     * Creates an empty row that owns its fields.
+     */
+    public DataRow() {
+        this.fields = new HashMap<>();
+        this.fieldTypes = new HashMap<>();
+        this.table = null;
+        this.rowIndex = -1;
+    }
+
+    /**
+     * Creates a read-only view of a table row.
+     *
+     * @param table    The backing table.
+     * @param rowIndex The row index in the table.
+     */
+    DataRow(DataTable table, int rowIndex) {
+        this.fields = null;
+        this.fieldTypes = null;
+        this.table = table;
+        this.rowIndex = rowIndex;
+    }
+
     /**
      * Adds a field to the DataRow with type inference.
      *
@@ -27,6 +57,9 @@ public class DataRow {
      * @param value The field value as a string.
      */
     public void addField(String key, String value) {
+        if (table != null) {
+            throw new UnsupportedOperationException("Rows backed by a DataTable are read-only.");
+        }
         Object parsedValue = parseValue(value);
         fields.put(key, parsedValue);
         fieldTypes.put(key, determineDataType(parsedValue));
@@ -38,21 +71,17 @@ public class DataRow {
      * @param value The value as a string.
      * @return The parsed value as an Object.
      */
-    private Object parseValue(String value) {
+    static Object parseValue(String value) {
         if (value == null || value.isEmpty()) {
             return null;
         }
-        // Attempt to parse as Integer
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            // Not an Integer
+        // The scanners never throw, so non-numeric values do not cost exceptions
+        long intValue = NumberScanner.scanInt(value);
+        if (intValue != NumberScanner.NOT_AN_INT) {
+            return (int) intValue;
         }
-        // Attempt to parse as Double
-        try {
+        if (NumberScanner.isDouble(value)) {
             return Double.parseDouble(value);
-        } catch (NumberFormatException e) {
-            // Not a Double
         }
         // Attempt to parse as Boolean
         if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
@@ -87,6 +116,10 @@ public class DataRow {
      * @return The field value as an Object.
      */
     public Object getField(String key) {
+        if (table != null) {
+            int column = table.getSchema().indexOf(key);
+            return column >= 0 ? table.getValue(rowIndex, column) : null;
+        }
         return fields.get(key);
     }
 
@@ -97,27 +130,67 @@ public class DataRow {
      * @return The DataType enum.
      */
     public DataType getFieldType(String key) {
+        if (table != null) {
+            int column = table.getSchema().indexOf(key);
+            return column >= 0 ? table.getSchema().getType(column) : null;
+        }
         return fieldTypes.get(key);
     }
 
     /**
-     * Retrieves all fields.
+     * Retrieves all fields. For table-backed rows this is an unmodifiable copy in
+     * column order.
      *
      * @return A map of field names to their values.
      */
     public Map<String, Object> getFields() {
+        if (table != null) {
+            Schema schema = table.getSchema();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                values.put(schema.getColumnName(i), table.getValue(rowIndex, i));
+            }
+            return Collections.unmodifiableMap(values);
+        }
         return fields;
     }
 
     /**
-     * Retrieves all field types.
+     * Retrieves all field types. For table-backed rows this is an unmodifiable
+     * copy in column order.
      *
      * @return A map of field names to their DataType.
      */
     public Map<String, DataType> getFieldTypes() {
+        if (table != null) {
+            Schema schema = table.getSchema();
+            Map<String, DataType> types = new LinkedHashMap<>();
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                types.put(schema.getColumnName(i), schema.getType(i));
+            }
+            return Collections.unmodifiableMap(types);
+        }
         return fieldTypes;
     }
 
+    /**
+     * Retrieves the table backing this row.
+     *
+     * @return The DataTable, or null if the row owns its fields.
+     */
+    public DataTable getTable() {
+        return table;
+    }
+
+    /**
+     * Retrieves the index of this row in its backing table.
+     *
+     * @return The row index, or -1 if the row owns its fields.
+     */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
     /**
      * Checks if a field exists.
      *
@@ -125,6 +198,9 @@ public class DataRow {
      * @return True if the field exists, else false.
      */
     public boolean hasField(String key) {
+        if (table != null) {
+            return table.getSchema().indexOf(key) >= 0;
+        }
         return fields.containsKey(key);
     }
 }
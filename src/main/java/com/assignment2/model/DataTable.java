@@ -0,0 +1,415 @@
+package com.assignment2.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar, immutable in-memory table. Each column is stored in one primitive
+ * array (strings are dictionary-coded) and all rows share a single Schema, so a
+ * row costs only the bytes of its values instead of two HashMaps of boxed
+ * objects.
+ *
+ * Rows are exposed as lightweight DataRow views so that existing code working on
+ * {@code Analytics<DataRow>} runs unchanged on a table.
+ */
+public class DataTable {
+    private final Schema schema;
+    private final Column[] columns;
+    private final int rowCount;
+    private final List<DataRow> rows = new RowList();
+
+    public DataTable(Schema schema, Column[] columns, int rowCount) {
+        if (schema.getColumnCount() != columns.length) {
+            throw new IllegalArgumentException("Schema does not match the number of columns.");
+        }
+        this.schema = schema;
+        this.columns = columns.clone();
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Retrieves the schema shared by all rows.
+     *
+     * @return The Schema.
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Retrieves the number of rows.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Retrieves a column by index.
+     *
+     * @param index The column index.
+     * @return The Column.
+     */
+    public Column getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Retrieves a column by name.
+     *
+     * @param name The column name.
+     * @return The Column, or null if the column does not exist.
+     */
+    public Column getColumn(String name) {
+        int index = schema.indexOf(name);
+        return index >= 0 ? columns[index] : null;
+    }
+
+    /**
+     * Retrieves a single value.
+     *
+     * @param row    The row index.
+     * @param column The column index.
+     * @return The value, or null if missing.
+     */
+    public Object getValue(int row, int column) {
+        return columns[column].getValue(row);
+    }
+
+    /**
+     * Creates a DataRow view of a row. The view holds no copy of the values.
+     *
+     * @param row The row index.
+     * @return A read-only DataRow backed by this table.
+     */
+    public DataRow getRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + rowCount + ")");
+        }
+        return new DataRow(this, row);
+    }
+
+    /**
+     * Exposes the table as a list of DataRow views. Views are created on access,
+     * so the list itself does not hold any per-row objects. Every call returns
+     * the same list, so that code holding it can tell by identity, in constant
+     * time, that it has all rows of the table in table order.
+     *
+     * @return A read-only list of rows.
+     */
+    public List<DataRow> rows() {
+        return rows;
+    }
+
+    /**
+     * Estimates the heap used by the table's columns.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long estimateBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.estimateBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Builds a table from existing rows. Columns follow the field order of the
+     * first row; fields first seen in later rows are appended.
+     *
+     * @param rows The rows to convert.
+     * @return A new DataTable.
+     */
+    public static DataTable fromRows(List<DataRow> rows) {
+        Map<String, Integer> names = new LinkedHashMap<>();
+        for (DataRow row : rows) {
+            for (String key : row.getFields().keySet()) {
+                names.putIfAbsent(key, names.size());
+            }
+        }
+        Builder builder = new Builder(new ArrayList<>(names.keySet()));
+        Object[] values = new Object[names.size()];
+        for (DataRow row : rows) {
+            for (Map.Entry<String, Integer> entry : names.entrySet()) {
+                values[entry.getValue()] = row.getField(entry.getKey());
+            }
+            builder.addParsedRow(values);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Concatenates tables with the same column names, in order. Column types are
+     * unified the same way the builder widens them: INTEGER and DOUBLE parts give
+     * DOUBLE, any other mix gives STRING, and parts holding only nulls do not
+     * affect the type. Columns are merged in parallel.
+     *
+     * @param parts The tables to concatenate.
+     * @return A new DataTable holding all rows of the parts.
+     */
+    public static DataTable concat(List<DataTable> parts) {
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("At least one table is required.");
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        Schema first = parts.get(0).getSchema();
+        long total = 0;
+        for (DataTable part : parts) {
+            if (!part.getSchema().getColumnNames().equals(first.getColumnNames())) {
+                throw new IllegalArgumentException("Tables must have the same columns.");
+            }
+            total += part.getRowCount();
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows for one table: " + total);
+        }
+        int rowCount = (int) total;
+        Column[] columns = new Column[first.getColumnCount()];
+        IntStream.range(0, columns.length).parallel()
+                .forEach(c -> columns[c] = concatColumn(parts, c, rowCount));
+
+        String[] names = first.getColumnNames().toArray(new String[0]);
+        DataRow.DataType[] types = new DataRow.DataType[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            types[i] = columns[i].getType();
+        }
+        return new DataTable(new Schema(names, types), columns, rowCount);
+    }
+
+    private static Column concatColumn(List<DataTable> parts, int index, int rowCount) {
+        DataRow.DataType type = null;
+        boolean anyNulls = false;
+        for (DataTable part : parts) {
+            Column column = part.getColumn(index);
+            anyNulls |= column.hasNulls();
+            if (column.nullCount() == column.size()) {
+                continue;
+            }
+            type = TypeInference.widen(type, column.getType());
+        }
+        if (type == null) {
+            type = DataRow.DataType.STRING;
+        }
+
+        long[] nulls = anyNulls ? new long[(rowCount + 63) >>> 6] : null;
+        int[] ints = type == DataRow.DataType.INTEGER ? new int[rowCount] : null;
+        double[] doubles = type == DataRow.DataType.DOUBLE ? new double[rowCount] : null;
+        boolean[] booleans = type == DataRow.DataType.BOOLEAN ? new boolean[rowCount] : null;
+        int[] codes = type == DataRow.DataType.STRING ? new int[rowCount] : null;
+        StringDictionary.Builder dictionary = type == DataRow.DataType.STRING ? new StringDictionary.Builder() : null;
+
+        int offset = 0;
+        for (DataTable part : parts) {
+            Column column = part.getColumn(index);
+            int size = column.size();
+            if (column.hasNulls()) {
+                for (int i = 0; i < size; i++) {
+                    if (column.isNull(i)) {
+                        int row = offset + i;
+                        nulls[row >>> 6] |= 1L << row;
+                    }
+                }
+            }
+            if (column.nullCount() == size) {
+                offset += size;
+                continue;
+            }
+            switch (type) {
+                case INTEGER:
+                    System.arraycopy(((IntColumn) column).rawValues(), 0, ints, offset, size);
+                    break;
+                case DOUBLE:
+                    if (column instanceof IntColumn) {
+                        int[] source = ((IntColumn) column).rawValues();
+                        for (int i = 0; i < size; i++) {
+                            doubles[offset + i] = source[i];
+                        }
+                    } else {
+                        System.arraycopy(((DoubleColumn) column).rawValues(), 0, doubles, offset, size);
+                    }
+                    break;
+                case BOOLEAN:
+                    System.arraycopy(((BooleanColumn) column).rawValues(), 0, booleans, offset, size);
+                    break;
+                default:
+                    if (column instanceof StringColumn) {
+                        StringColumn strings = (StringColumn) column;
+                        StringDictionary source = strings.getDictionary();
+                        int[] remap = new int[source.size()];
+                        for (int code = 0; code < remap.length; code++) {
+                            remap[code] = dictionary.encode(source.getValue(code));
+                        }
+                        int[] sourceCodes = strings.rawCodes();
+                        for (int i = 0; i < size; i++) {
+                            if (!column.isNull(i)) {
+                                codes[offset + i] = remap[sourceCodes[i]];
+                            }
+                        }
+                    } else {
+                        for (int i = 0; i < size; i++) {
+                            if (!column.isNull(i)) {
+                                codes[offset + i] = dictionary.encode(column.getValue(i).toString());
+                            }
+                        }
+                    }
+                    break;
+            }
+            offset += size;
+        }
+
+        switch (type) {
+            case INTEGER:
+                return new IntColumn(ints, rowCount, nulls);
+            case DOUBLE:
+                return new DoubleColumn(doubles, rowCount, nulls);
+            case BOOLEAN:
+                return new BooleanColumn(booleans, rowCount, nulls);
+            default:
+                return new StringColumn(codes, rowCount, nulls, dictionary.build());
+        }
+    }
+
+    /**
+     * Read-only list of DataRow views over the table.
+     */
+    private class RowList extends AbstractList<DataRow> implements RandomAccess {
+        @Override
+        public DataRow get(int index) {
+            return getRow(index);
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
+    }
+
+    /**
+     * Row-at-a-time builder for a DataTable. Column types are inferred from the
+     * values and widened as needed.
+     */
+    public static class Builder {
+        private final String[] names;
+        private final ColumnBuilder[] builders;
+        private int rowCount;
+
+        public Builder(List<String> columnNames) {
+            this(columnNames, null);
+        }
+
+        /**
+         * Creates a builder whose columns are expected to have the given types,
+         * e.g. from a sampling pass. Each column then decodes cells with the
+         * decoder for its type and only widens when a cell does not fit.
+         *
+         * @param columnNames   The column names.
+         * @param expectedTypes The expected type per column (entries may be null
+         *                      if unknown), or null if no types are known.
+         */
+        public Builder(List<String> columnNames, DataRow.DataType[] expectedTypes) {
+            this.names = columnNames.toArray(new String[0]);
+            this.builders = new ColumnBuilder[names.length];
+            for (int i = 0; i < builders.length; i++) {
+                DataRow.DataType expected = expectedTypes != null && i < expectedTypes.length ? expectedTypes[i] : null;
+                builders[i] = new ColumnBuilder(expected);
+            }
+        }
+
+        /**
+         * Retrieves the number of columns.
+         *
+         * @return The column count.
+         */
+        public int getColumnCount() {
+            return names.length;
+        }
+
+        /**
+         * Retrieves the number of rows added so far.
+         *
+         * @return The row count.
+         */
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Adds a row of raw text values, parsing each value with the same rules
+         * as {@link DataRow#addField(String, String)}. Missing trailing values are
+         * treated as empty.
+         *
+         * @param values The raw values in column order.
+         */
+        public void addRow(String[] values) {
+            for (int i = 0; i < builders.length; i++) {
+                String value = i < values.length ? values[i] : null;
+                builders[i].appendValue(DataRow.parseValue(value));
+            }
+            rowCount++;
+        }
+
+        /**
+         * Adds a row of raw UTF-8 cells, as produced by a byte-level CSV reader.
+         * Cells must already be trimmed and unquoted; an empty cell is null and
+         * missing trailing cells are treated as empty.
+         *
+         * @param buffer    The buffer holding the cells.
+         * @param offsets   Start of each cell in the buffer.
+         * @param lengths   Length of each cell.
+         * @param cellCount Number of cells in the row.
+         */
+        public void addRow(byte[] buffer, int[] offsets, int[] lengths, int cellCount) {
+            for (int i = 0; i < builders.length; i++) {
+                if (i < cellCount) {
+                    builders[i].appendBytes(buffer, offsets[i], lengths[i]);
+                } else {
+                    builders[i].appendNull();
+                }
+            }
+            rowCount++;
+        }
+
+        /**
+         * Adds a row of already parsed values (Integer, Double, Boolean, String or
+         * null).
+         *
+         * @param values The values in column order.
+         */
+        public void addParsedRow(Object[] values) {
+            for (int i = 0; i < builders.length; i++) {
+                builders[i].appendValue(i < values.length ? values[i] : null);
+            }
+            rowCount++;
+        }
+
+        /**
+         * Builds the table. The builder must not be used afterwards.
+         *
+         * @return The DataTable.
+         */
+        public DataTable build() {
+            Column[] columns = new Column[builders.length];
+            for (int i = 0; i < builders.length; i++) {
+                columns[i] = builders[i].build();
+            }
+            return create(columns);
+        }
+
+        private DataTable create(Column[] columns) {
+            DataRow.DataType[] types = new DataRow.DataType[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                types[i] = columns[i].getType();
+            }
+            return new DataTable(new Schema(names, types), columns, rowCount);
+        }
+    }
+}
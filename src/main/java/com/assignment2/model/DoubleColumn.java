@@ -0,0 +1,103 @@
+package com.assignment2.model;
+
+/**
+ * Column of DOUBLE values backed by a double array.
+ */
+public class DoubleColumn extends Column {
+    private final double[] values;
+
+    DoubleColumn(double[] values, int size, long[] nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public DataRow.DataType getType() {
+        return DataRow.DataType.DOUBLE;
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return isNull(row) ? 0.0 : values[row];
+    }
+
+    double[] rawValues() {
+        return values;
+    }
+
+    /**
+     * Keeps the rows whose value compares true against a constant, compacting
+     * the selection in place. Null rows never match. Each operator has its own
+     * loop over the primitive array, and rows are kept without branching.
+     *
+     * @param op    The comparison operator.
+     * @param value The constant to compare with.
+     * @param rows  Row indexes to test; overwritten with the matching rows.
+     * @param count The number of row indexes.
+     * @return The number of matching rows now at the start of rows.
+     */
+    public int select(CompareOp op, double value, int[] rows, int count) {
+        count = removeNulls(rows, count);
+        int kept = 0;
+        switch (op) {
+            case LT:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] < value ? 1 : 0;
+                }
+                break;
+            case GT:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] > value ? 1 : 0;
+                }
+                break;
+            case LE:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] <= value ? 1 : 0;
+                }
+                break;
+            case GE:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] >= value ? 1 : 0;
+                }
+                break;
+            case EQ:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] == value ? 1 : 0;
+                }
+                break;
+            default:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] != value ? 1 : 0;
+                }
+                break;
+        }
+        return kept;
+    }
+
+    @Override
+    protected SortedIndex buildSortedIndex() {
+        return SortedIndex.of(this, values);
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 16L + 8L * values.length;
+    }
+}
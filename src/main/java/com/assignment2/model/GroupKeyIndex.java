@@ -0,0 +1,108 @@
+package com.assignment2.model;
+
+import com.assignment2.util.LongGroupTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns dense group ids, in order of first appearance, to the values of one
+ * column without allocating per row. Dictionary-coded strings are resolved
+ * through a direct code-to-id array; int, double and boolean values go through a
+ * LongGroupTable keyed by their primitive bits. A missing value gets its own id.
+ *
+ * The key object of a group is created once, when the group is first seen.
+ */
+public class GroupKeyIndex {
+    private final Column column;
+    private final LongGroupTable table;
+    private final int[] idByCode;
+    private int[] idByTableId = new int[16];
+    private final List<Object> keys = new ArrayList<>();
+    private int nullId = -1;
+
+    /**
+     * Creates an index over a column of a DataTable.
+     *
+     * @param column The column whose values are the group keys.
+     */
+    public GroupKeyIndex(Column column) {
+        this.column = column;
+        if (column instanceof StringColumn) {
+            idByCode = new int[((StringColumn) column).getDictionary().size()];
+            Arrays.fill(idByCode, -1);
+            table = null;
+        } else {
+            idByCode = null;
+            table = new LongGroupTable();
+        }
+    }
+
+    /**
+     * Retrieves the group id of the value at a row.
+     *
+     * @param row The row index.
+     * @return The dense group id.
+     */
+    public int idOf(int row) {
+        if (column.isNull(row)) {
+            if (nullId < 0) {
+                nullId = newId(null);
+            }
+            return nullId;
+        }
+        if (idByCode != null) {
+            int code = ((StringColumn) column).getCode(row);
+            int id = idByCode[code];
+            if (id < 0) {
+                id = newId(column.getValue(row));
+                idByCode[code] = id;
+            }
+            return id;
+        }
+        int known = table.size();
+        int tableId = table.add(keyBits(row));
+        if (tableId == known) {
+            if (tableId == idByTableId.length) {
+                idByTableId = Arrays.copyOf(idByTableId, tableId * 2);
+            }
+            idByTableId[tableId] = newId(column.getValue(row));
+        }
+        return idByTableId[tableId];
+    }
+
+    /**
+     * Retrieves the key of a group.
+     *
+     * @param id The group id.
+     * @return The column value of the group, or null for missing values.
+     */
+    public Object keyOf(int id) {
+        return keys.get(id);
+    }
+
+    /**
+     * Retrieves the number of groups seen so far.
+     *
+     * @return The group count.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    private long keyBits(int row) {
+        if (column instanceof IntColumn) {
+            return ((IntColumn) column).getInt(row);
+        }
+        if (column instanceof BooleanColumn) {
+            return ((BooleanColumn) column).getBoolean(row) ? 1L : 0L;
+        }
+        return Double.doubleToLongBits(column.getDouble(row));
+    }
+
+    private int newId(Object key) {
+        keys.add(key);
+        return keys.size() - 1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.assignment2.model;
+
+/**
+ * Column of INTEGER values backed by an int array.
+ */
+public class IntColumn extends Column {
+    private final int[] values;
+
+    IntColumn(int[] values, int size, long[] nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public DataRow.DataType getType() {
+        return DataRow.DataType.INTEGER;
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return isNull(row) ? 0.0 : values[row];
+    }
+
+    /**
+     * Retrieves the primitive value at a row. The result is undefined for null
+     * rows.
+     *
+     * @param row The row index.
+     * @return The int value.
+     */
+    public int getInt(int row) {
+        return values[row];
+    }
+
+    int[] rawValues() {
+        return values;
+    }
+
+    /**
+     * Keeps the rows whose value compares true against a constant, compacting
+     * the selection in place. Null rows never match. Each operator has its own
+     * loop over the primitive array, and rows are kept without branching.
+     *
+     * @param op    The comparison operator.
+     * @param value The constant to compare with.
+     * @param rows  Row indexes to test; overwritten with the matching rows.
+     * @param count The number of row indexes.
+     * @return The number of matching rows now at the start of rows.
+     */
+    public int select(CompareOp op, int value, int[] rows, int count) {
+        count = removeNulls(rows, count);
+        int kept = 0;
+        switch (op) {
+            case LT:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] < value ? 1 : 0;
+                }
+                break;
+            case GT:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] > value ? 1 : 0;
+                }
+                break;
+            case LE:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] <= value ? 1 : 0;
+                }
+                break;
+            case GE:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] >= value ? 1 : 0;
+                }
+                break;
+            case EQ:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] == value ? 1 : 0;
+                }
+                break;
+            default:
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    rows[kept] = row;
+                    kept += values[row] != value ? 1 : 0;
+                }
+                break;
+        }
+        return kept;
+    }
+
+    @Override
+    protected SortedIndex buildSortedIndex() {
+        return SortedIndex.of(this, values);
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 16L + 4L * values.length;
+    }
+}
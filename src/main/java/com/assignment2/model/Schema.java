@@ -0,0 +1,77 @@
+package com.assignment2.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes the ordered columns of a DataTable and their data types. A schema is
+ * shared by every row of the table instead of being repeated per row.
+ */
+public class Schema {
+    private final String[] names;
+    private final DataRow.DataType[] types;
+    private final Map<String, Integer> indexByName = new HashMap<>();
+
+    public Schema(String[] names, DataRow.DataType[] types) {
+        if (names.length != types.length) {
+            throw new IllegalArgumentException("Column names and types must have the same length.");
+        }
+        this.names = names.clone();
+        this.types = types.clone();
+        for (int i = 0; i < this.names.length; i++) {
+            indexByName.putIfAbsent(this.names[i], i);
+        }
+    }
+
+    /**
+     * Retrieves the number of columns.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    /**
+     * Retrieves the name of a column.
+     *
+     * @param index The column index.
+     * @return The column name.
+     */
+    public String getColumnName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Retrieves the data type of a column.
+     *
+     * @param index The column index.
+     * @return The DataType enum.
+     */
+    public DataRow.DataType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Looks up the index of a column by name.
+     *
+     * @param name The column name.
+     * @return The column index, or -1 if the column does not exist.
+     */
+    public int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Retrieves all column names in table order.
+     *
+     * @return An unmodifiable list of column names.
+     */
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+}
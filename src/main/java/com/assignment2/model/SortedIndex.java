@@ -0,0 +1,138 @@
+package com.assignment2.model;
+
+import com.assignment2.util.RadixSort;
+import com.assignment2.util.RoaringBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Secondary index of a numeric column: the ids of its non-null rows ordered by
+ * value, in one int array. Rows with equal values stay in row order. A range
+ * condition on the column becomes two binary searches, and the matching rows
+ * are a contiguous slice of the array.
+ */
+public class SortedIndex {
+    private final Column column;
+    private final int[] rows;
+
+    SortedIndex(Column column, int[] rows) {
+        this.column = column;
+        this.rows = rows;
+    }
+
+    /**
+     * Retrieves the number of indexed rows.
+     *
+     * @return The number of non-null rows of the column.
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Finds the slice of rows whose value compares true against a constant.
+     *
+     * @param op    The comparison operator; NE is not a single slice.
+     * @param value The constant to compare with.
+     * @return The slice as {from, to}, or null for NE.
+     */
+    public int[] range(CompareOp op, double value) {
+        switch (op) {
+            case LT:
+                return new int[]{0, firstNotBelow(value, false)};
+            case LE:
+                return new int[]{0, firstNotBelow(value, true)};
+            case GT:
+                return new int[]{firstNotBelow(value, true), rows.length};
+            case GE:
+                return new int[]{firstNotBelow(value, false), rows.length};
+            case EQ:
+                return new int[]{firstNotBelow(value, false), firstNotBelow(value, true)};
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Collects the rows of a slice.
+     *
+     * @param from Start of the slice.
+     * @param to   End of the slice, exclusive.
+     * @return A bitmap of the row ids.
+     */
+    public RoaringBitmap rowsBetween(int from, int to) {
+        int[] slice = Arrays.copyOfRange(rows, from, to);
+        Arrays.sort(slice);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int row : slice) {
+            bitmap.add(row);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Estimates the heap used by the index.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long estimateBytes() {
+        return 32L + 4L * rows.length;
+    }
+
+    /**
+     * Binary search for the first position whose value is not below the
+     * constant, or, if inclusive, not below or equal to it.
+     */
+    private int firstNotBelow(double value, boolean inclusive) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double current = column.getDouble(rows[middle]);
+            if (current < value || (inclusive && current == value)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Builds the index of an INTEGER column.
+     */
+    static SortedIndex of(IntColumn column, int[] values) {
+        int count = column.size() - column.nullCount();
+        long[] keys = new long[count];
+        int[] rows = new int[count];
+        int next = 0;
+        for (int row = 0; row < column.size(); row++) {
+            if (!column.isNull(row)) {
+                keys[next] = (values[row] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+                rows[next++] = row;
+            }
+        }
+        RadixSort.sort(keys, rows, count, 4);
+        return new SortedIndex(column, rows);
+    }
+
+    /**
+     * Builds the index of a DOUBLE column. NaN values never compare true, so
+     * they are left out like nulls.
+     */
+    static SortedIndex of(DoubleColumn column, double[] values) {
+        long[] keys = new long[column.size()];
+        int[] rows = new int[column.size()];
+        int count = 0;
+        for (int row = 0; row < column.size(); row++) {
+            if (!column.isNull(row) && !Double.isNaN(values[row])) {
+                // Flip the bits so that unsigned order is numeric order
+                long bits = Double.doubleToRawLongBits(values[row]);
+                keys[count] = bits < 0 ? ~bits : bits | Long.MIN_VALUE;
+                rows[count++] = row;
+            }
+        }
+        RadixSort.sort(keys, rows, count, 8);
+        return new SortedIndex(column, Arrays.copyOf(rows, count));
+    }
+}
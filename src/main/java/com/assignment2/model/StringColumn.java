@@ -0,0 +1,131 @@
+package com.assignment2.model;
+
+import java.util.function.Predicate;
+
+/**
+ * Column of STRING values stored as int codes into a shared StringDictionary.
+ */
+public class StringColumn extends Column {
+    private static final int MAX_INDEXED_VALUES = 1 << 16;
+    private static final int MIN_ROWS_PER_INDEXED_VALUE = 16;
+
+    private final int[] codes;
+    private final StringDictionary dictionary;
+    private volatile BitmapIndex bitmapIndex;
+
+    StringColumn(int[] codes, int size, long[] nulls, StringDictionary dictionary) {
+        super(size, nulls);
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public DataRow.DataType getType() {
+        return DataRow.DataType.STRING;
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return isNull(row) ? null : dictionary.getValue(codes[row]);
+    }
+
+    /**
+     * Retrieves the dictionary code at a row. The result is undefined for null
+     * rows.
+     *
+     * @param row The row index.
+     * @return The dictionary code.
+     */
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Retrieves the dictionary shared by the column's values.
+     *
+     * @return The StringDictionary.
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Evaluates a condition once per distinct value instead of once per row.
+     *
+     * @param condition The condition on a String value.
+     * @return Flags indexed by dictionary code, true where the value matches.
+     */
+    public boolean[] matchCodes(Predicate<String> condition) {
+        boolean[] matches = new boolean[dictionary.size()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = condition.test(dictionary.getValue(code));
+        }
+        return matches;
+    }
+
+    /**
+     * Keeps the rows whose dictionary code is flagged, compacting the selection
+     * in place. Null rows never match.
+     *
+     * @param matches Flags indexed by dictionary code, as returned by
+     *                {@link #matchCodes(Predicate)}.
+     * @param rows    Row indexes to test; overwritten with the matching rows.
+     * @param count   The number of row indexes.
+     * @return The number of matching rows now at the start of rows.
+     */
+    public int select(boolean[] matches, int[] rows, int count) {
+        count = removeNulls(rows, count);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            rows[kept] = row;
+            kept += matches[codes[row]] ? 1 : 0;
+        }
+        return kept;
+    }
+
+    /**
+     * Retrieves the bitmap index of the column, building it on first use. Only
+     * low-cardinality columns are indexed: at most 65536 distinct values and, on
+     * average, at least 16 rows per value.
+     *
+     * @return The BitmapIndex, or null if the column has too many distinct
+     *         values.
+     */
+    public BitmapIndex getBitmapIndex() {
+        int distinct = dictionary.size();
+        if (distinct > MAX_INDEXED_VALUES || (long) distinct * MIN_ROWS_PER_INDEXED_VALUE > size) {
+            return null;
+        }
+        BitmapIndex index = bitmapIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = bitmapIndex;
+                if (index == null) {
+                    index = new BitmapIndex(this);
+                    bitmapIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether the bitmap index has been built, so that
+     * {@link #getBitmapIndex()} returns it without a pass over the column.
+     *
+     * @return True if the index exists.
+     */
+    public boolean hasBitmapIndex() {
+        return bitmapIndex != null;
+    }
+
+    int[] rawCodes() {
+        return codes;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 16L + 4L * codes.length + dictionary.estimateBytes();
+    }
+}
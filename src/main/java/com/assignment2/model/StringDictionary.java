@@ -0,0 +1,192 @@
+package com.assignment2.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable dictionary mapping dense int codes to distinct String values. Codes
+ * are assigned in order of first appearance.
+ */
+public class StringDictionary {
+    private final String[] values;
+    private final int size;
+    private volatile Map<String, Integer> codes;
+
+    StringDictionary(String[] values, int size, Map<String, Integer> codes) {
+        this.values = values;
+        this.size = size;
+        this.codes = codes;
+    }
+
+    /**
+     * Retrieves the number of distinct values.
+     *
+     * @return The dictionary size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the value for a code.
+     *
+     * @param code The dictionary code.
+     * @return The String value.
+     */
+    public String getValue(int code) {
+        return values[code];
+    }
+
+    /**
+     * Looks up the code of a value.
+     *
+     * @param value The String value.
+     * @return The code, or -1 if the value is not in the dictionary.
+     */
+    public int lookup(String value) {
+        Map<String, Integer> index = codes;
+        if (index == null) {
+            index = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                index.put(values[i], i);
+            }
+            codes = index;
+        }
+        Integer code = index.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Estimates the heap used by the dictionary, including its String values.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long estimateBytes() {
+        long bytes = 16L + 4L * values.length;
+        for (int i = 0; i < size; i++) {
+            bytes += 40L + values[i].length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Mutable, append-only builder for a StringDictionary. Values are indexed by
+     * their UTF-8 bytes in an open-addressing table, so cells read as raw bytes
+     * only become Strings the first time a distinct value is seen.
+     */
+    static class Builder {
+        private String[] values = new String[16];
+        private byte[][] encoded = new byte[16][];
+        private int[] hashes = new int[16];
+        private int[] slots = newSlots(32);
+        private int size;
+
+        /**
+         * Returns the code of a value, adding it to the dictionary if absent.
+         *
+         * @param value The String value.
+         * @return The dictionary code.
+         */
+        int encode(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return encode(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Returns the code of a UTF-8 encoded value, adding it to the dictionary if
+         * absent.
+         *
+         * @param bytes  The buffer.
+         * @param offset Start of the value.
+         * @param length Length of the value.
+         * @return The dictionary code.
+         */
+        int encode(byte[] bytes, int offset, int length) {
+            int hash = hash(bytes, offset, length);
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            int code;
+            while ((code = slots[slot]) >= 0) {
+                if (hashes[code] == hash && equalBytes(encoded[code], bytes, offset, length)) {
+                    return code;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == values.length) {
+                int grown = values.length * 2;
+                values = Arrays.copyOf(values, grown);
+                encoded = Arrays.copyOf(encoded, grown);
+                hashes = Arrays.copyOf(hashes, grown);
+            }
+            code = size++;
+            encoded[code] = Arrays.copyOfRange(bytes, offset, offset + length);
+            values[code] = new String(encoded[code], StandardCharsets.UTF_8);
+            hashes[code] = hash;
+            slots[slot] = code;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return code;
+        }
+
+        String getValue(int code) {
+            return values[code];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Creates an immutable dictionary over the values added so far.
+         *
+         * @return The StringDictionary.
+         */
+        StringDictionary build() {
+            return new StringDictionary(values, size, null);
+        }
+
+        private void rehash() {
+            int[] grown = newSlots(slots.length * 2);
+            int mask = grown.length - 1;
+            for (int code = 0; code < size; code++) {
+                int slot = hashes[code] & mask;
+                while (grown[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown[slot] = code;
+            }
+            slots = grown;
+        }
+
+        private static int[] newSlots(int capacity) {
+            int[] slots = new int[capacity];
+            Arrays.fill(slots, -1);
+            return slots;
+        }
+
+        private static int hash(byte[] bytes, int offset, int length) {
+            int hash = 1;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            // Spread the bits so that the low bits used for slots are well mixed
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equalBytes(byte[] stored, byte[] bytes, int offset, int length) {
+            if (stored.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (stored[i] != bytes[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
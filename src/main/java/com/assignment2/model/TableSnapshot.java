@@ -0,0 +1,528 @@
+package com.assignment2.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary columnar snapshot of a DataTable imported from a CSV file, so that the
+ * same file can be opened again without parsing it or inferring its types.
+ *
+ * A snapshot starts with a header holding the schema, the size and
+ * modification time of the source file and the options it was parsed with,
+ * followed by one chunk per column. A chunk holds the null bitmap, the values
+ * in their primitive type (ints, doubles, one byte per boolean, or dictionary
+ * codes after the UTF-8 dictionary of a STRING column) and, for numeric
+ * columns, the block statistics of the zone map. All numbers are little-endian
+ * and every section starts at a multiple of 8 bytes. The header and each chunk
+ * carry a CRC32C checksum.
+ *
+ * Opening a snapshot memory-maps the file and copies every chunk straight into
+ * the arrays of its column, checking its checksum on the way; columns are
+ * restored in parallel. A snapshot whose source file has changed size or
+ * modification time since it was written, or that fails a checksum, is not
+ * used. Snapshots are limited to 2 GB; larger tables are never snapshotted.
+ */
+public final class TableSnapshot {
+    private static final Logger logger = Logger.getLogger(TableSnapshot.class.getName());
+
+    /**
+     * System property overriding the directory of {@link #pathFor(Path)}.
+     */
+    public static final String DIRECTORY_PROPERTY = "com.assignment2.snapshotDir";
+
+    private static final byte[] MAGIC = "A2COLSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int HAS_NULLS = 1;
+    private static final int HAS_ZONE_MAP = 2;
+    private static final DataRow.DataType[] TYPES = DataRow.DataType.values();
+
+    private TableSnapshot() {
+    }
+
+    /**
+     * The source file a snapshot was made from, as far as staleness is
+     * concerned: its size and modification time, and the options it was parsed
+     * with.
+     */
+    public static final class Source {
+        private final long size;
+        private final long modified;
+        private final String options;
+
+        private Source(long size, long modified, String options) {
+            this.size = size;
+            this.modified = modified;
+            this.options = options;
+        }
+
+        /**
+         * Describes the current state of a CSV file.
+         *
+         * @param file    The CSV file.
+         * @param options The delimiter and parse mode it is parsed with, in any
+         *                form that differs when they do.
+         * @return The description.
+         * @throws IOException If the file cannot be read.
+         */
+        public static Source of(Path file, String options) throws IOException {
+            return new Source(Files.size(file), Files.getLastModifiedTime(file).toMillis(), options);
+        }
+
+        /**
+         * Retrieves the size of the file.
+         *
+         * @return The size in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        boolean matches(Source other) {
+            return size == other.size && modified == other.modified && options.equals(other.options);
+        }
+    }
+
+    /**
+     * Chooses the snapshot file of a CSV file: a file named after the CSV file
+     * and a hash of its absolute path, in the directory set by the
+     * {@value #DIRECTORY_PROPERTY} system property or else in
+     * ~/.assignment2/snapshots.
+     *
+     * @param source The CSV file.
+     * @return The snapshot path.
+     */
+    public static Path pathFor(Path source) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        Path root = directory != null ? Paths.get(directory)
+                : Paths.get(System.getProperty("user.home"), ".assignment2", "snapshots");
+        Path absolute = source.toAbsolutePath().normalize();
+        return root.resolve(absolute.getFileName() + "-" + Integer.toHexString(absolute.toString().hashCode())
+                + ".snap");
+    }
+
+    /**
+     * Writes a snapshot of a table. The snapshot is written to a temporary file
+     * that then replaces the snapshot file, so readers never see a partial
+     * snapshot. Columns are encoded and written one at a time, so writing takes
+     * no more heap than the largest column.
+     *
+     * Tables whose snapshot would exceed 2 GB are never snapshotted; their size
+     * is computed from the row count, the column types and the dictionaries
+     * before anything is encoded.
+     *
+     * @param table  The table.
+     * @param file   The snapshot file; missing directories are created.
+     * @param source The source file the table was parsed from, described before
+     *               parsing started.
+     * @throws IOException If the snapshot cannot be written or would exceed 2 GB.
+     */
+    public static void write(DataTable table, Path file, Source source) throws IOException {
+        int columnCount = table.getSchema().getColumnCount();
+        int rowCount = table.getRowCount();
+        long[] offsets = new long[columnCount];
+        long[] lengths = new long[columnCount];
+        int[] checksums = new int[columnCount];
+        int headerLength = encodeHeader(table, source, offsets, lengths, checksums).limit();
+        long size = align(headerLength);
+        for (int c = 0; c < columnCount; c++) {
+            size = align(size + chunkLength(table.getColumn(c), rowCount));
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + size + " bytes would exceed 2 GB.");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                long offset = align(headerLength);
+                for (int c = 0; c < columnCount; c++) {
+                    ByteBuffer chunk = encodeColumn(table.getColumn(c), rowCount);
+                    offsets[c] = offset;
+                    lengths[c] = chunk.limit();
+                    checksums[c] = checksum(chunk);
+                    writeFully(channel, chunk, offset);
+                    offset = align(offset + chunk.limit());
+                }
+                writeFully(channel, encodeHeader(table, source, offsets, lengths, checksums), 0);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Opens a snapshot if it is still valid for its source file.
+     *
+     * @param file   The snapshot file.
+     * @param source The current state of the source file.
+     * @return The table, or null if there is no snapshot, or it is stale,
+     *         corrupt or of another format version.
+     * @throws IOException If the snapshot exists but cannot be read.
+     */
+    public static DataTable read(Path file, Source source) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < MAGIC.length + 8) {
+                logger.warning("Ignoring snapshot of unexpected size: " + file);
+                return null;
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || buffer.getInt() != FORMAT_VERSION) {
+            logger.info("Ignoring snapshot of another format: " + file);
+            return null;
+        }
+        int headerLength = buffer.getInt();
+        if (headerLength < 0 || headerLength > buffer.remaining() - Integer.BYTES) {
+            logger.warning("Ignoring corrupt snapshot: " + file);
+            return null;
+        }
+        ByteBuffer header = slice(buffer, buffer.position(), headerLength);
+        buffer.position(buffer.position() + headerLength);
+        if (checksum(header) != buffer.getInt()) {
+            logger.warning("Ignoring snapshot with a bad header checksum: " + file);
+            return null;
+        }
+
+        Source written = new Source(header.getLong(), header.getLong(), readString(header));
+        if (!written.matches(source)) {
+            logger.info("Ignoring stale snapshot: " + file);
+            return null;
+        }
+        int rowCount = header.getInt();
+        int columnCount = header.getInt();
+        String[] names = new String[columnCount];
+        DataRow.DataType[] types = new DataRow.DataType[columnCount];
+        int[] flags = new int[columnCount];
+        ByteBuffer[] chunks = new ByteBuffer[columnCount];
+        int[] checksums = new int[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            names[c] = readString(header);
+            types[c] = TYPES[header.get()];
+            flags[c] = header.get();
+            long offset = header.getLong();
+            long length = header.getLong();
+            checksums[c] = header.getInt();
+            if (offset < 0 || length < 0 || offset + length > buffer.limit()) {
+                logger.warning("Ignoring corrupt snapshot: " + file);
+                return null;
+            }
+            chunks[c] = slice(buffer, (int) offset, (int) length);
+        }
+
+        Column[] columns = new Column[columnCount];
+        boolean[] valid = new boolean[columnCount];
+        IntStream.range(0, columnCount).parallel().forEach(c -> {
+            if (checksum(chunks[c]) == checksums[c]) {
+                valid[c] = true;
+                columns[c] = decodeColumn(chunks[c], types[c], flags[c], rowCount);
+            }
+        });
+        for (int c = 0; c < columnCount; c++) {
+            if (!valid[c]) {
+                logger.warning("Ignoring snapshot with a bad checksum in column '" + names[c] + "': " + file);
+                return null;
+            }
+        }
+        return new DataTable(new Schema(names, types), columns, rowCount);
+    }
+
+    private static ByteBuffer encodeHeader(DataTable table, Source source, long[] offsets, long[] lengths,
+            int[] checksums) {
+        Schema schema = table.getSchema();
+        byte[][] names = new byte[schema.getColumnCount()][];
+        int length = 8 + 8 + stringBytes(source.options) + 4 + 4;
+        for (int c = 0; c < names.length; c++) {
+            names[c] = schema.getColumnName(c).getBytes(StandardCharsets.UTF_8);
+            length += 4 + names[c].length + 1 + 1 + 8 + 8 + 4;
+        }
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4 + 4 + length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(FORMAT_VERSION).putInt(length);
+        int start = header.position();
+        header.putLong(source.size).putLong(source.modified);
+        putString(header, source.options.getBytes(StandardCharsets.UTF_8));
+        header.putInt(table.getRowCount()).putInt(names.length);
+        for (int c = 0; c < names.length; c++) {
+            Column column = table.getColumn(c);
+            putString(header, names[c]);
+            header.put((byte) column.getType().ordinal());
+            header.put((byte) flagsOf(column));
+            header.putLong(offsets[c]).putLong(lengths[c]).putInt(checksums[c]);
+        }
+        header.putInt(checksum(slice(header, start, length)));
+        header.flip();
+        return header;
+    }
+
+    private static int flagsOf(Column column) {
+        return (column.hasNulls() ? HAS_NULLS : 0) | (column.getZoneMap() != null ? HAS_ZONE_MAP : 0);
+    }
+
+    /**
+     * Computes the length of the chunk of a column without encoding it. For a
+     * STRING column the UTF-8 length of the dictionary is counted, which is
+     * exact for well-formed strings and an upper bound otherwise.
+     */
+    private static long chunkLength(Column column, int rowCount) {
+        long dictionaryBytes = 0;
+        int dictionarySize = 0;
+        if (column.getType() == DataRow.DataType.STRING) {
+            StringDictionary dictionary = ((StringColumn) column).getDictionary();
+            dictionarySize = dictionary.size();
+            for (int code = 0; code < dictionarySize; code++) {
+                dictionaryBytes += utf8Length(dictionary.getValue(code));
+            }
+        }
+        return chunkLength(column, rowCount, dictionarySize, dictionaryBytes);
+    }
+
+    private static long chunkLength(Column column, int rowCount, int dictionarySize, long dictionaryBytes) {
+        long length = column.hasNulls() ? 8L * ((rowCount + 63) >>> 6) : 0;
+        switch (column.getType()) {
+            case INTEGER:
+                length += align(4L * rowCount);
+                break;
+            case DOUBLE:
+                length += 8L * rowCount;
+                break;
+            case BOOLEAN:
+                length += align(rowCount);
+                break;
+            default:
+                length += align(4L + 4L * (dictionarySize + 1)) + align(dictionaryBytes) + align(4L * rowCount);
+                break;
+        }
+        ZoneMap zones = column.getZoneMap();
+        if (zones != null) {
+            int blocks = zones.getBlockCount();
+            length += 8 + 16L * blocks + align(8L * blocks);
+        }
+        return length;
+    }
+
+    private static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch < 0x80) {
+                length++;
+            } else if (ch < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(ch) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encodes the chunk of a column: null bitmap, values, then block statistics.
+     */
+    private static ByteBuffer encodeColumn(Column column, int rowCount) throws IOException {
+        int words = (rowCount + 63) >>> 6;
+        ZoneMap zones = column.getZoneMap();
+        byte[][] encoded = null;
+        long dictionaryBytes = 0;
+        if (column.getType() == DataRow.DataType.STRING) {
+            StringDictionary dictionary = ((StringColumn) column).getDictionary();
+            encoded = new byte[dictionary.size()][];
+            for (int code = 0; code < encoded.length; code++) {
+                encoded[code] = dictionary.getValue(code).getBytes(StandardCharsets.UTF_8);
+                dictionaryBytes += encoded[code].length;
+            }
+        }
+        long length = chunkLength(column, rowCount, encoded != null ? encoded.length : 0, dictionaryBytes);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Column of " + length + " bytes exceeds 2 GB.");
+        }
+
+        ByteBuffer chunk = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        if (column.hasNulls()) {
+            chunk.asLongBuffer().put(column.nulls, 0, words);
+            chunk.position(8 * words);
+        }
+        switch (column.getType()) {
+            case INTEGER:
+                chunk.asIntBuffer().put(((IntColumn) column).rawValues(), 0, rowCount);
+                chunk.position(chunk.position() + 4 * rowCount);
+                break;
+            case DOUBLE:
+                chunk.asDoubleBuffer().put(((DoubleColumn) column).rawValues(), 0, rowCount);
+                chunk.position(chunk.position() + 8 * rowCount);
+                break;
+            case BOOLEAN:
+                boolean[] booleans = ((BooleanColumn) column).rawValues();
+                for (int row = 0; row < rowCount; row++) {
+                    chunk.put((byte) (booleans[row] ? 1 : 0));
+                }
+                break;
+            default:
+                chunk.putInt(encoded.length);
+                int end = 0;
+                chunk.putInt(end);
+                for (byte[] value : encoded) {
+                    end += value.length;
+                    chunk.putInt(end);
+                }
+                pad(chunk);
+                for (byte[] value : encoded) {
+                    chunk.put(value);
+                }
+                pad(chunk);
+                chunk.asIntBuffer().put(((StringColumn) column).rawCodes(), 0, rowCount);
+                chunk.position(chunk.position() + 4 * rowCount);
+                break;
+        }
+        pad(chunk);
+        if (zones != null) {
+            int blocks = zones.getBlockCount();
+            chunk.putInt(blocks).putInt(0);
+            chunk.asDoubleBuffer().put(zones.rawMin()).put(zones.rawMax());
+            chunk.position(chunk.position() + 16 * blocks);
+            chunk.asIntBuffer().put(zones.rawNullCounts()).put(zones.rawNanCounts());
+            chunk.position(chunk.position() + 8 * blocks);
+            pad(chunk);
+        }
+        chunk.flip();
+        return chunk;
+    }
+
+    /**
+     * Restores a column from its chunk, in the layout of
+     * {@link #encodeColumn(Column, int)}.
+     */
+    private static Column decodeColumn(ByteBuffer chunk, DataRow.DataType type, int flags, int rowCount) {
+        long[] nulls = null;
+        if ((flags & HAS_NULLS) != 0) {
+            nulls = new long[(rowCount + 63) >>> 6];
+            chunk.asLongBuffer().get(nulls);
+            chunk.position(8 * nulls.length);
+        }
+        Column column;
+        switch (type) {
+            case INTEGER:
+                int[] ints = new int[rowCount];
+                chunk.asIntBuffer().get(ints);
+                chunk.position(chunk.position() + 4 * rowCount);
+                column = new IntColumn(ints, rowCount, nulls);
+                break;
+            case DOUBLE:
+                double[] doubles = new double[rowCount];
+                chunk.asDoubleBuffer().get(doubles);
+                chunk.position(chunk.position() + 8 * rowCount);
+                column = new DoubleColumn(doubles, rowCount, nulls);
+                break;
+            case BOOLEAN:
+                boolean[] booleans = new boolean[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    booleans[row] = chunk.get() != 0;
+                }
+                column = new BooleanColumn(booleans, rowCount, nulls);
+                break;
+            default:
+                int size = chunk.getInt();
+                int[] ends = new int[size + 1];
+                chunk.asIntBuffer().get(ends);
+                chunk.position(chunk.position() + 4 * ends.length);
+                pad(chunk);
+                byte[] bytes = new byte[ends[size]];
+                chunk.get(bytes);
+                pad(chunk);
+                String[] values = new String[size];
+                for (int code = 0; code < size; code++) {
+                    values[code] = new String(bytes, ends[code], ends[code + 1] - ends[code], StandardCharsets.UTF_8);
+                }
+                int[] codes = new int[rowCount];
+                chunk.asIntBuffer().get(codes);
+                chunk.position(chunk.position() + 4 * rowCount);
+                column = new StringColumn(codes, rowCount, nulls, new StringDictionary(values, size, null));
+                break;
+        }
+        pad(chunk);
+        if ((flags & HAS_ZONE_MAP) != 0) {
+            int blocks = chunk.getInt();
+            chunk.getInt();
+            double[] min = new double[blocks];
+            double[] max = new double[blocks];
+            int[] nullCounts = new int[blocks];
+            int[] nanCounts = new int[blocks];
+            chunk.asDoubleBuffer().get(min).get(max);
+            chunk.position(chunk.position() + 16 * blocks);
+            chunk.asIntBuffer().get(nullCounts).get(nanCounts);
+            column.setZoneMap(new ZoneMap(rowCount, min, max, nullCounts, nanCounts));
+        }
+        return column;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        ByteBuffer source = buffer.duplicate();
+        while (source.hasRemaining()) {
+            position += channel.write(source, position);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit(offset + length).position(offset);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static int stringBytes(String value) {
+        return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value.length).put(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static void pad(ByteBuffer buffer) {
+        buffer.position((int) align(buffer.position()));
+    }
+}
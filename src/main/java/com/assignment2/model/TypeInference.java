@@ -0,0 +1,67 @@
+package com.assignment2.model;
+
+import com.assignment2.util.NumberScanner;
+
+/**
+ * Column-wide type inference rules. A cell is classified as INTEGER, DOUBLE,
+ * BOOLEAN or STRING with exception-free scanners, and the types of a column's
+ * cells are combined by widening: INTEGER and DOUBLE give DOUBLE, and any other
+ * mix gives STRING.
+ */
+public class TypeInference {
+
+    /**
+     * Classifies a raw UTF-8 cell.
+     *
+     * @param bytes  The buffer holding the trimmed cell.
+     * @param offset Start of the cell.
+     * @param length Length of the cell.
+     * @return The cell's DataType, or null for an empty cell.
+     */
+    public static DataRow.DataType classify(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return null;
+        }
+        if (NumberScanner.scanInt(bytes, offset, length) != NumberScanner.NOT_AN_INT) {
+            return DataRow.DataType.INTEGER;
+        }
+        if (NumberScanner.isDouble(bytes, offset, length)) {
+            return DataRow.DataType.DOUBLE;
+        }
+        if (NumberScanner.matchesIgnoreCase(bytes, offset, length, "true")
+                || NumberScanner.matchesIgnoreCase(bytes, offset, length, "false")) {
+            return DataRow.DataType.BOOLEAN;
+        }
+        return DataRow.DataType.STRING;
+    }
+
+    /**
+     * Combines two column types into the narrowest type that holds both.
+     *
+     * @param current The type so far, or null if unknown.
+     * @param next    The type to merge in, or null if unknown.
+     * @return The widened type, or null if both are unknown.
+     */
+    public static DataRow.DataType widen(DataRow.DataType current, DataRow.DataType next) {
+        if (current == null || current == next) {
+            return next;
+        }
+        if (next == null) {
+            return current;
+        }
+        if (isNumeric(current) && isNumeric(next)) {
+            return DataRow.DataType.DOUBLE;
+        }
+        return DataRow.DataType.STRING;
+    }
+
+    /**
+     * Checks whether a type is INTEGER or DOUBLE.
+     *
+     * @param type The DataType.
+     * @return True if the type is numeric.
+     */
+    public static boolean isNumeric(DataRow.DataType type) {
+        return type == DataRow.DataType.INTEGER || type == DataRow.DataType.DOUBLE;
+    }
+}
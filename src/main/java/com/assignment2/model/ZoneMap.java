@@ -0,0 +1,186 @@
+package com.assignment2.model;
+
+/**
+ * Block-level metadata of a numeric column. The rows are split into fixed-size
+ * blocks, and for every block the zone map keeps the minimum and maximum of its
+ * values together with its null and NaN counts. Scans use it to skip blocks that
+ * cannot match a condition, or to accept blocks where every row matches, and
+ * MIN/MAX statistics are answered from the block extremes alone.
+ */
+public class ZoneMap {
+    /** Number of rows per block; the last block may be shorter. */
+    public static final int BLOCK_ROWS = 4096;
+
+    /** No row of the block can match. */
+    public static final int NONE = 0;
+    /** Some rows of the block may match. */
+    public static final int SOME = 1;
+    /** Every row of the block matches. */
+    public static final int ALL = 2;
+
+    private final int rowCount;
+    private final double[] min;
+    private final double[] max;
+    private final int[] nullCounts;
+    private final int[] nanCounts;
+
+    /**
+     * Builds the zone map of a numeric column in one pass.
+     *
+     * @param column The column.
+     */
+    ZoneMap(Column column) {
+        rowCount = column.size();
+        int blocks = (rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        min = new double[blocks];
+        max = new double[blocks];
+        nullCounts = new int[blocks];
+        nanCounts = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            int end = Math.min(rowCount, (block + 1) * BLOCK_ROWS);
+            for (int row = block * BLOCK_ROWS; row < end; row++) {
+                if (column.isNull(row)) {
+                    nullCounts[block]++;
+                    continue;
+                }
+                double value = column.getDouble(row);
+                if (Double.isNaN(value)) {
+                    nanCounts[block]++;
+                } else {
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            min[block] = low;
+            max[block] = high;
+        }
+    }
+
+    /**
+     * Restores a zone map from its block statistics, as saved by a
+     * {@link TableSnapshot}.
+     */
+    ZoneMap(int rowCount, double[] min, double[] max, int[] nullCounts, int[] nanCounts) {
+        this.rowCount = rowCount;
+        this.min = min;
+        this.max = max;
+        this.nullCounts = nullCounts;
+        this.nanCounts = nanCounts;
+    }
+
+    /**
+     * Retrieves the number of blocks.
+     *
+     * @return The block count.
+     */
+    public int getBlockCount() {
+        return min.length;
+    }
+
+    /**
+     * Decides whether the rows of a block can match a comparison with a
+     * constant. Null rows never match; NaN values only match NE.
+     *
+     * @param block The block index.
+     * @param op    The comparison operator.
+     * @param value The constant to compare with.
+     * @return {@link #NONE}, {@link #SOME} or {@link #ALL}.
+     */
+    public int match(int block, CompareOp op, double value) {
+        int rows = Math.min(rowCount, (block + 1) * BLOCK_ROWS) - block * BLOCK_ROWS;
+        int nulls = nullCounts[block];
+        int nans = nanCounts[block];
+        boolean hasValues = nulls + nans < rows;
+        double low = min[block];
+        double high = max[block];
+        boolean none;
+        boolean all;
+        switch (op) {
+            case LT:
+                none = !hasValues || low >= value;
+                all = high < value;
+                break;
+            case GT:
+                none = !hasValues || high <= value;
+                all = low > value;
+                break;
+            case LE:
+                none = !hasValues || low > value;
+                all = high <= value;
+                break;
+            case GE:
+                none = !hasValues || high < value;
+                all = low >= value;
+                break;
+            case EQ:
+                none = !hasValues || value < low || value > high;
+                all = low == value && high == value;
+                break;
+            default:
+                // NaN differs from every constant
+                none = nulls == rows || (nans == 0 && low == value && high == value);
+                all = nulls == 0 && (!hasValues || value < low || value > high);
+                return none ? NONE : all ? ALL : SOME;
+        }
+        if (none) {
+            return NONE;
+        }
+        return all && nulls == 0 && nans == 0 ? ALL : SOME;
+    }
+
+    /**
+     * Computes the largest value of the column; nulls count as 0.0, as in
+     * {@link com.assignment2.util.DataUtil#parseSafeDouble(Object)}.
+     *
+     * @return The maximum, NaN if a value is NaN, or NaN for an empty column.
+     */
+    public double max() {
+        return extreme(true);
+    }
+
+    /**
+     * Computes the smallest value of the column; nulls count as 0.0, as in
+     * {@link com.assignment2.util.DataUtil#parseSafeDouble(Object)}.
+     *
+     * @return The minimum, NaN if a value is NaN, or NaN for an empty column.
+     */
+    public double min() {
+        return extreme(false);
+    }
+
+    double[] rawMin() {
+        return min;
+    }
+
+    double[] rawMax() {
+        return max;
+    }
+
+    int[] rawNullCounts() {
+        return nullCounts;
+    }
+
+    int[] rawNanCounts() {
+        return nanCounts;
+    }
+
+    private double extreme(boolean largest) {
+        if (rowCount == 0) {
+            return Double.NaN;
+        }
+        double result = largest ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        for (int block = 0; block < min.length; block++) {
+            if (nanCounts[block] > 0) {
+                return Double.NaN;
+            }
+            double candidate = largest ? max[block] : min[block];
+            if (nullCounts[block] > 0) {
+                candidate = largest ? Math.max(candidate, 0.0) : Math.min(candidate, 0.0);
+            }
+            result = largest ? Math.max(result, candidate) : Math.min(result, candidate);
+        }
+        return result;
+    }
+}
@@ -1,12 +1,20 @@
 package com.assignment2.parser;
 
 import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+import com.assignment2.model.TableSnapshot;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 
 /**
@@ -14,6 +22,38 @@ import java.util.logging.Logger;
  */
 public class CSVParser {
     private static final Logger logger = Logger.getLogger(CSVParser.class.getName());
+    private static final int PROGRESS_ROWS = 8192;
+    // Part of the snapshot options; raise it when the same file would parse into different rows
+    private static final int PARSER_REVISION = 2;
+
+    /**
+     * Strategies for reading a CSV file into a DataTable.
+     *
+     * MAPPED and PARALLEL always give the same rows. BUFFERED gives the same
+     * rows as well for files without quotes or blank lines, but otherwise
+     * differs, so switching a caller between it and the others can change the
+     * imported data:
+     * <ul>
+     *   <li>BUFFERED does not understand quoted fields: quotes stay part of the
+     *       value, a delimiter inside quotes splits the cell, and a line break
+     *       inside quotes ends the record. MAPPED and PARALLEL unquote fields
+     *       and keep delimiters, doubled quotes and line breaks inside them.</li>
+     *   <li>BUFFERED turns an empty line into a row of missing values, while
+     *       MAPPED and PARALLEL skip lines without any bytes before the line
+     *       break.</li>
+     *   <li>BUFFERED splits on a regular expression and decodes the file with
+     *       the platform charset; MAPPED and PARALLEL need a single-byte
+     *       delimiter and read UTF-8.</li>
+     * </ul>
+     */
+    public enum ParseMode {
+        /** Line-based reading through a BufferedReader and String.split. */
+        BUFFERED,
+        /** Byte-level tokenizing of a memory-mapped file. */
+        MAPPED,
+        /** MAPPED tokenizing of record-aligned byte ranges on all cores. */
+        PARALLEL
+    }
 
     /**
      * Parses a CSV file into a list of DataRow objects with type inference.
@@ -51,4 +91,174 @@ public class CSVParser {
         }
         return dataRows;
     }
+
+    /**
+     * Parses a CSV file into a columnar DataTable. Values are parsed with the same
+     * rules as {@link #parseCSVSpecific(String, Class, String)}, but each column
+     * gets a single type, widened when rows disagree (INTEGER to DOUBLE, anything
+     * else to STRING).
+     *
+     * @param filePath  Path to the CSV file.
+     * @param delimiter Delimiter used in the CSV file (e.g., ",").
+     * @return The parsed DataTable.
+     * @throws CSVParsingException If an error occurs during parsing.
+     */
+    public static DataTable parseTable(String filePath, String delimiter) throws CSVParsingException {
+        return parseTable(filePath, delimiter, ParseMode.BUFFERED);
+    }
+
+    /**
+     * Parses a CSV file into a columnar DataTable using the given strategy. The
+     * MAPPED and PARALLEL modes need a single-byte delimiter and fall back to
+     * BUFFERED otherwise; they also understand quoted fields and skip blank lines.
+     * PARALLEL produces the same rows, in the same order and with the same column
+     * types, as MAPPED.
+     *
+     * @param filePath  Path to the CSV file.
+     * @param delimiter Delimiter used in the CSV file (e.g., ",").
+     * @param mode      The parse strategy.
+     * @return The parsed DataTable.
+     * @throws CSVParsingException If an error occurs during parsing.
+     */
+    public static DataTable parseTable(String filePath, String delimiter, ParseMode mode)
+            throws CSVParsingException {
+        return parseTable(filePath, delimiter, mode, null);
+    }
+
+    /**
+     * Parses a CSV file into a columnar DataTable, reporting progress and batches
+     * of rows to a listener that can also cancel the import. PARALLEL mode
+     * delivers rows in many file-ordered batches while the rest of the file is
+     * read; the other modes deliver the whole table as one batch.
+     *
+     * @param filePath  Path to the CSV file.
+     * @param delimiter Delimiter used in the CSV file (e.g., ",").
+     * @param mode      The parse strategy.
+     * @param listener  The listener, or null.
+     * @return The parsed DataTable.
+     * @throws CSVParsingException   If an error occurs during parsing.
+     * @throws CancellationException If the listener cancels the import.
+     */
+    public static DataTable parseTable(String filePath, String delimiter, ParseMode mode, ParseListener listener)
+            throws CSVParsingException {
+        if (mode == ParseMode.MAPPED || mode == ParseMode.PARALLEL) {
+            if (delimiter.length() == 1 && delimiter.charAt(0) < 0x80) {
+                byte delimiterByte = (byte) delimiter.charAt(0);
+                try {
+                    if (mode == ParseMode.PARALLEL) {
+                        return new ParallelCSVReader(Paths.get(filePath), delimiterByte, ForkJoinPool.commonPool(),
+                                listener).read();
+                    }
+                    return MappedCSVReader.read(Paths.get(filePath), delimiterByte, listener);
+                } catch (IOException e) {
+                    logger.severe("Error reading CSV file: " + e.getMessage());
+                    throw new CSVParsingException("Error reading CSV file: " + e.getMessage(), e);
+                }
+            }
+            logger.warning("Delimiter '" + delimiter + "' is not a single byte; using buffered parsing.");
+        }
+        DataTable table = parseBuffered(filePath, delimiter, listener);
+        if (listener != null) {
+            listener.batch(table);
+        }
+        return table;
+    }
+
+    /**
+     * Imports a CSV file into a DataTable, reusing the {@link TableSnapshot} of
+     * an earlier import of the same file when its size and modification time
+     * are unchanged and it was parsed with the same delimiter and mode by this
+     * version of the parser.
+     * Otherwise the file is parsed as by
+     * {@link #parseTable(String, String, ParseMode, ParseListener)} and a new
+     * snapshot is written in the background. A table restored from a snapshot
+     * is reported to the listener as one batch.
+     *
+     * @param filePath  Path to the CSV file.
+     * @param delimiter Delimiter used in the CSV file (e.g., ",").
+     * @param mode      The parse strategy.
+     * @param listener  The listener, or null.
+     * @return The imported DataTable.
+     * @throws CSVParsingException   If an error occurs during parsing.
+     * @throws CancellationException If the listener cancels the import.
+     */
+    public static DataTable importTable(String filePath, String delimiter, ParseMode mode, ParseListener listener)
+            throws CSVParsingException {
+        Path csv = Paths.get(filePath);
+        Path snapshot = TableSnapshot.pathFor(csv);
+        TableSnapshot.Source source;
+        try {
+            source = TableSnapshot.Source.of(csv, mode + " " + delimiter + " r" + PARSER_REVISION);
+        } catch (IOException e) {
+            logger.severe("Error reading CSV file: " + e.getMessage());
+            throw new CSVParsingException("Error reading CSV file: " + e.getMessage(), e);
+        }
+        try {
+            DataTable table = TableSnapshot.read(snapshot, source);
+            if (table != null) {
+                logger.info("Restored " + table.getRowCount() + " rows of " + filePath + " from " + snapshot);
+                if (listener != null) {
+                    listener.progress(source.getSize(), source.getSize());
+                    listener.batch(table);
+                }
+                return table;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Cannot read snapshot " + snapshot + ": " + e.getMessage());
+        }
+
+        DataTable table = parseTable(filePath, delimiter, mode, listener);
+        Thread writer = new Thread(() -> {
+            try {
+                TableSnapshot.write(table, snapshot, source);
+            } catch (IOException | RuntimeException e) {
+                logger.warning("Cannot write snapshot " + snapshot + ": " + e.getMessage());
+            }
+        }, "snapshot-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return table;
+    }
+
+    private static DataTable parseBuffered(String filePath, String delimiter, ParseListener listener)
+            throws CSVParsingException {
+        long totalBytes = new File(filePath).length();
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            String headerLine = br.readLine();
+            if (headerLine == null) {
+                throw new CSVParsingException("CSV file is empty.");
+            }
+            String[] headers = headerLine.split(delimiter);
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = headers[i].trim();
+            }
+            DataTable.Builder builder = new DataTable.Builder(Arrays.asList(headers));
+
+            // Progress counts characters, which matches bytes for ASCII files
+            long charsRead = headerLine.length() + 1;
+            String[] row = new String[headers.length];
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] values = line.split(delimiter);
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = i < values.length ? values[i].trim() : "";
+                }
+                builder.addRow(row);
+                charsRead += line.length() + 1;
+                if (listener != null && builder.getRowCount() % PROGRESS_ROWS == 0) {
+                    if (listener.isCancelled()) {
+                        throw new CancellationException("CSV import cancelled.");
+                    }
+                    listener.progress(Math.min(charsRead, totalBytes), totalBytes);
+                }
+            }
+            if (listener != null) {
+                listener.progress(totalBytes, totalBytes);
+            }
+            return builder.build();
+        } catch (IOException e) {
+            logger.severe("Error reading CSV file: " + e.getMessage());
+            throw new CSVParsingException("Error reading CSV file: " + e.getMessage(), e);
+        }
+    }
 }
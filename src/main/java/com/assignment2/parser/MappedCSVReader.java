@@ -0,0 +1,355 @@
+package com.assignment2.parser;
+
+import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+import com.assignment2.model.TypeInference;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte-level CSV reader over a memory-mapped file. Records are tokenized directly
+ * on the mapped bytes into a reusable buffer and handed to a DataTable.Builder,
+ * so no String is created per line and no cell is decoded to UTF-16 unless it is
+ * a string value seen for the first time.
+ *
+ * Unlike the line-based parser, quoted fields (including delimiters, doubled
+ * quotes and newlines inside quotes) are supported, and blank lines are skipped;
+ * a line holding only spaces or an empty quoted cell is still a row.
+ * Before the rows are read, a sample of the first records decides one type per
+ * column, so every column is decoded by a type-specialized decoder from the
+ * start and rarely has to widen.
+ *
+ * The file is mapped in windows so files larger than 2 GB can be read, and any
+ * byte range starting and ending on record boundaries can be read on its own.
+ */
+class MappedCSVReader {
+    private static final long WINDOW_SIZE = 1L << 28;
+    private static final int SAMPLE_ROWS = 1000;
+    private static final long PROGRESS_STEP = 1L << 20;
+
+    private final FileChannel channel;
+    private final byte delimiter;
+    private final long fileSize;
+    private long rangeEnd;
+
+    private ParseListener listener;
+    private AtomicLong bytesRead;
+    private AtomicBoolean stopped;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLength;
+
+    // Cells of the record being read, stored back to back in one buffer
+    private byte[] cellBytes = new byte[256];
+    private int[] cellOffsets = new int[16];
+    private int[] cellLengths = new int[16];
+    private int cellCount;
+    private int bytesUsed;
+
+    MappedCSVReader(FileChannel channel, byte delimiter) throws IOException {
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.fileSize = channel.size();
+        this.rangeEnd = fileSize;
+    }
+
+    /**
+     * Reads a CSV file into a DataTable.
+     *
+     * @param path      Path to the CSV file.
+     * @param delimiter Single-byte delimiter.
+     * @param listener  Listener for progress and cancellation, or null. The
+     *                  whole table is delivered as one batch.
+     * @return The parsed DataTable.
+     * @throws IOException         If the file cannot be read.
+     * @throws CSVParsingException If the file is empty or malformed.
+     */
+    static DataTable read(Path path, byte delimiter, ParseListener listener) throws IOException, CSVParsingException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedCSVReader reader = new MappedCSVReader(channel, delimiter);
+            reader.setListener(listener, new AtomicLong());
+            DataTable table = reader.readTable();
+            if (listener != null) {
+                listener.batch(table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Reports progress and polls for cancellation while rows are read.
+     *
+     * @param listener  The listener, or null.
+     * @param bytesRead Counter of bytes read, shared by all readers of one file.
+     */
+    void setListener(ParseListener listener, AtomicLong bytesRead) {
+        this.listener = listener;
+        this.bytesRead = bytesRead;
+    }
+
+    /**
+     * Polls a flag while rows are read, so that the reader stops when another
+     * reader of the same file has failed or been cancelled.
+     *
+     * @param stopped The flag, or null.
+     */
+    void setStopFlag(AtomicBoolean stopped) {
+        this.stopped = stopped;
+    }
+
+    private DataTable readTable() throws IOException, CSVParsingException {
+        List<String> headers = new ArrayList<>();
+        long position = readHeader(headers);
+        DataTable.Builder builder = new DataTable.Builder(headers, sampleTypes(position, headers.size()));
+        if (listener != null) {
+            report(position);
+        }
+        readRows(builder, position, fileSize);
+        return builder.build();
+    }
+
+    /**
+     * Reads the header record.
+     *
+     * @param headers List receiving the column names.
+     * @return The file position of the first data record.
+     * @throws CSVParsingException If the file is empty.
+     */
+    long readHeader(List<String> headers) throws IOException, CSVParsingException {
+        rangeEnd = fileSize;
+        long position = nextRecord(skipByteOrderMark());
+        if (position < 0) {
+            throw new CSVParsingException("CSV file is empty.");
+        }
+        for (int i = 0; i < cellCount; i++) {
+            headers.add(new String(cellBytes, cellOffsets[i], cellLengths[i], StandardCharsets.UTF_8));
+        }
+        return position;
+    }
+
+    /**
+     * Infers column types from the first records of the data section. Each cell
+     * is classified with exception-free scanners and the cell types of a column
+     * are widened into one type (INTEGER to DOUBLE to STRING).
+     *
+     * @param start       File position of the first data record.
+     * @param columnCount Number of columns.
+     * @return The sampled type per column; null where only empty cells were seen.
+     */
+    DataRow.DataType[] sampleTypes(long start, int columnCount) throws IOException, CSVParsingException {
+        DataRow.DataType[] types = new DataRow.DataType[columnCount];
+        rangeEnd = fileSize;
+        long position = start;
+        for (int row = 0; row < SAMPLE_ROWS && (position = nextRecord(position)) >= 0; row++) {
+            for (int i = 0; i < columnCount && i < cellCount; i++) {
+                types[i] = TypeInference.widen(types[i],
+                        TypeInference.classify(cellBytes, cellOffsets[i], cellLengths[i]));
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Reads all records of a byte range into a builder. The range must start and
+     * end on record boundaries.
+     *
+     * @param builder Builder receiving the rows.
+     * @param start   File position of the first record.
+     * @param end     File position after the last record.
+     * @throws CancellationException If the listener cancels the import or the
+     *                               stop flag is set.
+     */
+    void readRows(DataTable.Builder builder, long start, long end) throws IOException, CSVParsingException {
+        rangeEnd = end;
+        window = null;
+        windowStart = 0;
+        windowLength = 0;
+        long position = start;
+        long reported = start;
+        while ((position = nextRecord(position)) >= 0) {
+            builder.addRow(cellBytes, cellOffsets, cellLengths, cellCount);
+            if (position - reported >= PROGRESS_STEP) {
+                if (stopped != null && stopped.get()) {
+                    throw new CancellationException("CSV import stopped.");
+                }
+                if (listener != null) {
+                    report(position - reported);
+                }
+                reported = position;
+            }
+        }
+        if (listener != null) {
+            report(end - reported);
+        }
+    }
+
+    private void report(long bytes) {
+        if (listener.isCancelled()) {
+            throw new CancellationException("CSV import cancelled.");
+        }
+        listener.progress(bytesRead.addAndGet(bytes), fileSize);
+    }
+
+    private long skipByteOrderMark() throws IOException {
+        if (fileSize >= 3) {
+            map(0);
+            if (window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+                return 3;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the next non-blank record starting at a file position into the cell
+     * buffer. Only lines without any bytes before the line break are blank; a
+     * record of one empty cell, such as {@code ""}, is a row.
+     *
+     * @param position File position of the record.
+     * @return The file position after the record, or -1 at end of file.
+     */
+    private long nextRecord(long position) throws IOException, CSVParsingException {
+        while (position < rangeEnd) {
+            if (window == null || position < windowStart || position >= windowStart + windowLength) {
+                map(position);
+            }
+            int start = (int) (position - windowStart);
+            int end = tokenize(start);
+            if (end < 0) {
+                // The record runs past the window; remap starting at the record
+                if (position == windowStart) {
+                    throw new CSVParsingException("CSV record at byte " + position + " is too long.");
+                }
+                map(position);
+                continue;
+            }
+            position = windowStart + end;
+            if (cellCount > 1 || cellLengths[0] > 0 || !isLineBreak(start, end)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        windowLength = (int) Math.min(WINDOW_SIZE, rangeEnd - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+    }
+
+    /**
+     * Tokenizes one record of the current window.
+     *
+     * @param start Window offset of the record.
+     * @return Window offset after the record's line break, or -1 if the record is
+     *         not complete within the window.
+     */
+    private int tokenize(int start) {
+        boolean lastWindow = windowStart + windowLength == rangeEnd;
+        MappedByteBuffer buf = window;
+        int limit = windowLength;
+        int pos = start;
+        cellCount = 0;
+        bytesUsed = 0;
+
+        while (true) {
+            int cellStart = bytesUsed;
+            // Leading whitespace is trimmed, as with String.trim()
+            while (pos < limit && isBlank(buf.get(pos))) {
+                pos++;
+            }
+            int keepUntil = cellStart;
+            if (pos < limit && buf.get(pos) == '"') {
+                pos++;
+                boolean closed = false;
+                while (pos < limit) {
+                    byte b = buf.get(pos++);
+                    if (b == '"') {
+                        if (pos < limit && buf.get(pos) == '"') {
+                            append(b);
+                            pos++;
+                        } else {
+                            closed = true;
+                            break;
+                        }
+                    } else {
+                        append(b);
+                    }
+                }
+                if (!closed && !lastWindow) {
+                    return -1;
+                }
+                keepUntil = bytesUsed;
+            }
+            while (pos < limit) {
+                byte b = buf.get(pos);
+                if (b == delimiter || b == '\n') {
+                    break;
+                }
+                append(b);
+                pos++;
+            }
+            // Trailing whitespace (including '\r') is trimmed outside of quotes
+            int cellEnd = bytesUsed;
+            while (cellEnd > keepUntil && isBlank(cellBytes[cellEnd - 1])) {
+                cellEnd--;
+            }
+            addCell(cellStart, cellEnd - cellStart);
+
+            if (pos >= limit) {
+                return lastWindow ? limit : -1;
+            }
+            if (buf.get(pos) == '\n') {
+                return pos + 1;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Checks whether a record of the current window holds nothing but its line
+     * break, "\n" or "\r\n", or is empty at the end of the file.
+     */
+    private boolean isLineBreak(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = window.get(i);
+            if (b != '\n' && !(b == '\r' && i >= end - 2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlank(byte b) {
+        return b >= 0 && b <= ' ' && b != '\n' && b != delimiter;
+    }
+
+    private void append(byte b) {
+        if (bytesUsed == cellBytes.length) {
+            cellBytes = Arrays.copyOf(cellBytes, cellBytes.length * 2);
+        }
+        cellBytes[bytesUsed++] = b;
+    }
+
+    private void addCell(int offset, int length) {
+        if (cellCount == cellOffsets.length) {
+            cellOffsets = Arrays.copyOf(cellOffsets, cellCount * 2);
+            cellLengths = Arrays.copyOf(cellLengths, cellCount * 2);
+        }
+        cellOffsets[cellCount] = offset;
+        cellLengths[cellCount] = length;
+        cellCount++;
+    }
+}
@@ -0,0 +1,364 @@
+package com.assignment2.parser;
+
+import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel CSV import. The data section of the file is split into byte ranges
+ * aligned to record boundaries, each range is tokenized by a MappedCSVReader on
+ * a ForkJoin worker, and the partial tables are concatenated in file order.
+ *
+ * Column types are sampled once from the head of the file and shared by all
+ * ranges, so every range decodes with the same specialized decoders.
+ *
+ * Alignment is quote-aware and follows the tokenizer of MappedCSVReader, in
+ * which only a quote that opens a cell starts a quoted section and any other
+ * quote, as in {@code 27" Monitor}, is a literal. Where a tentative boundary
+ * falls, the tokenizer may be in any of its few states, so a first parallel pass
+ * runs every range from all of them at once and records the state each one
+ * ends in. Chaining these in file order gives the true state at every
+ * tentative boundary, from which the boundary is moved to the next line break
+ * outside quotes.
+ *
+ * The rows, their order and the column types are those of
+ * {@link CSVParser.ParseMode#MAPPED}. That is also what
+ * {@link CSVParser#parseCSVSpecific(String, Class, String)} gives for files
+ * without quotes or blank lines; files with quoted newlines, which ranges must
+ * be aligned around, cannot be read correctly line by line, so MAPPED is the
+ * reference for them.
+ *
+ * With a ParseListener, ranges are capped at a smaller size and every range is
+ * handed to the listener as soon as it and all ranges before it are parsed, so
+ * the first rows are available long before the whole file is read.
+ */
+class ParallelCSVReader {
+    private static final long MIN_CHUNK_SIZE = 4L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final long MAX_PROGRESSIVE_CHUNK_SIZE = 16L << 20;
+
+    // Tokenizer states at a byte position, as in MappedCSVReader.tokenize
+    private static final int CELL_START = 0; // Only blanks so far in this cell
+    private static final int UNQUOTED = 1; // Within the literal part of a cell
+    private static final int QUOTED = 2; // Within a quoted section
+    private static final int QUOTE_IN_QUOTED = 3; // After a quote within a quoted section
+    private static final int STATES = 4;
+
+    // Byte classes driving the state transitions
+    private static final int OTHER = 0;
+    private static final int BLANK = 1;
+    private static final int QUOTE = 2;
+    private static final int DELIMITER = 3;
+    private static final int NEWLINE = 4;
+    private static final int CLASSES = 5;
+
+    private static final int[] NEXT_STATE = new int[STATES * CLASSES];
+    private static final int[] NEXT_MAPPING = new int[(1 << (2 * STATES)) * CLASSES];
+
+    static {
+        for (int state = 0; state < STATES; state++) {
+            for (int byteClass = 0; byteClass < CLASSES; byteClass++) {
+                NEXT_STATE[state * CLASSES + byteClass] = transition(state, byteClass);
+            }
+        }
+        // A mapping packs the current state for each of the four starting states, two bits each
+        for (int mapping = 0; mapping < 1 << (2 * STATES); mapping++) {
+            for (int byteClass = 0; byteClass < CLASSES; byteClass++) {
+                int next = 0;
+                for (int start = 0; start < STATES; start++) {
+                    int state = (mapping >>> (2 * start)) & 3;
+                    next |= NEXT_STATE[state * CLASSES + byteClass] << (2 * start);
+                }
+                NEXT_MAPPING[mapping * CLASSES + byteClass] = next;
+            }
+        }
+    }
+
+    private final Path path;
+    private final byte delimiter;
+    private final ForkJoinPool pool;
+    private final ParseListener listener;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicBoolean stopped = new AtomicBoolean(); // Set once the result is decided
+    private final byte[] byteClasses = new byte[256];
+
+    ParallelCSVReader(Path path, byte delimiter, ForkJoinPool pool) {
+        this(path, delimiter, pool, null);
+    }
+
+    ParallelCSVReader(Path path, byte delimiter, ForkJoinPool pool, ParseListener listener) {
+        this.path = path;
+        this.delimiter = delimiter;
+        this.pool = pool;
+        this.listener = listener;
+        for (int b = 0; b < 256; b++) {
+            byteClasses[b] = (byte) classify((byte) b, delimiter);
+        }
+    }
+
+    /**
+     * Reads the CSV file into a DataTable.
+     *
+     * @return The parsed DataTable, with rows in file order.
+     * @throws IOException         If the file cannot be read.
+     * @throws CSVParsingException If the file is empty or malformed.
+     * @throws CancellationException If the listener cancels the import.
+     */
+    DataTable read() throws IOException, CSVParsingException {
+        List<String> headers = new ArrayList<>();
+        long dataStart;
+        long fileSize;
+        DataRow.DataType[] types;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            MappedCSVReader reader = new MappedCSVReader(channel, delimiter);
+            dataStart = reader.readHeader(headers);
+            types = reader.sampleTypes(dataStart, headers.size());
+        }
+        if (listener != null) {
+            listener.progress(bytesRead.addAndGet(dataStart), fileSize);
+        }
+
+        long[] boundaries = alignedBoundaries(dataStart, fileSize);
+        if (listener != null && listener.isCancelled()) {
+            throw new CancellationException("CSV import cancelled.");
+        }
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            if (boundaries[i] < boundaries[i + 1]) {
+                tasks.add(new ChunkTask(headers, types, boundaries[i], boundaries[i + 1]));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return new DataTable.Builder(headers).build();
+        }
+
+        List<DataTable> parts = new ArrayList<>(tasks.size());
+        for (ChunkTask task : tasks) {
+            pool.execute(task);
+        }
+        try {
+            // Ranges are joined in file order, so batches are delivered in order
+            for (ChunkTask task : tasks) {
+                DataTable part = task.join();
+                parts.add(part);
+                if (listener != null) {
+                    listener.batch(part);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (ChunkFailure e) {
+            throw (CSVParsingException) e.getCause();
+        } finally {
+            // Stops the remaining ranges after a failure or cancellation: queued ones are
+            // cancelled, and running ones see the flag within a megabyte
+            stopped.set(true);
+            for (ChunkTask task : tasks) {
+                task.cancel(false);
+            }
+        }
+        return DataTable.concat(parts);
+    }
+
+    /**
+     * Splits the data section into ranges starting on record boundaries.
+     *
+     * @param dataStart File position of the first data record.
+     * @param fileSize  Size of the file.
+     * @return Ascending boundaries, starting with dataStart and ending with
+     *         fileSize.
+     */
+    private long[] alignedBoundaries(long dataStart, long fileSize) throws IOException {
+        long dataSize = fileSize - dataStart;
+        int targetChunks = pool.getParallelism() * 4;
+        long maxChunkSize = listener != null ? MAX_PROGRESSIVE_CHUNK_SIZE : MAX_CHUNK_SIZE;
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(maxChunkSize, dataSize / Math.max(1, targetChunks)));
+        int chunks = (int) Math.max(1, (dataSize + chunkSize - 1) / chunkSize);
+
+        long[] tentative = new long[chunks + 1];
+        for (int i = 0; i < chunks; i++) {
+            tentative[i] = dataStart + i * chunkSize;
+        }
+        tentative[chunks] = fileSize;
+        if (chunks == 1) {
+            return tentative;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Pass 1: the end state of every tentative range for each start state, in parallel
+            int[] mappings = new int[chunks];
+            runParallel(chunks, i -> mappings[i] = stateMapping(channel, tentative[i], tentative[i + 1]));
+
+            // Pass 2: move every inner boundary to the next line break outside quotes
+            long[] aligned = new long[chunks + 1];
+            aligned[0] = dataStart;
+            aligned[chunks] = fileSize;
+            int[] states = new int[chunks];
+            states[0] = CELL_START;
+            for (int i = 1; i < chunks; i++) {
+                states[i] = (mappings[i - 1] >>> (2 * states[i - 1])) & 3;
+            }
+            runParallel(chunks - 1, i -> aligned[i + 1] = nextRecordStart(channel, tentative[i + 1],
+                    states[i + 1], fileSize));
+            for (int i = 1; i < chunks; i++) {
+                aligned[i] = Math.max(aligned[i], aligned[i - 1]);
+            }
+            return aligned;
+        }
+    }
+
+    /**
+     * Runs the tokenizer states over a byte range from all starting states at
+     * once.
+     *
+     * @return The state at the end of the range for each starting state, packed
+     *         two bits per starting state.
+     */
+    private int stateMapping(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int mapping = CELL_START | UNQUOTED << 2 | QUOTED << 4 | QUOTE_IN_QUOTED << 6;
+        int length = (int) (end - start);
+        for (int i = 0; i < length; i++) {
+            mapping = NEXT_MAPPING[mapping * CLASSES + byteClasses[buf.get(i) & 0xFF]];
+        }
+        return mapping;
+    }
+
+    private long nextRecordStart(FileChannel channel, long start, int state, long fileSize) throws IOException {
+        long position = start;
+        while (position < fileSize) {
+            int length = (int) Math.min(MAX_CHUNK_SIZE, fileSize - position);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                int byteClass = byteClasses[buf.get(i) & 0xFF];
+                if (byteClass == NEWLINE && state != QUOTED) {
+                    return position + i + 1;
+                }
+                state = NEXT_STATE[state * CLASSES + byteClass];
+            }
+            position += length;
+        }
+        return fileSize;
+    }
+
+    private static int classify(byte b, byte delimiter) {
+        if (b == delimiter) {
+            return DELIMITER;
+        }
+        if (b == '\n') {
+            return NEWLINE;
+        }
+        if (b == '"') {
+            return QUOTE;
+        }
+        // Blanks as trimmed by MappedCSVReader
+        return b >= 0 && b <= ' ' ? BLANK : OTHER;
+    }
+
+    private static int transition(int state, int byteClass) {
+        if (state == QUOTED) {
+            return byteClass == QUOTE ? QUOTE_IN_QUOTED : QUOTED;
+        }
+        if (byteClass == DELIMITER || byteClass == NEWLINE) {
+            return CELL_START;
+        }
+        switch (state) {
+            case CELL_START:
+                return byteClass == QUOTE ? QUOTED : byteClass == BLANK ? CELL_START : UNQUOTED;
+            case QUOTE_IN_QUOTED:
+                // A doubled quote is an escaped quote; otherwise the section has closed
+                return byteClass == QUOTE ? QUOTED : UNQUOTED;
+            default:
+                return UNQUOTED;
+        }
+    }
+
+    private void runParallel(int count, IndexedIOAction action) {
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                List<RecursiveTask<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    int index = i;
+                    tasks.add(new RecursiveTask<Void>() {
+                        @Override
+                        protected Void compute() {
+                            try {
+                                action.run(index);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            return null;
+                        }
+                    });
+                }
+                invokeAll(tasks);
+                return null;
+            }
+        });
+    }
+
+    private interface IndexedIOAction {
+        void run(int index) throws IOException;
+    }
+
+    /**
+     * Parses one aligned byte range into its own partial table.
+     */
+    private class ChunkTask extends RecursiveTask<DataTable> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> headers;
+        private final DataRow.DataType[] types;
+        private final long start;
+        private final long end;
+
+        ChunkTask(List<String> headers, DataRow.DataType[] types, long start, long end) {
+            this.headers = headers;
+            this.types = types;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected DataTable compute() {
+            DataTable.Builder builder = new DataTable.Builder(headers, types);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedCSVReader reader = new MappedCSVReader(channel, delimiter);
+                reader.setListener(listener, bytesRead);
+                reader.setStopFlag(stopped);
+                reader.readRows(builder, start, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (CSVParsingException e) {
+                throw new ChunkFailure(e);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Carries a CSVParsingException out of a ForkJoin worker.
+     */
+    private static class ChunkFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ChunkFailure(CSVParsingException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.assignment2.parser;
+
+import com.assignment2.model.DataTable;
+
+/**
+ * Observes a running CSV import: receives byte-based progress and the rows in
+ * file-ordered batches while the rest of the file is still being read, and can
+ * cancel the import.
+ *
+ * In PARALLEL mode the callbacks are made from ForkJoin worker threads, and
+ * {@link #progress(long, long)} may be called from several of them at once.
+ */
+public interface ParseListener {
+
+    /**
+     * Reports how much of the file has been read.
+     *
+     * @param bytesRead  Bytes read so far.
+     * @param totalBytes Size of the file.
+     */
+    default void progress(long bytesRead, long totalBytes) {
+    }
+
+    /**
+     * Delivers the next batch of rows, in file order. Concatenating all batches
+     * gives the rows of the final table, although column types of a batch may be
+     * narrower than those of the final table.
+     *
+     * @param rows The rows of the batch.
+     */
+    default void batch(DataTable rows) {
+    }
+
+    /**
+     * Polled while reading; returning true stops the import with a
+     * {@link java.util.concurrent.CancellationException}.
+     *
+     * @return True if the import should stop.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package com.assignment2.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table that assigns dense ids, in order of first
+ * appearance, to variable-length byte keys. All keys are stored back to back in
+ * one byte array, so adding a key that is already present does not allocate.
+ * Used for composite group keys that do not fit into a single long.
+ */
+public class ByteKeyGroupTable {
+    private static final int EMPTY = -1;
+
+    private byte[] data = new byte[256];
+    private int dataSize;
+    private int[] offsets = new int[17];
+    private int[] hashes = new int[16];
+    private int[] slots = newSlots(32);
+    private int size;
+
+    /**
+     * Returns the id of a key, assigning the next id if the key is new. The key
+     * bytes are copied, so the caller may reuse its buffer.
+     *
+     * @param key    The buffer holding the key.
+     * @param offset Start of the key.
+     * @param length Length of the key.
+     * @return The dense id of the key.
+     */
+    public int add(byte[] key, int offset, int length) {
+        int hash = hash(key, offset, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = slots[slot]) != EMPTY) {
+            if (hashes[id] == hash && equalKey(id, key, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        id = size++;
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            offsets = Arrays.copyOf(offsets, id * 2 + 1);
+        }
+        if (dataSize + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + length));
+        }
+        System.arraycopy(key, offset, data, dataSize, length);
+        dataSize += length;
+        offsets[id + 1] = dataSize;
+        hashes[id] = hash;
+        slots[slot] = id;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Retrieves the number of distinct keys.
+     *
+     * @return The number of ids assigned.
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean equalKey(int id, byte[] key, int offset, int length) {
+        int start = offsets[id];
+        if (offsets[id + 1] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[start + i] != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int[] grown = newSlots(slots.length * 2);
+        int mask = grown.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (grown[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = id;
+        }
+        slots = grown;
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static int hash(byte[] key, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + key[i];
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
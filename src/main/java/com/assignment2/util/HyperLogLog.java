@@ -0,0 +1,256 @@
+package com.assignment2.util;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct values added to it in
+ * fixed memory. Values are added as 64-bit hashes; the first bits of a hash
+ * choose one of 2^precision registers, and the register keeps the longest run
+ * of leading zeros seen in the remaining bits. With the default precision of
+ * 14 the estimate has a standard error of about 0.8% and the sketch never
+ * holds more than 16 KB, however many values are added.
+ *
+ * A sketch starts sparse, storing only the registers that are set in a small
+ * hash table, so that the many small groups of a group-by stay cheap, and
+ * switches to one byte per register once that would take less memory.
+ * Sketches of the same precision are merged by taking the larger of each pair
+ * of registers, which gives the sketch of the union of their values; merging
+ * is therefore order-independent and suits partial results of parallel work.
+ */
+public final class HyperLogLog {
+    /**
+     * Precision used by {@link #HyperLogLog()}.
+     */
+    public static final int DEFAULT_PRECISION = 14;
+
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 18;
+    private static final int RANK_BITS = 6; // Ranks are at most 64 - precision + 1
+    private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+    private static final int INITIAL_SPARSE_SLOTS = 8;
+
+    private final int precision;
+    private int[] sparse; // Open-addressing table of register << RANK_BITS | rank; 0 is empty
+    private int sparseSize;
+    private byte[] registers;
+
+    /**
+     * Creates an empty sketch of the default precision.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision The number of hash bits choosing a register, from 4 to
+     *                  18; the sketch has 2^precision registers.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision out of range: " + precision);
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Spreads the bits of a primitive key, such as an int, the bits of a double
+     * or a dictionary code, into a hash for {@link #add(long)}.
+     *
+     * @param key The key.
+     * @return The 64-bit hash.
+     */
+    public static long hash(long key) {
+        // Finalizer of SplitMix64
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
+
+    /**
+     * Hashes the characters of a text for {@link #add(long)}.
+     *
+     * @param text The text.
+     * @return The 64-bit hash.
+     */
+    public static long hash(CharSequence text) {
+        // FNV-1a over the chars, then mixed so that every bit depends on every char
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return hash(hash);
+    }
+
+    /**
+     * Adds a value by its hash.
+     *
+     * @param hash The 64-bit hash of the value; see {@link #hash(long)}.
+     */
+    public void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        update(register, rank);
+    }
+
+    /**
+     * Adds the values of another sketch to this one.
+     *
+     * @param other A sketch of the same precision. It is not modified.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + precision);
+        }
+        if (other.registers != null) {
+            toDense();
+            for (int register = 0; register < registers.length; register++) {
+                if (other.registers[register] > registers[register]) {
+                    registers[register] = other.registers[register];
+                }
+            }
+        } else if (other.sparse != null) {
+            for (int entry : other.sparse) {
+                if (entry != 0) {
+                    update(entry >>> RANK_BITS, entry & RANK_MASK);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of distinct values added. Small counts are
+     * estimated by linear counting of the empty registers, which is nearly
+     * exact while most registers are empty.
+     *
+     * @return The estimate.
+     */
+    public long estimate() {
+        int m = 1 << precision;
+        double sum = 0;
+        int zeros = 0;
+        if (registers != null) {
+            for (byte rank : registers) {
+                if (rank == 0) {
+                    zeros++;
+                    sum += 1.0;
+                } else {
+                    sum += Math.scalb(1.0, -rank);
+                }
+            }
+        } else {
+            zeros = m - sparseSize;
+            sum = zeros;
+            if (sparse != null) {
+                for (int entry : sparse) {
+                    if (entry != 0) {
+                        sum += Math.scalb(1.0, -(entry & RANK_MASK));
+                    }
+                }
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Retrieves the standard error of the estimate relative to the true count.
+     *
+     * @return 1.04 / sqrt(2^precision).
+     */
+    public double getStandardError() {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    /**
+     * Estimates the heap held by the sketch.
+     *
+     * @return The estimate in bytes.
+     */
+    public long estimateBytes() {
+        long bytes = 32;
+        if (registers != null) {
+            bytes += 16 + registers.length;
+        } else if (sparse != null) {
+            bytes += 16 + 4L * sparse.length;
+        }
+        return bytes;
+    }
+
+    private void update(int register, int rank) {
+        if (registers != null) {
+            if (rank > registers[register]) {
+                registers[register] = (byte) rank;
+            }
+            return;
+        }
+        if (sparse == null) {
+            sparse = new int[INITIAL_SPARSE_SLOTS];
+        }
+        int mask = sparse.length - 1;
+        int slot = spread(register) & mask;
+        int entry;
+        while ((entry = sparse[slot]) != 0) {
+            if (entry >>> RANK_BITS == register) {
+                if (rank > (entry & RANK_MASK)) {
+                    sparse[slot] = register << RANK_BITS | rank;
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        sparse[slot] = register << RANK_BITS | rank;
+        sparseSize++;
+        if (sparseSize * 2 > sparse.length) {
+            // Four bytes a slot at half load: dense registers are smaller from here on
+            if (4L * sparse.length * 2 > 1L << precision) {
+                toDense();
+            } else {
+                growSparse();
+            }
+        }
+    }
+
+    private void growSparse() {
+        int[] grown = new int[sparse.length * 2];
+        int mask = grown.length - 1;
+        for (int entry : sparse) {
+            if (entry != 0) {
+                int slot = spread(entry >>> RANK_BITS) & mask;
+                while (grown[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown[slot] = entry;
+            }
+        }
+        sparse = grown;
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[1 << precision];
+        if (sparse != null) {
+            for (int entry : sparse) {
+                if (entry != 0) {
+                    registers[entry >>> RANK_BITS] = (byte) (entry & RANK_MASK);
+                }
+            }
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static int spread(int register) {
+        return register * 0x9E3779B9 >>> 16;
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog[precision=" + precision + ", estimate=" + estimate() + "]";
+    }
+}
@@ -0,0 +1,149 @@
+package com.assignment2.util;
+
+/**
+ * Stable merge sort of int arrays with a comparator on the ints, for ordering
+ * row positions by the rows they stand for without boxing them. Short runs are
+ * insertion sorted, then merged bottom-up through a single scratch array, and
+ * runs that are already in order are not merged at all.
+ */
+public final class IndexSort {
+    private static final int INSERTION_RUN = 32;
+
+    private IndexSort() {
+    }
+
+    /**
+     * Compares two ints by what they stand for.
+     */
+    public interface IndexComparator {
+        /**
+         * Compares two ints.
+         *
+         * @param a The first int.
+         * @param b The second int.
+         * @return A negative value, zero or a positive value as a orders before,
+         *         with or after b.
+         */
+        int compare(int a, int b);
+    }
+
+    /**
+     * Sorts an array in place. Equal ints keep their relative order.
+     *
+     * @param values     The ints to sort.
+     * @param comparator The order.
+     */
+    public static void sort(int[] values, IndexComparator comparator) {
+        int length = values.length;
+        for (int from = 0; from < length; from += INSERTION_RUN) {
+            insertionSort(values, from, Math.min(from + INSERTION_RUN, length), comparator);
+        }
+        if (length <= INSERTION_RUN) {
+            return;
+        }
+        int[] source = values;
+        int[] target = new int[length];
+        for (int width = INSERTION_RUN; width < length; width *= 2) {
+            for (int from = 0; from < length; from += 2 * width) {
+                int middle = Math.min(from + width, length);
+                int to = Math.min(from + 2 * width, length);
+                merge(source, target, from, middle, to, comparator);
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != values) {
+            System.arraycopy(source, 0, values, 0, length);
+        }
+    }
+
+    /**
+     * Finds the k smallest of the ints 0 to length - 1 with a bounded heap, in
+     * one pass and O(k) extra space. Ties go to the smaller int, so the result
+     * is the first k ints a stable sort would give.
+     *
+     * @param length     The number of ints to choose from.
+     * @param k          The number of ints to keep, at least 0.
+     * @param comparator The order.
+     * @return The kept ints in order; fewer than k if length is smaller.
+     */
+    public static int[] top(int length, int k, IndexComparator comparator) {
+        // Max-heap of the best ints so far; later ints lose ties, so they only replace the root when smaller
+        int[] heap = new int[Math.min(k, length)];
+        int size = 0;
+        for (int value = 0; value < length; value++) {
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && comparator.compare(heap[(i - 1) / 2], value) <= 0) {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = value;
+            } else if (size > 0 && comparator.compare(value, heap[0]) < 0) {
+                siftDown(heap, size, value, comparator);
+            }
+        }
+        sort(heap, (a, b) -> {
+            int result = comparator.compare(a, b);
+            return result != 0 ? result : Integer.compare(a, b);
+        });
+        return heap;
+    }
+
+    /**
+     * Replaces the root of a max-heap ordered by comparator, then by value.
+     */
+    private static void siftDown(int[] heap, int size, int value, IndexComparator comparator) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && greater(heap[child + 1], heap[child], comparator)) {
+                child++;
+            }
+            if (!greater(heap[child], value, comparator)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    private static boolean greater(int a, int b, IndexComparator comparator) {
+        int result = comparator.compare(a, b);
+        return result > 0 || (result == 0 && a > b);
+    }
+
+    private static void insertionSort(int[] values, int from, int to, IndexComparator comparator) {
+        for (int i = from + 1; i < to; i++) {
+            int value = values[i];
+            int j = i - 1;
+            while (j >= from && comparator.compare(values[j], value) > 0) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+
+    private static void merge(int[] source, int[] target, int from, int middle, int to,
+            IndexComparator comparator) {
+        if (middle == to || comparator.compare(source[middle - 1], source[middle]) <= 0) {
+            System.arraycopy(source, from, target, from, to - from);
+            return;
+        }
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || (left < middle && comparator.compare(source[left], source[right]) <= 0)) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.assignment2.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table that assigns dense ids, in order of first
+ * appearance, to primitive long keys. Int keys are stored widened and double
+ * keys by their {@link Double#doubleToLongBits(double)} pattern, which gives
+ * the same equality as {@link Double#equals(Object)}.
+ *
+ * Keys live in one long array indexed by id and the slots hold only ids, so a
+ * lookup never boxes or allocates, and per-group state can be kept by callers
+ * in parallel primitive arrays indexed by the same id.
+ */
+public class LongGroupTable {
+    private static final int EMPTY = -1;
+
+    private long[] keys;
+    private int[] slots;
+    private int size;
+
+    public LongGroupTable() {
+        this(16);
+    }
+
+    /**
+     * Creates a table sized for an expected number of keys.
+     *
+     * @param expectedKeys The expected number of distinct keys.
+     */
+    public LongGroupTable(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedKeys) * 2 - 1) << 1;
+        keys = new long[capacity / 2];
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Returns the id of a key, assigning the next id if the key is new.
+     *
+     * @param key The key.
+     * @return The dense id of the key.
+     */
+    public int add(long key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        int id;
+        while ((id = slots[slot]) != EMPTY) {
+            if (keys[id] == key) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        id = size++;
+        if (id == keys.length) {
+            keys = Arrays.copyOf(keys, id * 2);
+        }
+        keys[id] = key;
+        slots[slot] = id;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the id of a key.
+     *
+     * @param key The key.
+     * @return The id, or -1 if the key has not been added.
+     */
+    public int get(long key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        int id;
+        while ((id = slots[slot]) != EMPTY) {
+            if (keys[id] == key) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Retrieves the key of an id.
+     *
+     * @param id The id.
+     * @return The key.
+     */
+    public long keyAt(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Retrieves the number of distinct keys.
+     *
+     * @return The number of ids assigned.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        int[] grown = new int[slots.length * 2];
+        Arrays.fill(grown, EMPTY);
+        int mask = grown.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(keys[id]) & mask;
+            while (grown[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = id;
+        }
+        slots = grown;
+    }
+
+    private static int hash(long key) {
+        // Fibonacci hashing: the high bits of the product are well mixed
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,323 @@
+package com.assignment2.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-written scanners that parse numbers directly from bytes (or Strings)
+ * without allocating or throwing exceptions.
+ */
+public class NumberScanner {
+
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Sentinel returned by {@link #scanInt(byte[], int, int)} when the bytes are
+     * not a valid int.
+     */
+    public static final long NOT_AN_INT = Long.MIN_VALUE;
+
+    /**
+     * Scans an ASCII decimal integer with an optional sign, accepting exactly the
+     * inputs {@link Integer#parseInt(String)} accepts for ASCII digits.
+     *
+     * @param bytes  The buffer.
+     * @param offset Start of the value.
+     * @param length Length of the value.
+     * @return The int value widened to long, or {@link #NOT_AN_INT}.
+     */
+    public static long scanInt(byte[] bytes, int offset, int length) {
+        if (length <= 0) {
+            return NOT_AN_INT;
+        }
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        byte first = bytes[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == end) {
+                return NOT_AN_INT;
+            }
+        }
+        while (i < end - 1 && bytes[i] == '0') {
+            i++;
+        }
+        // More than 10 significant digits cannot fit in an int; skip the work early
+        if (end - i > 10) {
+            return NOT_AN_INT;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_AN_INT;
+            }
+            value = value * 10 + digit;
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return NOT_AN_INT;
+        }
+        return value;
+    }
+
+    /**
+     * Scans a String the same way as {@link #scanInt(byte[], int, int)}.
+     *
+     * @param value The value.
+     * @return The int value widened to long, or {@link #NOT_AN_INT}.
+     */
+    public static long scanInt(String value) {
+        byte[] ascii = asciiBytes(value);
+        return ascii != null ? scanInt(ascii, 0, ascii.length) : NOT_AN_INT;
+    }
+
+    /**
+     * Checks a String the same way as {@link #isDouble(byte[], int, int)},
+     * ignoring surrounding whitespace like {@link Double#parseDouble(String)}.
+     *
+     * @param value The value.
+     * @return True if the value is a valid double literal.
+     */
+    public static boolean isDouble(String value) {
+        byte[] ascii = asciiBytes(value.trim());
+        return ascii != null && isDouble(ascii, 0, ascii.length);
+    }
+
+    /**
+     * Parses a literal already validated by {@link #isDouble(byte[], int, int)}.
+     * Plain decimals with at most 15 significant digits and a small exponent are
+     * converted exactly with a single multiplication or division; anything else
+     * is delegated to {@link Double#parseDouble(String)}, which cannot throw for a
+     * validated literal.
+     *
+     * @param bytes  The buffer.
+     * @param offset Start of the value.
+     * @param length Length of the value.
+     * @return The double value.
+     */
+    public static double parseDouble(byte[] bytes, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        boolean exact = true;
+        for (; i < end && isDigit(bytes[i]); i++) {
+            mantissa = mantissa * 10 + (bytes[i] - '0');
+            exact &= mantissa < MAX_EXACT_MANTISSA;
+        }
+        if (i < end && bytes[i] == '.') {
+            for (i++; i < end && isDigit(bytes[i]); i++) {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                exponent--;
+                exact &= mantissa < MAX_EXACT_MANTISSA;
+            }
+        }
+        if (i < end && (bytes[i] | 0x20) == 'e') {
+            i++;
+            boolean negativeExponent = false;
+            if (bytes[i] == '-' || bytes[i] == '+') {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int explicit = 0;
+            for (; i < end && isDigit(bytes[i]) && explicit < 10000; i++) {
+                explicit = explicit * 10 + (bytes[i] - '0');
+            }
+            exact &= i == end;
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        // Hex literals, NaN, Infinity and type suffixes stop before the end
+        if (exact && i == end && exponent >= -22 && exponent <= 22) {
+            double value = mantissa;
+            value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(bytes, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Checks whether the bytes form a floating-point literal accepted by
+     * {@link Double#parseDouble(String)}: an optional sign followed by "NaN",
+     * "Infinity", a hexadecimal literal, or decimal digits with an optional
+     * fraction, exponent and type suffix (f, F, d or D).
+     *
+     * @param bytes  The buffer.
+     * @param offset Start of the value.
+     * @param length Length of the value.
+     * @return True if the bytes are a valid double literal.
+     */
+    public static boolean isDouble(byte[] bytes, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        if (i == end) {
+            return false;
+        }
+        if (bytes[i] == 'N' || bytes[i] == 'I') {
+            return matchesExactly(bytes, i, end - i, "NaN") || matchesExactly(bytes, i, end - i, "Infinity");
+        }
+        if (end - i > 1 && bytes[i] == '0' && (bytes[i + 1] | 0x20) == 'x') {
+            return isHexDouble(bytes, i + 2, end);
+        }
+        int digits = 0;
+        while (i < end && isDigit(bytes[i])) {
+            i++;
+            digits++;
+        }
+        if (i < end && bytes[i] == '.') {
+            i++;
+            while (i < end && isDigit(bytes[i])) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (bytes[i] | 0x20) == 'e') {
+            i++;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < end && isDigit(bytes[i])) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        if (i < end && isTypeSuffix(bytes[i])) {
+            i++;
+        }
+        return i == end;
+    }
+
+    private static boolean isHexDouble(byte[] bytes, int i, int end) {
+        int digits = 0;
+        while (i < end && isHexDigit(bytes[i])) {
+            i++;
+            digits++;
+        }
+        if (i < end && bytes[i] == '.') {
+            i++;
+            while (i < end && isHexDigit(bytes[i])) {
+                i++;
+                digits++;
+            }
+        }
+        // A binary exponent is mandatory for hexadecimal literals
+        if (digits == 0 || i == end || (bytes[i] | 0x20) != 'p') {
+            return false;
+        }
+        i++;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        int exponentDigits = 0;
+        while (i < end && isDigit(bytes[i])) {
+            i++;
+            exponentDigits++;
+        }
+        if (exponentDigits == 0) {
+            return false;
+        }
+        if (i < end && isTypeSuffix(bytes[i])) {
+            i++;
+        }
+        return i == end;
+    }
+
+    /**
+     * Copies a String that may be a number into ASCII bytes. Values of any
+     * length are copied, so that long literals, such as a zero-padded int or a
+     * double with many digits, are classified as on the byte path.
+     *
+     * @return The bytes, or null if the value cannot be a number.
+     */
+    private static byte[] asciiBytes(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return null;
+        }
+        // Only values starting like a number are worth converting
+        char first = value.charAt(0);
+        if (!(first >= '0' && first <= '9') && first != '-' && first != '+' && first != '.'
+                && first != 'N' && first != 'I') {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isHexDigit(byte b) {
+        int lower = b | 0x20;
+        return isDigit(b) || (lower >= 'a' && lower <= 'f');
+    }
+
+    private static boolean isTypeSuffix(byte b) {
+        int lower = b | 0x20;
+        return lower == 'f' || lower == 'd';
+    }
+
+    private static boolean matchesExactly(byte[] bytes, int offset, int length, String word) {
+        if (length != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks case-insensitively whether the bytes spell an ASCII word.
+     *
+     * @param bytes  The buffer.
+     * @param offset Start of the value.
+     * @param length Length of the value.
+     * @param word   The lower-case word to compare against.
+     * @return True if the bytes match the word.
+     */
+    public static boolean matchesIgnoreCase(byte[] bytes, int offset, int length, String word) {
+        if (length != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((bytes[offset + i] | 0x20) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+package com.assignment2.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Stable LSD radix sort of unsigned long keys carrying int payloads. Runs one
+ * counting pass per key byte and skips bytes that are the same for every key,
+ * so sorting n keys costs a few linear passes instead of n log n comparisons.
+ */
+public final class RadixSort {
+    private static final int PARALLEL_THRESHOLD = 1 << 17;
+    private static final int CHUNK_ROWS = 1 << 14;
+
+    private RadixSort() {
+    }
+
+    /**
+     * Sorts keys in unsigned order and moves the payloads along. Payloads of
+     * equal keys keep their relative order.
+     *
+     * @param keys     The keys; sorted in place.
+     * @param payloads The payloads, one per key; reordered in place.
+     * @param length   The number of keys.
+     * @param keyBytes The number of low-order key bytes to sort by (1 to 8).
+     */
+    public static void sort(long[] keys, int[] payloads, int length, int keyBytes) {
+        sortRange(keys, payloads, new long[length], new int[length], 0, length, keyBytes);
+    }
+
+    /**
+     * Sorts like {@link #sort(long[], int[], int, int)}, on all cores when there
+     * are many keys. One parallel counting pass partitions the keys by their
+     * most significant differing byte, keeping each chunk's keys in order, and
+     * the partitions are then sorted by the remaining bytes in parallel.
+     *
+     * @param keys     The keys; sorted in place.
+     * @param payloads The payloads, one per key; reordered in place.
+     * @param length   The number of keys.
+     * @param keyBytes The number of low-order key bytes to sort by (1 to 8).
+     */
+    public static void parallelSort(long[] keys, int[] payloads, int length, int keyBytes) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (length < PARALLEL_THRESHOLD || parallelism < 2) {
+            sort(keys, payloads, length, keyBytes);
+            return;
+        }
+        long mask = keyBytes == 8 ? -1L : (1L << (8 * keyBytes)) - 1;
+        long differing = 0;
+        for (int i = 1; i < length; i++) {
+            differing |= (keys[i] ^ keys[0]) & mask;
+        }
+        if (differing == 0) {
+            return;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(differing)) & ~7;
+
+        // Count the top byte per chunk, then give every chunk its own range per bucket
+        int chunks = Math.min(parallelism * 4, length / CHUNK_ROWS);
+        int[][] counts = new int[chunks][256];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] chunkCounts = counts[chunk];
+            for (int i = chunkStart(chunk, chunks, length); i < chunkStart(chunk + 1, chunks, length); i++) {
+                chunkCounts[(int) (keys[i] >>> shift) & 0xFF]++;
+            }
+        });
+        int[] bucketStarts = new int[257];
+        int offset = 0;
+        for (int b = 0; b < 256; b++) {
+            bucketStarts[b] = offset;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = counts[chunk][b];
+                counts[chunk][b] = offset;
+                offset += count;
+            }
+        }
+        bucketStarts[256] = length;
+
+        long[] keyBuffer = new long[length];
+        int[] payloadBuffer = new int[length];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] next = counts[chunk];
+            for (int i = chunkStart(chunk, chunks, length); i < chunkStart(chunk + 1, chunks, length); i++) {
+                int target = next[(int) (keys[i] >>> shift) & 0xFF]++;
+                keyBuffer[target] = keys[i];
+                payloadBuffer[target] = payloads[i];
+            }
+        });
+        int lowBytes = shift / 8;
+        IntStream.range(0, 256).parallel().forEach(b -> {
+            int from = bucketStarts[b];
+            int to = bucketStarts[b + 1];
+            if (to - from > 1 && lowBytes > 0) {
+                sortRange(keyBuffer, payloadBuffer, keys, payloads, from, to, lowBytes);
+            }
+            System.arraycopy(keyBuffer, from, keys, from, to - from);
+            System.arraycopy(payloadBuffer, from, payloads, from, to - from);
+        });
+    }
+
+    private static int chunkStart(int chunk, int chunks, int length) {
+        return (int) ((long) length * chunk / chunks);
+    }
+
+    /**
+     * LSD sort of one range of the arrays, using the same range of the scratch
+     * arrays as buffers; the result ends up in keys and payloads.
+     */
+    private static void sortRange(long[] keys, int[] payloads, long[] scratchKeys, int[] scratchPayloads,
+            int from, int to, int keyBytes) {
+        long[] sourceKeys = keys;
+        int[] sourcePayloads = payloads;
+        long[] keyBuffer = scratchKeys;
+        int[] payloadBuffer = scratchPayloads;
+        int[] counts = new int[256];
+        for (int shift = 0; shift < keyBytes * 8; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = from; i < to; i++) {
+                counts[(int) (sourceKeys[i] >>> shift) & 0xFF]++;
+            }
+            if (to == from || counts[(int) (sourceKeys[from] >>> shift) & 0xFF] == to - from) {
+                continue; // Every key has the same byte here
+            }
+            int offset = from;
+            for (int b = 0; b < 256; b++) {
+                int count = counts[b];
+                counts[b] = offset;
+                offset += count;
+            }
+            for (int i = from; i < to; i++) {
+                int target = counts[(int) (sourceKeys[i] >>> shift) & 0xFF]++;
+                keyBuffer[target] = sourceKeys[i];
+                payloadBuffer[target] = sourcePayloads[i];
+            }
+            long[] swapKeys = sourceKeys;
+            sourceKeys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapPayloads = sourcePayloads;
+            sourcePayloads = payloadBuffer;
+            payloadBuffer = swapPayloads;
+        }
+        if (sourceKeys != keys) {
+            System.arraycopy(sourceKeys, from, keys, from, to - from);
+            System.arraycopy(sourcePayloads, from, payloads, from, to - from);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.assignment2.util;
+
+import java.util.DoubleSummaryStatistics;
+
+/**
+ * Count, sum, mean, minimum, maximum and variance of a stream of doubles,
+ * collected in one pass. The count, sum, mean and extremes are those of
+ * {@link DoubleSummaryStatistics}, with the same compensated sum, so they equal
+ * what a DoubleStream's sum(), average(), max() and min() return. The variance
+ * is kept with Welford's update, which stays accurate where summing squares
+ * would cancel out.
+ *
+ * Statistics of separate parts of the data are combined with the pairwise
+ * update of Chan et al., so they can be collected by parallel workers; e.g.
+ * {@code stream.collect(SummaryStatistics::new, SummaryStatistics::accept,
+ * SummaryStatistics::combine)}.
+ */
+public class SummaryStatistics extends DoubleSummaryStatistics {
+    private long count;
+    private double mean;
+    private double squaredDeviations; // Sum of squared differences from the mean
+
+    @Override
+    public void accept(double value) {
+        super.accept(value);
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+    }
+
+    /**
+     * Adds the statistics of other values to these.
+     *
+     * @param other Statistics collected by a SummaryStatistics. It is not
+     *              modified.
+     * @throws IllegalArgumentException If other lacks the variance state.
+     */
+    @Override
+    public void combine(DoubleSummaryStatistics other) {
+        if (!(other instanceof SummaryStatistics)) {
+            throw new IllegalArgumentException("Cannot combine without variance: " + other);
+        }
+        SummaryStatistics statistics = (SummaryStatistics) other;
+        super.combine(statistics);
+        if (statistics.count == 0) {
+            return;
+        }
+        long combined = count + statistics.count;
+        double delta = statistics.mean - mean;
+        squaredDeviations += statistics.squaredDeviations
+                + delta * delta * ((double) count * statistics.count / combined);
+        mean += delta * statistics.count / combined;
+        count = combined;
+    }
+
+    /**
+     * Retrieves the sample variance, dividing the squared deviations by the
+     * count minus one.
+     *
+     * @return The variance, or NaN for fewer than two values.
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : squaredDeviations / (count - 1);
+    }
+
+    /**
+     * Retrieves the population variance, dividing the squared deviations by the
+     * count.
+     *
+     * @return The variance, or NaN if there are no values.
+     */
+    public double getPopulationVariance() {
+        return count == 0 ? Double.NaN : squaredDeviations / count;
+    }
+
+    /**
+     * Retrieves the sample standard deviation.
+     *
+     * @return The square root of {@link #getVariance()}.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, sum=%f, min=%f, average=%f, max=%f, variance=%f}",
+                getClass().getSimpleName(), getCount(), getSum(), getMin(), getAverage(), getMax(), getVariance());
+    }
+}
@@ -0,0 +1,259 @@
+package com.assignment2.util;
+
+import java.util.Arrays;
+
+/**
+ * t-digest sketch of a distribution of doubles, answering quantile queries
+ * such as the median or the 99th percentile in one pass and bounded memory.
+ * Values are summarized as centroids, a mean and a weight each, kept sorted by
+ * mean. A centroid may only grow while it spans a small step of the scale
+ * function k(q) = compression / 2pi * asin(2q - 1), which is steep near q = 0
+ * and q = 1: centroids in the tails stay small, down to single values, so
+ * tail percentiles are much more accurate than the median, and the digest
+ * never holds more than about compression centroids.
+ *
+ * New values are collected in a buffer of 5 * compression values and merged
+ * into the centroids in sorted batches, so a digest of any number of values
+ * takes a few tens of KB, where an exact quantile needs a sorted copy of them
+ * all. Digests are merged by feeding the centroids of one into the other,
+ * which makes them suitable for partial results of parallel work; the merged
+ * digest answers within the same error bounds, though not always with the
+ * same value as a digest built sequentially.
+ *
+ * A digest is filled by one thread at a time. Once filled it may be queried
+ * from several threads, e.g. when it is shared through a cache.
+ */
+public final class TDigest {
+    /**
+     * Compression used by {@link #TDigest()}.
+     */
+    public static final double DEFAULT_COMPRESSION = 200;
+
+    private static final int INITIAL_BUFFER = 16;
+
+    private final double compression;
+    private final int bufferLimit;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroids;
+    private double[] bufferMeans = new double[0];
+    private double[] bufferWeights = new double[0];
+    private int buffered;
+    private boolean unitWeights = true; // Whether every buffered weight is 1
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates an empty digest of the default compression.
+     */
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates an empty digest.
+     *
+     * @param compression Bounds the number of centroids, at least 10; higher
+     *                    values are more accurate and take more memory.
+     */
+    public TDigest(double compression) {
+        if (!(compression >= 10)) {
+            throw new IllegalArgumentException("Compression must be at least 10: " + compression);
+        }
+        this.compression = compression;
+        this.bufferLimit = (int) (5 * compression);
+    }
+
+    /**
+     * Adds a value. NaN values are ignored.
+     *
+     * @param value The value.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        add(value, 1);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values of another digest to this one.
+     *
+     * @param other The digest to merge in. It is not modified.
+     */
+    public void merge(TDigest other) {
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        for (int i = 0; i < other.buffered; i++) {
+            add(other.bufferMeans[i], other.bufferWeights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Counts the values added.
+     *
+     * @return The number of values.
+     */
+    public long size() {
+        return Math.round(totalWeight);
+    }
+
+    /**
+     * Estimates a quantile. Between the centroids around it the value is
+     * interpolated linearly, so the median of 1, 2, 3 and 4 is 2.5; quantile 0
+     * is the smallest value and 1 the largest.
+     *
+     * @param q The quantile, from 0 to 1 (e.g., 0.95 for the 95th percentile).
+     * @return The estimated value, or NaN if the digest is empty.
+     */
+    public synchronized double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("Quantile out of range: " + q);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+        double index = q * totalWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + gap > index) {
+                double left = index - weightSoFar;
+                double right = weightSoFar + gap - index;
+                return (means[i] * right + means[i + 1] * left) / gap;
+            }
+            weightSoFar += gap;
+        }
+        double last = means[centroids - 1];
+        return last + (max - last) * Math.min(1, (index - weightSoFar) / (weights[centroids - 1] / 2));
+    }
+
+    /**
+     * Estimates the heap held by the digest.
+     *
+     * @return The estimate in bytes.
+     */
+    public long estimateBytes() {
+        return 96 + 8L * (means.length + weights.length + bufferMeans.length + bufferWeights.length);
+    }
+
+    private void add(double mean, double weight) {
+        if (buffered == bufferLimit) {
+            compress();
+        }
+        if (buffered == bufferMeans.length) {
+            int grown = Math.min(bufferLimit, Math.max(INITIAL_BUFFER, buffered * 2));
+            bufferMeans = Arrays.copyOf(bufferMeans, grown);
+            bufferWeights = Arrays.copyOf(bufferWeights, grown);
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        unitWeights &= weight == 1;
+    }
+
+    /**
+     * Merges the buffered values into the centroids: the buffer is sorted by
+     * mean and swept together with the centroids, each point joining the
+     * current centroid while that keeps the centroid within one step of the
+     * scale function.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        sortBuffer();
+        double[] mergedMeans = new double[centroids + buffered];
+        double[] mergedWeights = new double[centroids + buffered];
+        int last = -1;
+        double weightBefore = 0;
+        double maxWeight = 0; // Largest cumulative weight the current centroid may reach
+        int centroid = 0;
+        int point = 0;
+        while (centroid < centroids || point < buffered) {
+            double mean;
+            double weight;
+            if (point == buffered || (centroid < centroids && means[centroid] <= bufferMeans[point])) {
+                mean = means[centroid];
+                weight = weights[centroid++];
+            } else {
+                mean = bufferMeans[point];
+                weight = bufferWeights[point++];
+            }
+            if (last >= 0 && weightBefore + mergedWeights[last] + weight <= maxWeight) {
+                double proposed = mergedWeights[last] + weight;
+                mergedMeans[last] += (mean - mergedMeans[last]) * weight / proposed;
+                mergedWeights[last] = proposed;
+            } else {
+                if (last >= 0) {
+                    weightBefore += mergedWeights[last];
+                }
+                last++;
+                mergedMeans[last] = mean;
+                mergedWeights[last] = weight;
+                maxWeight = maxWeight(weightBefore);
+            }
+        }
+        centroids = last + 1;
+        means = Arrays.copyOf(mergedMeans, centroids);
+        weights = Arrays.copyOf(mergedWeights, centroids);
+        buffered = 0;
+        unitWeights = true;
+    }
+
+    private void sortBuffer() {
+        if (unitWeights) {
+            Arrays.sort(bufferMeans, 0, buffered);
+            return;
+        }
+        int[] order = new int[buffered];
+        for (int i = 0; i < buffered; i++) {
+            order[i] = i;
+        }
+        double[] sortedMeans = bufferMeans;
+        IndexSort.sort(order, (a, b) -> Double.compare(sortedMeans[a], sortedMeans[b]));
+        double[] meansInOrder = new double[bufferMeans.length];
+        double[] weightsInOrder = new double[bufferWeights.length];
+        for (int i = 0; i < buffered; i++) {
+            meansInOrder[i] = bufferMeans[order[i]];
+            weightsInOrder[i] = bufferWeights[order[i]];
+        }
+        bufferMeans = meansInOrder;
+        bufferWeights = weightsInOrder;
+    }
+
+    /**
+     * Inverts the scale function: a centroid starting after weightBefore may
+     * grow until the cumulative weight where the scale has risen by one.
+     */
+    private double maxWeight(double weightBefore) {
+        double q = weightBefore / totalWeight;
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        if (k >= compression / 4) {
+            return totalWeight;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2 * totalWeight;
+    }
+
+    @Override
+    public String toString() {
+        return "TDigest[compression=" + compression + ", size=" + size() + ", centroids=" + centroids + "]";
+    }
+}
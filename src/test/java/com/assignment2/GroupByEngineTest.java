@@ -0,0 +1,114 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GroupByEngineTest {
+    private static final List<String> COLUMNS = Arrays.asList("Region", "Name", "Price");
+    // Enough rows for several slices in parallel mode
+    private static final int ROWS = 200_000;
+
+    @Test
+    void tableRowsGroupLikeOwnedRows() {
+        List<Object[]> values = values(ROWS);
+        Analytics<DataRow> table = Analytics.wrap(tableRows(values));
+        Analytics<DataRow> owned = Analytics.wrap(ownedRows(values));
+        for (List<String> groupBy : List.of(List.of("Region"), List.of("Name", "Region"), List.<String>of())) {
+            assertEquals(engine(groupBy).aggregate(owned), engine(groupBy).aggregate(table), groupBy.toString());
+        }
+    }
+
+    @Test
+    void parallelModeMergesPartialsInOrder() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Object[]> values = values(ROWS);
+            Analytics<DataRow> table = Analytics.wrap(tableRows(values));
+            Analytics<DataRow> owned = Analytics.wrap(ownedRows(values));
+            for (Analytics<DataRow> rows : List.of(table, owned)) {
+                List<String> groupBy = List.of("Name", "Region");
+                assertEquals(engine(groupBy).aggregate(rows), engine(groupBy).aggregateParallel(rows, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void viewsOfTableRowsGroupTheirRowsOnly() {
+        List<Object[]> values = values(ROWS);
+        Analytics<DataRow> table = Analytics.wrap(tableRows(values));
+        int[] selected = new int[ROWS / 3];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = ROWS - 1 - 3 * i;
+        }
+        Analytics<DataRow> view = table.select(selected, selected.length);
+        Analytics<DataRow> copy = Analytics.wrap(ownedRows(values)).select(selected, selected.length);
+        List<String> groupBy = List.of("Region", "Name");
+        assertEquals(engine(groupBy).aggregate(copy), engine(groupBy).aggregate(view));
+    }
+
+    @Test
+    void missingGroupColumnFormsOneGroup() {
+        Analytics<DataRow> table = Analytics.wrap(tableRows(values(1000)));
+        Map<List<Object>, Map<String, Object>> groups = engine(List.of("Missing")).aggregate(table);
+        assertEquals(1, groups.size());
+        assertEquals(1000L, groups.get(Arrays.asList((Object) null)).get("Count(Price)"));
+    }
+
+    private static GroupByEngine engine(List<String> groupBy) {
+        return new GroupByEngine(groupBy, List.of(
+                new AggregationFunction("Count", "Price"),
+                new AggregationFunction("Sum", "Price"),
+                new AggregationFunction("Max", "Price"),
+                new AggregationFunction("Count Distinct", "Name"),
+                new AggregationFunction("Sample List", "Price")));
+    }
+
+    private static List<DataRow> tableRows(List<Object[]> values) {
+        DataTable.Builder builder = new DataTable.Builder(COLUMNS);
+        for (Object[] row : values) {
+            builder.addParsedRow(row);
+        }
+        return builder.build().rows();
+    }
+
+    private static List<DataRow> ownedRows(List<Object[]> values) {
+        List<DataRow> rows = new ArrayList<>();
+        for (Object[] row : values) {
+            DataRow dataRow = new DataRow();
+            for (int c = 0; c < COLUMNS.size(); c++) {
+                dataRow.addField(COLUMNS.get(c), row[c] != null ? row[c].toString() : null);
+            }
+            rows.add(dataRow);
+        }
+        return rows;
+    }
+
+    /**
+     * Generates rows with few distinct group keys, some of them missing.
+     */
+    private static List<Object[]> values(int count) {
+        Random random = new Random(7);
+        String[] names = {"Laptop", "Cable", "Monitor", "Desk", "Chair", "Lamp"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] {
+                    random.nextInt(10) == 0 ? null : random.nextInt(7) - 3,
+                    random.nextInt(10) == 0 ? null : names[random.nextInt(names.length)],
+                    random.nextInt(10) == 0 ? null : random.nextInt(200) / 4.0});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,160 @@
+package com.assignment2;
+
+import com.assignment2.analytics.Analytics;
+import com.assignment2.model.DataRow;
+import com.assignment2.model.DataTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RowSorterTest {
+    private static final List<String> COLUMNS = Arrays.asList("Id", "Region", "Price", "Name", "Shipped");
+    // Enough rows for the parallel radix sort on a multi-core machine
+    private static final int TABLE_ROWS = 200_000;
+    private static final int OWNED_ROWS = 5_000;
+
+    @Test
+    void singleColumnSortIsStable() {
+        for (String column : COLUMNS) {
+            assertSortedLikeStableSort(tableRows(TABLE_ROWS), List.of(column), new boolean[] {false});
+            assertSortedLikeStableSort(ownedRows(OWNED_ROWS), List.of(column), new boolean[] {false});
+        }
+    }
+
+    @Test
+    void descendingSortPutsMissingValuesLast() {
+        for (String column : COLUMNS) {
+            List<DataRow> rows = tableRows(TABLE_ROWS);
+            int[] order = assertSortedLikeStableSort(rows, List.of(column), new boolean[] {true});
+            if (!column.equals("Id")) {
+                assertEquals(null, rows.get(order[order.length - 1]).getField(column), column);
+            }
+            assertSortedLikeStableSort(ownedRows(OWNED_ROWS), List.of(column), new boolean[] {true});
+        }
+    }
+
+    @Test
+    void multiColumnSortMixesDirections() {
+        List<String> columns = List.of("Region", "Shipped", "Price");
+        boolean[] descending = {true, false, true};
+        assertSortedLikeStableSort(tableRows(TABLE_ROWS), columns, descending);
+        assertSortedLikeStableSort(ownedRows(OWNED_ROWS), columns, descending);
+    }
+
+    @Test
+    void topIsPrefixOfSort() {
+        for (List<DataRow> rows : List.of(tableRows(TABLE_ROWS), ownedRows(OWNED_ROWS))) {
+            for (String column : COLUMNS) {
+                for (boolean descending : new boolean[] {false, true}) {
+                    int[] sorted = order(rows, List.of(column), new boolean[] {descending});
+                    Analytics<DataRow> analytics = Analytics.wrap(rows);
+                    for (int k : new int[] {0, 1, 100, 1000}) {
+                        Analytics<DataRow> top = AnalyticsService.topByColumn(analytics, column, k, descending);
+                        assertArrayEquals(Arrays.copyOf(sorted, k), top.positionsIn(analytics),
+                                column + (descending ? " descending" : "") + ", k = " + k);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void topOfFewerRowsThanKKeepsAll() {
+        Analytics<DataRow> rows = Analytics.wrap(tableRows(10));
+        int[] sorted = order(rows.getData(), List.of("Price"), new boolean[] {true});
+        assertArrayEquals(sorted, AnalyticsService.topByColumn(rows, "Price", 100, true).positionsIn(rows));
+    }
+
+    @Test
+    void viewOfTableRowsSortsLikeOwnedRows() {
+        List<String> columns = List.of("Name", "Price");
+        boolean[] descending = {false, true};
+        int[] selected = new int[TABLE_ROWS / 4];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = TABLE_ROWS - 1 - 4 * i;
+        }
+        Analytics<DataRow> view = Analytics.wrap(tableRows(TABLE_ROWS)).select(selected, selected.length);
+        Analytics<DataRow> owned = Analytics.wrap(ownedRows(TABLE_ROWS)).select(selected, selected.length);
+        assertArrayEquals(RowSorter.sort(owned, columns, descending).positionsIn(owned),
+                RowSorter.sort(view, columns, descending).positionsIn(view));
+        assertArrayEquals(AnalyticsService.topByColumn(owned, "Price", 50, true).positionsIn(owned),
+                AnalyticsService.topByColumn(view, "Price", 50, true).positionsIn(view));
+    }
+
+    /**
+     * Checks the sort against a stable sort of the rows with
+     * {@link RowSorter#compareValues(Object, Object)}.
+     */
+    private static int[] assertSortedLikeStableSort(List<DataRow> rows, List<String> columns, boolean[] descending) {
+        Comparator<Integer> comparator = (a, b) -> 0;
+        for (int c = 0; c < columns.size(); c++) {
+            String column = columns.get(c);
+            int sign = descending[c] ? -1 : 1;
+            comparator = comparator.thenComparing((a, b) -> sign
+                    * RowSorter.compareValues(rows.get(a).getField(column), rows.get(b).getField(column)));
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            expected.add(i);
+        }
+        expected.sort(comparator);
+        int[] order = order(rows, columns, descending);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), order,
+                columns + " " + Arrays.toString(descending));
+        return order;
+    }
+
+    /**
+     * Sorts the rows and retrieves their positions in sorted order.
+     */
+    private static int[] order(List<DataRow> rows, List<String> columns, boolean[] descending) {
+        Analytics<DataRow> analytics = Analytics.wrap(rows);
+        return RowSorter.sort(analytics, columns, descending).positionsIn(analytics);
+    }
+
+    private static List<DataRow> tableRows(int count) {
+        DataTable.Builder builder = new DataTable.Builder(COLUMNS);
+        for (Object[] values : values(count)) {
+            builder.addParsedRow(values);
+        }
+        return builder.build().rows();
+    }
+
+    private static List<DataRow> ownedRows(int count) {
+        List<DataRow> rows = new ArrayList<>();
+        for (Object[] values : values(count)) {
+            DataRow row = new DataRow();
+            for (int c = 0; c < COLUMNS.size(); c++) {
+                row.addField(COLUMNS.get(c), values[c] != null ? values[c].toString() : null);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Generates rows with few distinct values per column, so that most values
+     * tie, and with some values missing.
+     */
+    private static List<Object[]> values(int count) {
+        Random random = new Random(42);
+        String[] names = {"Laptop", "Cable", "Monitor", "Desk", "Chair", "Lamp"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] {
+                    i,
+                    random.nextInt(10) == 0 ? null : random.nextInt(7) - 3,
+                    random.nextInt(10) == 0 ? null : random.nextInt(200) / 4.0 - 25.5,
+                    random.nextInt(10) == 0 ? null : names[random.nextInt(names.length)],
+                    random.nextInt(10) == 0 ? null : random.nextBoolean()});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,78 @@
+package com.assignment2.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalyticsTest {
+    private static final Comparator<Integer> BY_LAST_DIGIT = Comparator.comparingInt(n -> n % 10);
+
+    @Test
+    void sortByKeysMatchesStableComparatorSort() {
+        Analytics<Integer> view = numbers(50_000).filter(n -> n % 3 != 0);
+        long[] keys = new long[view.getData().size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = view.getData().get(i) % 10;
+        }
+        assertEquals(view.sortBy(BY_LAST_DIGIT).getData(), view.sortByKeys(keys, 1).getData());
+    }
+
+    @Test
+    void sortByKeysComparesUnsigned() {
+        Analytics<Integer> numbers = Analytics.wrap(List.of(0, 1, 2));
+        assertEquals(List.of(1, 2, 0), numbers.sortByKeys(new long[] {-1L, 0L, 1L}, 8).getData());
+        assertThrows(IllegalArgumentException.class, () -> numbers.sortByKeys(new long[2], 8));
+    }
+
+    @Test
+    void topKIsPrefixOfSort() {
+        Analytics<Integer> numbers = numbers(10_000);
+        long[] keys = new long[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = numbers.getData().get(i) % 10;
+        }
+        List<Integer> sorted = numbers.sortBy(BY_LAST_DIGIT).getData();
+        for (int k : new int[] {0, 1, 100, 20_000}) {
+            List<Integer> expected = sorted.subList(0, Math.min(k, sorted.size()));
+            assertEquals(expected, numbers.topK(k, BY_LAST_DIGIT).getData());
+            assertEquals(expected, numbers.topK(k, keys).getData());
+        }
+        assertThrows(IllegalArgumentException.class, () -> numbers.topK(-1, BY_LAST_DIGIT));
+    }
+
+    @Test
+    void positionsAreFoundWithoutVisitingRecords() {
+        List<Integer> records = new ArrayList<>(List.of(5, 6, 7, 8));
+        Analytics<Integer> whole = Analytics.wrap(records);
+        Analytics<Integer> view = whole.select(new int[] {3, 1}, 2);
+        assertTrue(view.isBackedBy(records));
+        assertFalse(view.covers(records));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, whole.positionsIn(records));
+        assertArrayEquals(new int[] {3, 1}, view.positionsIn(records));
+        assertNull(view.positionsIn(new ArrayList<>(records)));
+        // Positions relative to another view of the same records
+        Analytics<Integer> sorted = view.sortBy(Comparator.naturalOrder());
+        assertArrayEquals(new int[] {1, 0}, sorted.positionsIn(view));
+        assertArrayEquals(new int[] {-1, 0}, whole.select(new int[] {0, 1}, 2).positionsIn(sorted));
+        assertNull(view.positionsIn(new Analytics<>(records)));
+    }
+
+    private static Analytics<Integer> numbers(int count) {
+        Random random = new Random(11);
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            numbers.add(random.nextInt(1000));
+        }
+        return Analytics.wrap(numbers);
+    }
+}
@@ -0,0 +1,102 @@
+package com.assignment2.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyAnalyticsTest {
+
+    @Test
+    void chainMatchesEagerOperations() {
+        Analytics<Integer> numbers = numbers(10_000);
+        Comparator<Integer> byLastDigit = Comparator.comparingInt(n -> n % 10);
+        Comparator<Integer> byTens = Comparator.comparingInt(n -> n / 10 % 10);
+
+        List<String> eager = numbers.sortBy(byLastDigit).filter(n -> n % 3 == 0).sortBy(byTens)
+                .filter(n -> n > 100).map(n -> "#" + n).getData();
+        List<String> lazy = numbers.lazy().sortBy(byLastDigit).filter(n -> n % 3 == 0).sortBy(byTens)
+                .filter(n -> n > 100).map(n -> "#" + n).toAnalytics().getData();
+        assertEquals(eager, lazy);
+    }
+
+    @Test
+    void filtersMoveAheadOfSortsAndFuse() {
+        LazyAnalytics<Integer> plan = numbers(10).lazy().sortBy(Comparator.naturalOrder()).filter(n -> n > 2)
+                .filter(n -> n < 8).map(n -> n * 2);
+        assertEquals("scan -> filter+filter -> sort -> map", plan.explain());
+        // A filter reading the result of a map stays behind it
+        LazyAnalytics<Integer> mapped = numbers(10).lazy().sortBy(Comparator.naturalOrder()).filter(n -> n > 2)
+                .map(n -> n * 2).filter(n -> n < 10);
+        assertEquals("scan -> filter -> sort -> map+filter", mapped.explain());
+    }
+
+    @Test
+    void adjacentSortsMerge() {
+        LazyAnalytics<Integer> plan = numbers(10).lazy().sortBy(Comparator.naturalOrder())
+                .sortBy(Comparator.comparingInt(n -> n % 2));
+        assertEquals("scan -> sort", plan.explain());
+    }
+
+    @Test
+    void fusedPassTestsEachRecordOnce() {
+        AtomicInteger tested = new AtomicInteger();
+        Analytics<Integer> numbers = numbers(1000);
+        Analytics<Integer> result = numbers.lazy().filter(n -> {
+            tested.incrementAndGet();
+            return n % 2 == 0;
+        }).filter(n -> n % 5 == 0).toAnalytics();
+        assertEquals(1000, tested.get());
+        assertEquals(numbers.filter(n -> n % 10 == 0).getData(), result.getData());
+    }
+
+    @Test
+    void orderInsensitiveTerminalsSkipSorts() {
+        AtomicInteger compared = new AtomicInteger();
+        Comparator<Integer> counting = (a, b) -> {
+            compared.incrementAndGet();
+            return Integer.compare(a, b);
+        };
+        LazyAnalytics<Integer> plan = numbers(1000).lazy().sortBy(counting).filter(n -> n > 500);
+        assertEquals(numbers(1000).count(n -> n > 500), plan.count());
+        assertEquals(numbers(1000).filter(n -> n > 500).sum(n -> n), plan.sum(n -> n), 1e-6);
+        assertEquals(0, compared.get());
+    }
+
+    @Test
+    void groupByMatchesEager() {
+        Analytics<Integer> numbers = numbers(5000);
+        Map<Integer, Long> eager = numbers.filter(n -> n > 10).groupBy(n -> n % 7, Collectors.counting());
+        Map<Integer, Long> lazy = numbers.lazy().sortBy(Comparator.reverseOrder()).filter(n -> n > 10)
+                .groupBy(n -> n % 7, Collectors.counting());
+        assertEquals(eager, lazy);
+    }
+
+    @Test
+    void planWithoutMapsIsViewOfSource() {
+        Analytics<Integer> numbers = numbers(100);
+        Analytics<Integer> result = numbers.lazy().filter(n -> n < 50).sortBy(Comparator.reverseOrder())
+                .toAnalytics();
+        assertTrue(result.getData().size() <= 100);
+        for (int i = 1; i < result.getData().size(); i++) {
+            assertTrue(result.getData().get(i - 1) >= result.getData().get(i));
+        }
+    }
+
+    private static Analytics<Integer> numbers(int count) {
+        Random random = new Random(count);
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            numbers.add(random.nextInt(count));
+        }
+        return Analytics.wrap(numbers);
+    }
+}
@@ -0,0 +1,152 @@
+package com.assignment2.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class TableSnapshotTest {
+    // Several zone map blocks per column
+    private static final int ROWS = 100_000;
+    private static final String OPTIONS = "PARALLEL ,";
+
+    @TempDir
+    Path directory;
+
+    private Path csv;
+    private Path snapshot;
+    private DataTable table;
+
+    @BeforeEach
+    void writeSnapshot() throws IOException {
+        csv = directory.resolve("sales.csv");
+        Files.write(csv, "stands in for the parsed file\n".getBytes());
+        snapshot = directory.resolve("snapshots").resolve("sales.snap");
+        table = table();
+        TableSnapshot.write(table, snapshot, TableSnapshot.Source.of(csv, OPTIONS));
+    }
+
+    @Test
+    void roundTripRestoresSchemaValuesAndZoneMaps() throws IOException {
+        DataTable restored = TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS));
+        assertNotNull(restored);
+        assertEquals(table.getRowCount(), restored.getRowCount());
+        assertEquals(table.getSchema().getColumnNames(), restored.getSchema().getColumnNames());
+        for (int c = 0; c < table.getSchema().getColumnCount(); c++) {
+            Column expected = table.getColumn(c);
+            Column actual = restored.getColumn(c);
+            String name = table.getSchema().getColumnName(c);
+            assertEquals(expected.getType(), actual.getType(), name);
+            assertEquals(expected.nullCount(), actual.nullCount(), name);
+            for (int row = 0; row < table.getRowCount(); row++) {
+                if (expected.isNull(row) != actual.isNull(row)
+                        || !Objects.equals(expected.getValue(row), actual.getValue(row))) {
+                    fail(name + " row " + row + ": expected " + expected.getValue(row) + " but was "
+                            + actual.getValue(row));
+                }
+            }
+            ZoneMap expectedZones = expected.getZoneMap();
+            if (expectedZones != null) {
+                ZoneMap actualZones = actual.getZoneMap();
+                assertEquals(expectedZones.getBlockCount(), actualZones.getBlockCount(), name);
+                assertEquals(expectedZones.min(), actualZones.min(), name);
+                assertEquals(expectedZones.max(), actualZones.max(), name);
+            }
+        }
+    }
+
+    @Test
+    void emptyTableRoundTrips() throws IOException {
+        DataTable empty = new DataTable.Builder(Arrays.asList("Id", "Name")).build();
+        TableSnapshot.write(empty, snapshot, TableSnapshot.Source.of(csv, OPTIONS));
+        DataTable restored = TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS));
+        assertNotNull(restored);
+        assertEquals(0, restored.getRowCount());
+        assertEquals(empty.getSchema().getColumnNames(), restored.getSchema().getColumnNames());
+    }
+
+    @Test
+    void rewriteReplacesSnapshot() throws IOException {
+        DataTable small = new DataTable.Builder(Arrays.asList("Id")).build();
+        TableSnapshot.write(small, snapshot, TableSnapshot.Source.of(csv, OPTIONS));
+        assertEquals(0, TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS)).getRowCount());
+        try (Stream<Path> files = Files.list(snapshot.getParent())) {
+            assertEquals(1, files.count(), "temporary files left behind");
+        }
+    }
+
+    @Test
+    void staleSnapshotIsIgnored() throws IOException {
+        assertNull(TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, "MAPPED ,")));
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() - 60_000));
+        assertNull(TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS)));
+        Files.write(csv, "a longer file than the one the snapshot was made from\n".getBytes());
+        assertNull(TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS)));
+    }
+
+    @Test
+    void missingSnapshotIsIgnored() throws IOException {
+        assertNull(TableSnapshot.read(directory.resolve("none.snap"), TableSnapshot.Source.of(csv, OPTIONS)));
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshot);
+        // A byte of the header, then bytes well inside the column chunks
+        int[] positions = {20, bytes.length / 5, bytes.length / 3, bytes.length / 2, bytes.length * 4 / 5,
+                bytes.length - 100};
+        for (int position : positions) {
+            byte[] corrupt = bytes.clone();
+            corrupt[position] ^= 0x10;
+            Files.write(snapshot, corrupt);
+            assertNull(TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS)),
+                    "byte " + position + " of " + bytes.length + " flipped");
+        }
+    }
+
+    @Test
+    void truncatedSnapshotIsRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshot);
+        for (int length : new int[] {0, 4, 64, bytes.length / 2, bytes.length - 1}) {
+            Files.write(snapshot, Arrays.copyOf(bytes, length));
+            assertNull(TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS)),
+                    "truncated to " + length + " bytes");
+        }
+        Files.write(snapshot, bytes);
+        assertNotNull(TableSnapshot.read(snapshot, TableSnapshot.Source.of(csv, OPTIONS)));
+    }
+
+    /**
+     * Builds a table with a column of every type, some values missing, and
+     * strings beyond ASCII.
+     */
+    private static DataTable table() {
+        String[] names = {"Laptop", "Câble", "Moniteur 27\"", "Schreibtisch", "椅子", ""};
+        DataTable.Builder builder = new DataTable.Builder(
+                Arrays.asList("Id", "Quantity", "Price", "Shipped", "Product", "Note"));
+        Random random = new Random(7);
+        for (int row = 0; row < ROWS; row++) {
+            builder.addParsedRow(new Object[] {
+                    row,
+                    random.nextInt(20) == 0 ? null : random.nextInt(1000) - 500,
+                    random.nextInt(20) == 0 ? null : random.nextDouble() * 1e6,
+                    random.nextInt(20) == 0 ? null : random.nextBoolean(),
+                    random.nextInt(20) == 0 ? null : names[random.nextInt(names.length - 1)],
+                    null});
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.assignment2.parser;
+
+import com.assignment2.model.DataTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CSVParserTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void modesAgreeWithoutQuotesOrBlankLines() throws Exception {
+        StringBuilder csv = new StringBuilder("Id,Name,Price,Shipped\n");
+        for (int row = 0; row < 5000; row++) {
+            csv.append(row).append(", Item ").append(row % 17).append(" ,")
+                    .append(row % 9 == 0 ? "" : String.valueOf(row * 0.25)).append(',')
+                    .append(row % 2 == 0).append('\n');
+        }
+        Path file = write("plain.csv", csv.toString());
+        List<List<Object>> buffered = rows(file, CSVParser.ParseMode.BUFFERED);
+        assertEquals(5000, buffered.size());
+        assertEquals(buffered, rows(file, CSVParser.ParseMode.MAPPED));
+        assertEquals(buffered, rows(file, CSVParser.ParseMode.PARALLEL));
+    }
+
+    @Test
+    void onlyBufferedModeSplitsQuotedLineBreaks() throws Exception {
+        Path file = write("quoted.csv", "Id,Note\n"
+                + "1,\"line one\nline two, \"\"quoted\"\"\"\n"
+                + "2,plain\n");
+        List<List<Object>> parallel = rows(file, CSVParser.ParseMode.PARALLEL);
+        assertEquals(Arrays.asList(
+                Arrays.asList(1, "line one\nline two, \"quoted\""),
+                Arrays.asList(2, "plain")), parallel);
+        assertEquals(parallel, rows(file, CSVParser.ParseMode.MAPPED));
+
+        // See ParseMode: the line-based parser reads the quoted cell as two records
+        List<List<Object>> buffered = rows(file, CSVParser.ParseMode.BUFFERED);
+        assertNotEquals(parallel, buffered);
+        assertEquals(3, buffered.size());
+        assertEquals("\"line one", buffered.get(0).get(1));
+    }
+
+    @Test
+    void emptyQuotedCellIsRowButEmptyLineIsNot() throws Exception {
+        Path file = write("empty.csv", "Name\n\"\"\nx\n\n\r\n   \nlast");
+        List<List<Object>> expected = Arrays.asList(
+                Arrays.asList((Object) null), List.of("x"), Arrays.asList((Object) null), List.of("last"));
+        assertEquals(expected, rows(file, CSVParser.ParseMode.MAPPED));
+        assertEquals(expected, rows(file, CSVParser.ParseMode.PARALLEL));
+    }
+
+    private static List<List<Object>> rows(Path file, CSVParser.ParseMode mode) throws CSVParsingException {
+        DataTable table = CSVParser.parseTable(file.toString(), ",", mode);
+        List<List<Object>> rows = new ArrayList<>();
+        for (int row = 0; row < table.getRowCount(); row++) {
+            List<Object> values = new ArrayList<>();
+            for (int column = 0; column < table.getSchema().getColumnCount(); column++) {
+                values.add(table.getValue(row, column));
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
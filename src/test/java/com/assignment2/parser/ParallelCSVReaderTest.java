@@ -0,0 +1,97 @@
+package com.assignment2.parser;
+
+import com.assignment2.model.DataTable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelCSVReaderTest {
+    // Large enough for several ranges of at least MIN_CHUNK_SIZE
+    private static final int ROWS = 300_000;
+
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void literalQuoteInsideCellDoesNotMisalignRanges() throws Exception {
+        // One literal mid-cell quote, then quoted newlines in every later record
+        Path file = write("literal.csv", row -> {
+            String name = row == 0 ? "27\" Monitor" : "Cable";
+            return row + "," + name + ",\"line one\nline two, \"\"quoted\"\"\"," + (row * 0.5);
+        });
+        assertSameAsMapped(file);
+    }
+
+    @Test
+    void literalQuotesInManyCellsDoNotMisalignRanges() throws Exception {
+        Path file = write("literals.csv", row -> {
+            String name = row % 3 == 0 ? "27\" Monitor" : "Cable";
+            String note = row % 5 == 0 ? "\"line one\nline two, \"\"quoted\"\"\"" : "plain";
+            return row + "," + name + "," + note + "," + (row * 0.5);
+        });
+        assertSameAsMapped(file);
+    }
+
+    @Test
+    void quotesAfterClosedQuotedSectionAreLiteral() throws Exception {
+        Path file = write("closed.csv", row -> {
+            String size = row % 7 == 0 ? "\"12\" inch\"" : "\"12\"";
+            String note = row % 11 == 0 ? "\"wrapped\nnote\"" : "  \"x\"  ";
+            return row + "," + size + "," + note + ",Filler text to spread rows over several ranges";
+        });
+        assertSameAsMapped(file);
+    }
+
+    private void assertSameAsMapped(Path file) throws Exception {
+        DataTable expected = MappedCSVReader.read(file, (byte) ',', null);
+        DataTable actual = new ParallelCSVReader(file, (byte) ',', pool).read();
+        assertTrue(Files.size(file) > 8L << 20, "File too small to split");
+        assertEquals(expected.getSchema().getColumnNames(), actual.getSchema().getColumnNames());
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        for (int c = 0; c < expected.getSchema().getColumnCount(); c++) {
+            assertEquals(expected.getSchema().getType(c), actual.getSchema().getType(c));
+            for (int row = 0; row < expected.getRowCount(); row++) {
+                assertEquals(expected.getValue(row, c), actual.getValue(row, c), "Row " + row + ", column " + c);
+            }
+        }
+    }
+
+    private Path write(String name, RowWriter rows) throws IOException {
+        Path file = directory.resolve(name);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Id,Name,Note,Value\n");
+            for (int row = 0; row < ROWS; row++) {
+                writer.write(rows.line(row));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private interface RowWriter {
+        String line(int row);
+    }
+}
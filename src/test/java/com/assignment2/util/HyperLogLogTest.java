@@ -0,0 +1,116 @@
+package com.assignment2.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    void estimateIsWithinErrorBounds() {
+        for (int distinct : new int[] {1, 10, 1000, 50_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            // Every value twice, so duplicates must not count
+            for (int round = 0; round < 2; round++) {
+                for (int value = 0; value < distinct; value++) {
+                    sketch.add(HyperLogLog.hash(value));
+                }
+            }
+            assertWithinError(distinct, sketch);
+        }
+    }
+
+    @Test
+    void estimateOfTextIsWithinErrorBounds() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int value = 0; value < 200_000; value++) {
+            sketch.add(HyperLogLog.hash("Customer-" + value));
+        }
+        assertWithinError(200_000, sketch);
+    }
+
+    @Test
+    void lowerPrecisionHasLargerErrorBound() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (int value = 0; value < 100_000; value++) {
+            sketch.add(HyperLogLog.hash(value));
+        }
+        assertTrue(sketch.getStandardError() > new HyperLogLog().getStandardError());
+        assertWithinError(100_000, sketch);
+    }
+
+    @Test
+    void mergeEstimatesUnion() {
+        // Overlapping parts, sparse and dense, merged in any order
+        HyperLogLog sequential = new HyperLogLog();
+        HyperLogLog[] parts = new HyperLogLog[4];
+        int[][] ranges = {{0, 100}, {50, 300_000}, {250_000, 250_500}, {299_000, 400_000}};
+        for (int p = 0; p < parts.length; p++) {
+            parts[p] = new HyperLogLog();
+            for (int value = ranges[p][0]; value < ranges[p][1]; value++) {
+                parts[p].add(HyperLogLog.hash(value));
+                sequential.add(HyperLogLog.hash(value));
+            }
+        }
+        HyperLogLog forward = new HyperLogLog();
+        for (HyperLogLog part : parts) {
+            forward.merge(part);
+        }
+        HyperLogLog backward = new HyperLogLog();
+        for (int p = parts.length - 1; p >= 0; p--) {
+            backward.merge(parts[p]);
+        }
+        assertWithinError(400_000, forward);
+        assertEquals(sequential.estimate(), forward.estimate(), 1);
+        assertEquals(sequential.estimate(), backward.estimate(), 1);
+    }
+
+    @Test
+    void mergeLeavesOtherUnchanged() {
+        HyperLogLog small = new HyperLogLog();
+        for (int value = 0; value < 20; value++) {
+            small.add(HyperLogLog.hash(value));
+        }
+        long before = small.estimate();
+        HyperLogLog large = new HyperLogLog();
+        for (int value = 1000; value < 100_000; value++) {
+            large.add(HyperLogLog.hash(value));
+        }
+        large.merge(small);
+        small.merge(new HyperLogLog());
+        assertEquals(before, small.estimate());
+    }
+
+    @Test
+    void mergeRejectsOtherPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(14)));
+    }
+
+    @Test
+    void memoryStaysBounded() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int value = 0; value < 10; value++) {
+            sketch.add(HyperLogLog.hash(value));
+        }
+        assertTrue(sketch.estimateBytes() < 1024, "small sketch takes " + sketch.estimateBytes() + " bytes");
+        for (int value = 0; value < 2_000_000; value++) {
+            sketch.add(HyperLogLog.hash(value));
+        }
+        assertTrue(sketch.estimateBytes() <= (1 << 14) + 64, "sketch takes " + sketch.estimateBytes() + " bytes");
+    }
+
+    /**
+     * Accepts estimates within four standard errors, plus one for tiny counts.
+     */
+    private static void assertWithinError(long expected, HyperLogLog sketch) {
+        double bound = 4 * sketch.getStandardError() * expected + 1;
+        assertEquals(expected, sketch.estimate(), bound, "estimate of " + expected + " distinct values");
+    }
+}
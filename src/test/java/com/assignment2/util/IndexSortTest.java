@@ -0,0 +1,83 @@
+package com.assignment2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class IndexSortTest {
+
+    @Test
+    void sortKeepsEqualIntsInOrder() {
+        // Runs shorter and longer than the insertion sort runs, with many ties
+        for (int length : new int[] {0, 1, 31, 32, 33, 1000, 100_000}) {
+            int[] keys = randomKeys(length, 50, length);
+            int[] values = identity(length);
+            IndexSort.sort(values, (a, b) -> Integer.compare(keys[a], keys[b]));
+            assertArrayEquals(stableOrder(keys), values, "length " + length);
+        }
+    }
+
+    @Test
+    void sortOfSortedAndReversedInput() {
+        int[] ascending = identity(10_000);
+        int[] values = identity(10_000);
+        IndexSort.sort(values, Integer::compare);
+        assertArrayEquals(ascending, values);
+        IndexSort.sort(values, (a, b) -> Integer.compare(b, a));
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values.length - 1 - values[i];
+        }
+        assertArrayEquals(ascending, values);
+    }
+
+    @Test
+    void topIsPrefixOfStableSort() {
+        int[] keys = randomKeys(50_000, 1000, 7);
+        int[] sorted = stableOrder(keys);
+        for (int k : new int[] {0, 1, 10, 100, 4096, 50_000, 60_000}) {
+            int[] top = IndexSort.top(keys.length, k, (a, b) -> Integer.compare(keys[a], keys[b]));
+            assertArrayEquals(Arrays.copyOf(sorted, Math.min(k, keys.length)), top, "k = " + k);
+        }
+    }
+
+    @Test
+    void topOfDescendingOrderWithTies() {
+        int[] keys = randomKeys(20_000, 10, 11);
+        int[] values = identity(keys.length);
+        IndexSort.sort(values, (a, b) -> Integer.compare(keys[b], keys[a]));
+        int[] top = IndexSort.top(keys.length, 100, (a, b) -> Integer.compare(keys[b], keys[a]));
+        assertArrayEquals(Arrays.copyOf(values, 100), top);
+    }
+
+    private static int[] randomKeys(int length, int distinct, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = random.nextInt(distinct);
+        }
+        return keys;
+    }
+
+    private static int[] identity(int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /**
+     * Sorts the positions of the keys with the JDK's stable object sort.
+     */
+    private static int[] stableOrder(int[] keys) {
+        Integer[] positions = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> Integer.compare(keys[a], keys[b]));
+        return Arrays.stream(positions).mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,38 @@
+package com.assignment2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumberScannerTest {
+    private static final String PI = "3.14159265358979323846264338327950288419716939937510582097494459230781640628";
+
+    @Test
+    void longLiteralsScanAlikeFromStringsAndBytes() {
+        String paddedInt = "0".repeat(100) + "42";
+        String paddedDouble = "-" + "0".repeat(100) + "1.5e3";
+        List<String> values = List.of(paddedInt, paddedDouble, PI, "1" + "x".repeat(100), "9".repeat(80));
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(NumberScanner.scanInt(bytes, 0, bytes.length), NumberScanner.scanInt(value), value);
+            assertEquals(NumberScanner.isDouble(bytes, 0, bytes.length), NumberScanner.isDouble(value), value);
+        }
+        assertEquals(42, NumberScanner.scanInt(paddedInt));
+        assertTrue(NumberScanner.isDouble(PI));
+        assertTrue(NumberScanner.isDouble(paddedDouble));
+        assertFalse(NumberScanner.isDouble("1" + "x".repeat(100)));
+    }
+
+    @Test
+    void longDoublesParseLikeTheJdk() {
+        for (String value : List.of(PI, "9".repeat(80), "-" + "0".repeat(100) + "1.5e3", "1" + "0".repeat(400))) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(value), NumberScanner.parseDouble(bytes, 0, bytes.length), value);
+        }
+    }
+}
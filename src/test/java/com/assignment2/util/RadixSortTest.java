@@ -0,0 +1,98 @@
+package com.assignment2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RadixSortTest {
+
+    @Test
+    void sortIsStableInUnsignedOrder() {
+        Random random = new Random(1);
+        long[] keys = new long[50_000];
+        for (int i = 0; i < keys.length; i++) {
+            // Few distinct keys, including ones with the sign bit set
+            keys[i] = random.nextInt(100) * 0x0101_0101_0101_0101L;
+        }
+        assertSortedLikeStableSort(keys, 8, false);
+    }
+
+    @Test
+    void sortUsesOnlyLowKeyBytes() {
+        Random random = new Random(2);
+        long[] keys = new long[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        int[] payloads = identity(keys.length);
+        long[] sorted = keys.clone();
+        RadixSort.sort(sorted, payloads, sorted.length, 2);
+        for (int i = 1; i < sorted.length; i++) {
+            long previous = sorted[i - 1] & 0xFFFF;
+            long current = sorted[i] & 0xFFFF;
+            assertTrue(previous < current || (previous == current && payloads[i - 1] < payloads[i]),
+                    "out of order at " + i);
+        }
+    }
+
+    @Test
+    void sortOfPrefixLeavesRestAlone() {
+        long[] keys = {5, 3, 9, 1, 7};
+        int[] payloads = identity(keys.length);
+        RadixSort.sort(keys, payloads, 3, 1);
+        assertArrayEquals(new long[] {3, 5, 9, 1, 7}, keys);
+        assertArrayEquals(new int[] {1, 0, 2, 3, 4}, payloads);
+    }
+
+    @Test
+    void parallelSortMatchesSort() {
+        // Large enough for the parallel partitioning pass on a multi-core machine
+        Random random = new Random(3);
+        long[] keys = new long[300_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(1000) + ((long) random.nextInt(4) << 32);
+        }
+        assertSortedLikeStableSort(keys, 5, true);
+    }
+
+    @Test
+    void parallelSortOfEqualKeysKeepsOrder() {
+        long[] keys = new long[200_000];
+        Arrays.fill(keys, 42);
+        assertSortedLikeStableSort(keys, 8, true);
+    }
+
+    private static void assertSortedLikeStableSort(long[] keys, int keyBytes, boolean parallel) {
+        Integer[] positions = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> Long.compareUnsigned(keys[a], keys[b]));
+        int[] expected = Arrays.stream(positions).mapToInt(Integer::intValue).toArray();
+
+        long[] sorted = keys.clone();
+        int[] payloads = identity(keys.length);
+        if (parallel) {
+            RadixSort.parallelSort(sorted, payloads, sorted.length, keyBytes);
+        } else {
+            RadixSort.sort(sorted, payloads, sorted.length, keyBytes);
+        }
+        assertArrayEquals(expected, payloads);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(keys[expected[i]], sorted[i], "key apart from its payload at " + i);
+        }
+    }
+
+    private static int[] identity(int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,157 @@
+package com.assignment2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoaringBitmapTest {
+    // Values span three 16-bit keys, so every operation meets missing keys too
+    private static final int RANGE = 3 << 16;
+
+    @Test
+    void addPromotesDenseContainerToBitmap() {
+        BitSet expected = new BitSet();
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value = 0; value < 10_000; value += 2) {
+            bitmap.add(value);
+            expected.set(value);
+        }
+        assertValues(expected, bitmap);
+        assertTrue(bitmap.contains(9998));
+        assertFalse(bitmap.contains(9999));
+    }
+
+    @Test
+    void andOfSparseAndDenseContainers() {
+        BitSet sparse = random(1, 3000);
+        BitSet dense = random(2, 40_000);
+        BitSet expected = (BitSet) sparse.clone();
+        expected.and(dense);
+        assertValues(expected, of(sparse).and(of(dense)));
+        assertValues(expected, of(dense).and(of(sparse)));
+    }
+
+    @Test
+    void andOfDenseContainersFallsBackToArray() {
+        // Both sides are bitmaps, their intersection small enough for an array
+        BitSet even = every(2, 0);
+        BitSet third = every(3, 0);
+        BitSet fifth = new BitSet();
+        for (int value = 0; value < RANGE; value += 30) {
+            fifth.set(value);
+        }
+        BitSet expected = (BitSet) even.clone();
+        expected.and(third);
+        RoaringBitmap both = of(even).and(of(third));
+        assertValues(expected, both);
+        expected.and(fifth);
+        assertValues(expected, both.and(of(fifth)));
+    }
+
+    @Test
+    void orOfArraysOverflowingIntoBitmap() {
+        // Two containers of 3000 values each, together more than an array holds
+        BitSet left = every(20, 0);
+        BitSet right = every(20, 1);
+        left.clear(3000 * 20, RANGE);
+        right.clear(3000 * 20, RANGE);
+        BitSet expected = (BitSet) left.clone();
+        expected.or(right);
+        assertValues(expected, of(left).or(of(right)));
+        assertValues(expected, of(right).or(of(left)));
+    }
+
+    @Test
+    void orOfSparseAndDenseContainers() {
+        BitSet sparse = random(3, 2000);
+        BitSet dense = random(4, 50_000);
+        BitSet expected = (BitSet) sparse.clone();
+        expected.or(dense);
+        assertValues(expected, of(sparse).or(of(dense)));
+        assertValues(expected, of(dense).or(of(sparse)));
+    }
+
+    @Test
+    void andNotAcrossContainerKinds() {
+        BitSet sparse = random(5, 3000);
+        BitSet dense = random(6, 60_000);
+        BitSet expected = (BitSet) dense.clone();
+        expected.andNot(sparse);
+        assertValues(expected, of(dense).andNot(of(sparse)));
+        expected = (BitSet) sparse.clone();
+        expected.andNot(dense);
+        assertValues(expected, of(sparse).andNot(of(dense)));
+    }
+
+    @Test
+    void andNotOfDenseContainersFallsBackToArray() {
+        BitSet all = every(1, 0);
+        BitSet most = (BitSet) all.clone();
+        for (int value = 0; value < RANGE; value += 50) {
+            most.clear(value);
+        }
+        BitSet expected = (BitSet) all.clone();
+        expected.andNot(most);
+        RoaringBitmap rest = of(all).andNot(of(most));
+        assertValues(expected, rest);
+        assertTrue(of(all).andNot(of(all)).isEmpty());
+    }
+
+    @Test
+    void operationsLeaveOperandsUnchanged() {
+        BitSet sparse = random(7, 3000);
+        BitSet dense = random(8, 50_000);
+        RoaringBitmap left = of(sparse);
+        RoaringBitmap right = of(dense);
+        left.and(right);
+        left.or(right);
+        left.andNot(right);
+        right.andNot(left);
+        right.or(left);
+        assertValues(sparse, left);
+        assertValues(dense, right);
+    }
+
+    private static BitSet every(int step, int offset) {
+        BitSet values = new BitSet();
+        for (int value = offset; value < RANGE; value += step) {
+            values.set(value);
+        }
+        return values;
+    }
+
+    private static BitSet random(long seed, int count) {
+        Random random = new Random(seed);
+        BitSet values = new BitSet();
+        for (int i = 0; i < count; i++) {
+            values.set(random.nextInt(RANGE));
+        }
+        return values;
+    }
+
+    private static RoaringBitmap of(BitSet values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        values.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static void assertValues(BitSet expected, RoaringBitmap actual) {
+        assertEquals(expected.cardinality(), actual.getCardinality());
+        int[] previous = {-1};
+        BitSet values = new BitSet();
+        actual.forEach(value -> {
+            assertTrue(value > previous[0], "values out of order");
+            previous[0] = value;
+            values.set(value);
+        });
+        assertEquals(expected, values);
+        for (int value = 0; value < RANGE; value++) {
+            assertEquals(expected.get(value), actual.contains(value), "contains(" + value + ")");
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.assignment2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TDigestTest {
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999};
+
+    @Test
+    void emptyDigestHasNoQuantiles() {
+        assertTrue(Double.isNaN(new TDigest().quantile(0.5)));
+    }
+
+    @Test
+    void smallDigestInterpolatesExactly() {
+        TDigest digest = new TDigest();
+        for (double value : new double[] {4, 2, 3, 1}) {
+            digest.add(value);
+        }
+        digest.add(Double.NaN);
+        assertEquals(4, digest.size());
+        assertEquals(2.5, digest.quantile(0.5), 1e-9);
+        assertEquals(1, digest.quantile(0), 0);
+        assertEquals(4, digest.quantile(1), 0);
+    }
+
+    @Test
+    void quantilesOfUniformValues() {
+        Random random = new Random(1);
+        double[] values = new double[1_000_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 1000;
+        }
+        assertAccurate(values, digestOf(values, 0, values.length));
+    }
+
+    @Test
+    void quantilesOfSkewedValues() {
+        // Exponential amounts, like order totals: a long right tail
+        Random random = new Random(2);
+        double[] values = new double[500_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -Math.log(1 - random.nextDouble()) * 250;
+        }
+        assertAccurate(values, digestOf(values, 0, values.length));
+    }
+
+    @Test
+    void quantilesOfSortedValues() {
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        assertAccurate(values, digestOf(values, 0, values.length));
+    }
+
+    @Test
+    void mergedDigestIsAccurate() {
+        Random random = new Random(3);
+        double[] values = new double[800_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 50 + 100;
+        }
+        TDigest merged = new TDigest();
+        int parts = 8;
+        for (int p = 0; p < parts; p++) {
+            merged.merge(digestOf(values, p * values.length / parts, (p + 1) * values.length / parts));
+        }
+        assertEquals(values.length, merged.size());
+        assertAccurate(values, merged);
+    }
+
+    @Test
+    void mergeLeavesOtherUnchanged() {
+        Random random = new Random(4);
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+        }
+        TDigest other = digestOf(values, 0, values.length);
+        double median = other.quantile(0.5);
+        TDigest digest = digestOf(values, 0, 100);
+        digest.merge(other);
+        assertEquals(values.length + 100, digest.size());
+        assertEquals(values.length, other.size());
+        assertEquals(median, other.quantile(0.5), 0);
+    }
+
+    @Test
+    void memoryStaysBounded() {
+        TDigest digest = new TDigest();
+        Random random = new Random(5);
+        for (int i = 0; i < 2_000_000; i++) {
+            digest.add(random.nextDouble());
+        }
+        digest.quantile(0.5);
+        assertTrue(digest.estimateBytes() < 64 * 1024, "digest takes " + digest.estimateBytes() + " bytes");
+    }
+
+    @Test
+    void rejectsQuantileOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new TDigest().quantile(1.5));
+    }
+
+    private static TDigest digestOf(double[] values, int from, int to) {
+        TDigest digest = new TDigest();
+        for (int i = from; i < to; i++) {
+            digest.add(values[i]);
+        }
+        return digest;
+    }
+
+    /**
+     * Checks every estimate by its rank among the values: within 0.5% of the
+     * values around the median, and ten times closer in the tails.
+     */
+    private static void assertAccurate(double[] values, TDigest digest) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double estimate = digest.quantile(q);
+            int below = lowerBound(sorted, estimate);
+            int upTo = upperBound(sorted, estimate);
+            double target = q * sorted.length;
+            double rankError = target < below ? below - target : target > upTo ? target - upTo : 0;
+            double bound = (Math.abs(q - 0.5) > 0.4 ? 0.0005 : 0.005) * sorted.length;
+            assertTrue(rankError <= bound, "quantile " + q + ": estimate " + estimate + " is "
+                    + rankError / sorted.length + " of the values off");
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == value) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index < sorted.length && sorted[index] == value) {
+            index++;
+        }
+        return index;
+    }
+}